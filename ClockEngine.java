@@ -0,0 +1,2718 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The clock's time-keeping core: stopwatches, countdowns, alarms (with their journal) and the
+// formatting they share. Nothing here touches AWT or Swing, so it runs on a headless JVM, in
+// benchmarks, or behind the NeonClockApp UI, which only subscribes to its events.
+//
+// Wakeups (countdown expiry, the next due alarm) run on one "clock-engine" thread. Listeners are
+// called on whichever thread caused the event: the caller for start/stop/add/remove, the engine
+// thread for expiries and fired alarms. A UI listener hands its work to the EDT itself.
+public final class ClockEngine implements java.io.Closeable {
+    static final DateTimeFormatter HOUR_MIN_FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    // Every callback has a no-op default, so a subscriber implements only what it shows.
+    interface Listener {
+        default void stopwatchChanged(Stopwatch sw) {}
+        default void lapRecorded(Stopwatch sw, int lap) {}
+        default void countdownChanged(CountdownEngine.Countdown c) {}
+        default void countdownExpired(CountdownEngine.Countdown c) {}
+        default void alarmsAdded(List<AlarmItem> added) {}
+        default void alarmRemoved(AlarmItem ai, int index) {}
+        default void alarmsChanged(List<AlarmItem> changed) {}
+        default void alarmsFired(List<AlarmItem> fired) {}
+    }
+
+    private final java.util.concurrent.ScheduledThreadPoolExecutor executor = newExecutor("clock-engine");
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Stopwatch> stopwatches = new java.util.concurrent.ConcurrentHashMap<>();
+    private final CountdownEngine countdowns = new CountdownEngine(executor, 1024);
+    private final LocalClock clock;
+    private final AlarmService alarms;
+
+    // journal == null: alarms are kept in memory only
+    ClockEngine(ZoneId zone, AlarmJournal journal) {
+        clock = new LocalClock(zone);
+        alarms = new AlarmService(zone, journal);
+    }
+
+    // alarms persist across restarts; without a usable journal the engine still runs, in memory only
+    static AlarmJournal openDefaultJournal(ZoneId zone) {
+        try {
+            return AlarmJournal.open(AlarmJournal.defaultFile(), zone);
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("alarm journal unavailable, alarms will not be saved: " + ex);
+            return null;
+        }
+    }
+
+    // the audit log, recording from then on once added as a listener; null (after a message) if
+    // the file can't be opened
+    static EventLog openDefaultEventLog() {
+        try {
+            return EventLog.open(EventLog.defaultFile(), 16 * 1024);
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("event log unavailable, activity will not be recorded: " + ex);
+            return null;
+        }
+    }
+
+    void addListener(Listener l) { listeners.add(l); }
+    void removeListener(Listener l) { listeners.remove(l); }
+
+    // wall clock for the engine's zone; not thread-safe, keep it on one thread (the UI's)
+    LocalClock clock() { return clock; }
+
+    // the stopwatch called name, created stopped on first use
+    Stopwatch stopwatch(String name) {
+        return stopwatches.computeIfAbsent(name, Stopwatch::new);
+    }
+
+    // a new stopped countdown called name (replacing any previous one); set/start/pause and expiry
+    // are reported to listeners
+    CountdownEngine.Countdown countdown(String name) {
+        return countdowns.create(name, c -> {
+            for (Listener l : listeners) l.countdownChanged(c);
+        }, c -> {
+            for (Listener l : listeners) l.countdownExpired(c);
+        });
+    }
+
+    // the stopwatch called name, or null if none was created
+    Stopwatch findStopwatch(String name) { return stopwatches.get(name); }
+
+    Set<String> stopwatchNames() { return new TreeSet<>(stopwatches.keySet()); }
+
+    CountdownEngine countdowns() { return countdowns; }
+    AlarmService alarms() { return alarms; }
+    int stopwatchCount() { return stopwatches.size(); }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        alarms.close();
+    }
+
+    static java.util.concurrent.ScheduledThreadPoolExecutor newExecutor(String name) {
+        java.util.concurrent.ScheduledThreadPoolExecutor ex = new java.util.concurrent.ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            t.setPriority(Thread.MAX_PRIORITY);
+            return t;
+        });
+        ex.setRemoveOnCancelPolicy(true);
+        return ex;
+    }
+
+    // ------------------ Stopwatch ------------------
+    // Elapsed time is nanoTime arithmetic: the running stretch since the last start plus whatever
+    // earlier stretches banked. Laps go to a LapRecorder, which is guarded by the stopwatch's lock
+    // like the rest: the app (on the EDT) and the HTTP API (on its own thread) both lap and reset, so
+    // a reader holds synchronized (stopwatch) too.
+    final class Stopwatch {
+        final String name;
+        private final LapRecorder laps = new LapRecorder();
+        private long startNano = 0L;
+        private long bankedNano = 0L;
+        private boolean running = false;
+        private int resets = 0;
+
+        private Stopwatch(String name) { this.name = name; }
+
+        void start() {
+            synchronized (this) {
+                if (running) return;
+                startNano = System.nanoTime();
+                running = true;
+            }
+            for (Listener l : listeners) l.stopwatchChanged(this);
+        }
+
+        void stop() {
+            synchronized (this) {
+                if (!running) return;
+                bankedNano += System.nanoTime() - startNano;
+                running = false;
+            }
+            for (Listener l : listeners) l.stopwatchChanged(this);
+        }
+
+        void reset() {
+            synchronized (this) {
+                startNano = 0L;
+                bankedNano = 0L;
+                running = false;
+                laps.clear();
+                resets++;
+            }
+            for (Listener l : listeners) l.stopwatchChanged(this);
+        }
+
+        // records a lap at the current elapsed time; returns its index
+        int lap() {
+            int i;
+            synchronized (this) {
+                i = laps.add(elapsedNanos());
+            }
+            for (Listener l : listeners) l.lapRecorded(this, i);
+            return i;
+        }
+
+        synchronized long elapsedNanos() {
+            return running ? bankedNano + (System.nanoTime() - startNano) : bankedNano;
+        }
+
+        synchronized boolean isRunning() { return running; }
+        // bumped by every reset, so a reader that last saw n laps can tell they are gone
+        synchronized int resets() { return resets; }
+        LapRecorder laps() { return laps; }
+    }
+
+    // ------------------ Lap Recorder ------------------
+    // Stopwatch laps as raw cumulative nanoseconds in a growable long[], with split (lap-to-lap)
+    // statistics kept incrementally: count/min/max/sum plus a log-linear histogram for percentiles
+    // (16 sub-buckets per power of two, so a percentile is within ~6% of the true split).
+    static final class LapRecorder {
+        private static final int SUB_BITS = 4, SUB = 1 << SUB_BITS;
+        private long[] cumulative = new long[64];
+        private int size = 0;
+        private long min = Long.MAX_VALUE, max = Long.MIN_VALUE, sum = 0;
+        private final int[] histogram = new int[(64 - SUB_BITS) * SUB];
+
+        // record a lap at the given elapsed time; returns its index
+        int add(long elapsedNano) {
+            if (size == cumulative.length) cumulative = Arrays.copyOf(cumulative, size * 2);
+            long split = elapsedNano - (size == 0 ? 0 : cumulative[size - 1]);
+            cumulative[size] = elapsedNano;
+            if (split < min) min = split;
+            if (split > max) max = split;
+            sum += split;
+            histogram[bucket(Math.max(0, split))]++;
+            return size++;
+        }
+
+        void clear() {
+            size = 0;
+            min = Long.MAX_VALUE;
+            max = Long.MIN_VALUE;
+            sum = 0;
+            Arrays.fill(histogram, 0);
+        }
+
+        int size() { return size; }
+        long elapsed(int i) { return cumulative[i]; }
+        long split(int i) { return cumulative[i] - (i == 0 ? 0 : cumulative[i - 1]); }
+        long min() { return size == 0 ? 0 : min; }
+        long max() { return size == 0 ? 0 : max; }
+        long mean() { return size == 0 ? 0 : sum / size; }
+
+        // approximate split percentile, p in [0, 1]
+        long percentile(double p) {
+            if (size == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(p * size)), seen = 0;
+            for (int b = 0; b < histogram.length; b++) {
+                seen += histogram[b];
+                if (seen >= rank) return Math.max(min, Math.min(max, midpoint(b)));
+            }
+            return max;
+        }
+
+        String describe() {
+            char[] b = new char[96];
+            int i = put(b, 0, "Laps ");
+            i = TimeFormat.pad(b, i, size, 1);
+            i = put(b, i, "  best ");
+            i = TimeFormat.elapsed(b, i, min());
+            i = put(b, i, "  worst ");
+            i = TimeFormat.elapsed(b, i, max());
+            i = put(b, i, "  mean ");
+            i = TimeFormat.elapsed(b, i, mean());
+            i = put(b, i, "  p50 ");
+            i = TimeFormat.elapsed(b, i, percentile(0.5));
+            i = put(b, i, "  p90 ");
+            i = TimeFormat.elapsed(b, i, percentile(0.9));
+            return new String(b, 0, i);
+        }
+
+        private static int put(char[] b, int at, String s) {
+            s.getChars(0, s.length(), b, at);
+            return at + s.length();
+        }
+
+        // values below SUB map 1:1, above that 16 buckets per power of two
+        static int bucket(long v) {
+            if (v < SUB) return (int) v;
+            int e = 63 - Long.numberOfLeadingZeros(v);
+            return (e - SUB_BITS + 1) * SUB + (int) ((v >>> (e - SUB_BITS)) & (SUB - 1));
+        }
+
+        static long midpoint(int b) {
+            if (b < SUB) return b;
+            int e = b / SUB + SUB_BITS - 1;
+            long width = 1L << (e - SUB_BITS);
+            long low = (1L << e) + (b % SUB) * width;
+            return low + width / 2;
+        }
+    }
+
+    // ------------------ Countdown Engine ------------------
+    // Named countdowns held as absolute System.nanoTime() deadlines: remaining time is always
+    // deadline - now, so nothing accumulates rounding error and an EDT stall cannot make a timer drift.
+    // Each running countdown has one task on a scheduled executor that wakes at the deadline (no
+    // polling); how late that wakeup actually ran is recorded per expiry.
+    static final class CountdownEngine {
+        private final java.util.concurrent.ScheduledThreadPoolExecutor executor;
+        private final Map<String, Countdown> countdowns = new java.util.concurrent.ConcurrentHashMap<>();
+        private final LatencyRecorder lateness;
+
+        // latenessSamples: how many recent expiries the lateness percentiles cover
+        CountdownEngine(int latenessSamples) {
+            this(newExecutor("countdown"), latenessSamples);
+        }
+
+        CountdownEngine(java.util.concurrent.ScheduledThreadPoolExecutor executor, int latenessSamples) {
+            this.executor = executor;
+            lateness = new LatencyRecorder(latenessSamples);
+        }
+
+        // a stopped countdown named name (replacing any previous one); onExpire runs on the
+        // engine thread and must hand UI work to the EDT itself
+        Countdown create(String name, java.util.function.Consumer<Countdown> onExpire) {
+            return create(name, null, onExpire);
+        }
+
+        // as above; onChange runs on the caller's thread after set/start/pause changed the countdown
+        Countdown create(String name, java.util.function.Consumer<Countdown> onChange,
+                         java.util.function.Consumer<Countdown> onExpire) {
+            Countdown c = new Countdown(name, onChange, onExpire);
+            Countdown old = countdowns.put(name, c);
+            if (old != null) old.set(0);
+            return c;
+        }
+
+        Countdown get(String name) { return countdowns.get(name); }
+
+        Set<String> names() { return new TreeSet<>(countdowns.keySet()); }
+
+        void remove(String name) {
+            Countdown c = countdowns.remove(name);
+            if (c != null) c.set(0);
+        }
+
+        int size() { return countdowns.size(); }
+        int scheduled() { return executor.getQueue().size(); }
+
+        // how late expiries ran relative to their deadlines
+        LatencyRecorder lateness() { return lateness; }
+
+        final class Countdown {
+            final String name;
+            private final java.util.function.Consumer<Countdown> onChange, onExpire;
+            private long durationNanos = 0;
+            private long remainingNanos = 0;  // while stopped
+            private long deadline = 0;        // while running
+            private boolean running = false, expired = false;
+            private java.util.concurrent.ScheduledFuture<?> wakeup;
+
+            private Countdown(String name, java.util.function.Consumer<Countdown> onChange,
+                              java.util.function.Consumer<Countdown> onExpire) {
+                this.name = name;
+                this.onChange = onChange;
+                this.onExpire = onExpire;
+            }
+
+            // stop and load a new duration (0 clears it)
+            void set(long nanos) {
+                synchronized (this) {
+                    cancelWakeup();
+                    running = false;
+                    expired = false;
+                    durationNanos = remainingNanos = nanos;
+                }
+                if (onChange != null) onChange.accept(this);
+            }
+
+            void start() {
+                synchronized (this) {
+                    if (running || remainingNanos <= 0) return;
+                    running = true;
+                    expired = false;
+                    deadline = System.nanoTime() + remainingNanos;
+                    schedule(deadline);
+                }
+                if (onChange != null) onChange.accept(this);
+            }
+
+            void pause() {
+                synchronized (this) {
+                    if (!running) return;
+                    cancelWakeup();
+                    remainingNanos = Math.max(0, deadline - System.nanoTime());
+                    running = false;
+                }
+                if (onChange != null) onChange.accept(this);
+            }
+
+            synchronized long remainingNanos() {
+                return running ? Math.max(0, deadline - System.nanoTime()) : remainingNanos;
+            }
+
+            synchronized long durationNanos() { return durationNanos; }
+            synchronized boolean isRunning() { return running; }
+            synchronized boolean isExpired() { return expired; }
+
+            private void schedule(long at) {
+                wakeup = executor.schedule(this::fire, Math.max(0, at - System.nanoTime()),
+                        java.util.concurrent.TimeUnit.NANOSECONDS);
+            }
+
+            private void cancelWakeup() {
+                if (wakeup != null) wakeup.cancel(false);
+                wakeup = null;
+            }
+
+            private void fire() {
+                synchronized (this) {
+                    if (!running) return;
+                    long now = System.nanoTime();
+                    if (now < deadline) {
+                        schedule(deadline); // woke early (coarse sleep granularity): go back to sleep
+                        return;
+                    }
+                    lateness.record(now - deadline);
+                    running = false;
+                    expired = true;
+                    remainingNanos = 0;
+                    wakeup = null;
+                }
+                if (onExpire != null) onExpire.accept(this);
+            }
+        }
+    }
+
+    // ------------------ Timer Wheel ------------------
+    // Back end for very many countdowns (many sessions with several timers each), where an executor
+    // task per timer would cost several objects and an O(log n) heap operation. Each shard runs a
+    // hashed hierarchical timing wheel: 4 levels of 256 buckets, one tick per level-0 bucket, so
+    // with 1 ms ticks a timer can be up to ~49 days out. Schedule and cancel link or unlink one
+    // bucket entry, O(1); an upper-level bucket is redistributed into the levels below when the
+    // wheel reaches it. Timers are not objects: a shard keeps them in parallel primitive arrays
+    // indexed by slot, chained through int links, and recycles freed slots, so a timer costs 36
+    // bytes and the GC has nothing to trace. A handle packs shard, generation and slot, so a stale
+    // handle cannot cancel the slot's next timer.
+    //
+    // A tenant's timers all hash to the same shard. Each shard has its own thread, which sleeps
+    // until its next non-empty bucket and calls the ExpiryHandler outside the shard lock, so a
+    // handler may schedule again.
+    static final class TimerWheel implements java.io.Closeable {
+        interface ExpiryHandler {
+            // on the shard thread; lateNanos is how long after its deadline the timer fired
+            void expired(long handle, long tenant, int payload, long lateNanos);
+        }
+
+        private static final int LEVELS = 4, BITS = 8, SLOTS = 1 << BITS, MASK = SLOTS - 1;
+        private static final long RANGE = 1L << (LEVELS * BITS); // ticks
+        private static final int GEN_MASK = 0xFFFFFF, INITIAL = 1024;
+        static final int BYTES_PER_TIMER = 8 + 8 + 5 * 4;
+
+        private final long tickNanos;
+        private final long origin = System.nanoTime();
+        private final ExpiryHandler handler;
+        private final Shard[] shards;
+
+        // one shard per core, 1 ms ticks
+        TimerWheel(ExpiryHandler handler) {
+            this(Runtime.getRuntime().availableProcessors(), 1_000_000L, handler);
+        }
+
+        TimerWheel(int shardCount, long tickNanos, ExpiryHandler handler) {
+            if (shardCount < 1 || shardCount > 128) throw new IllegalArgumentException("shards: " + shardCount);
+            this.tickNanos = tickNanos;
+            this.handler = handler;
+            shards = new Shard[shardCount];
+            for (int s = 0; s < shardCount; s++) shards[s] = new Shard(s);
+            for (Shard s : shards) s.thread.start();
+        }
+
+        // a timer for tenant that fires delayNanos from now; returns its handle
+        long schedule(long tenant, long delayNanos, int payload) {
+            return shards[shardOf(tenant)].schedule(tenant, System.nanoTime() + Math.max(0, delayNanos), payload);
+        }
+
+        // false if the timer already fired or was cancelled
+        boolean cancel(long handle) {
+            int s = (int) (handle >>> 56);
+            return s < shards.length && shards[s].cancel(handle);
+        }
+
+        // time left on a pending timer, -1 if it fired or was cancelled
+        long remainingNanos(long handle) {
+            int s = (int) (handle >>> 56);
+            return s < shards.length ? shards[s].remainingNanos(handle) : -1;
+        }
+
+        int shardCount() { return shards.length; }
+
+        int size() {
+            int n = 0;
+            for (Shard s : shards) n += s.size();
+            return n;
+        }
+
+        // bytes held by the timer tables, wheels and expiry buffers of all shards
+        long footprintBytes() {
+            long n = 0;
+            for (Shard s : shards) n += s.footprintBytes();
+            return n;
+        }
+
+        @Override
+        public void close() {
+            for (Shard s : shards) {
+                s.closed = true;
+                java.util.concurrent.locks.LockSupport.unpark(s.thread);
+            }
+        }
+
+        private int shardOf(long tenant) {
+            return (int) (((tenant * 0x9E3779B97F4A7C15L) >>> 33) % shards.length);
+        }
+
+        // first tick at or after the deadline, so a timer never fires early
+        private long tickOf(long deadline) {
+            return Math.floorDiv(deadline - origin + tickNanos - 1, tickNanos);
+        }
+
+        private final class Shard implements Runnable {
+            private final int id;
+            private final Thread thread;
+            // timers by slot; a free slot has bucket -1 and is chained through next
+            private long[] deadline = new long[INITIAL], tenant = new long[INITIAL];
+            private int[] payload = new int[INITIAL], next = new int[INITIAL], prev = new int[INITIAL],
+                    bucket = new int[INITIAL], gen = new int[INITIAL];
+            private int used = 0, free = -1, live = 0;
+            // head slot per bucket (-1 when empty), timers per level, and which level-0 buckets are non-empty
+            private final int[] heads = new int[LEVELS * SLOTS];
+            private final int[] levelCount = new int[LEVELS];
+            private final long[] occupied = new long[SLOTS / 64];
+            private long tick = 0;             // last tick processed
+            private long wakeTick = Long.MAX_VALUE;
+            private volatile boolean closed = false;
+            // expiries collected under the lock, dispatched after it (shard thread only)
+            private long[] firedHandle = new long[64], firedTenant = new long[64], firedDeadline = new long[64];
+            private int[] firedPayload = new int[64];
+            private int fired = 0;
+
+            private Shard(int id) {
+                this.id = id;
+                Arrays.fill(heads, -1);
+                tick = Math.floorDiv(System.nanoTime() - origin, tickNanos);
+                thread = new Thread(this, "timer-wheel-" + id);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+            }
+
+            synchronized long schedule(long owner, long at, int value) {
+                int i = allocate();
+                deadline[i] = at;
+                tenant[i] = owner;
+                payload[i] = value;
+                long t = Math.max(tickOf(at), tick + 1);
+                link(i, t);
+                live++;
+                if (t < wakeTick) {
+                    wakeTick = t;
+                    java.util.concurrent.locks.LockSupport.unpark(thread);
+                }
+                return ((long) id << 56) | ((long) gen[i] << 32) | i;
+            }
+
+            synchronized boolean cancel(long handle) {
+                int i = slot(handle);
+                if (i < 0) return false;
+                unlink(i);
+                release(i);
+                return true;
+            }
+
+            synchronized long remainingNanos(long handle) {
+                int i = slot(handle);
+                return i < 0 ? -1 : Math.max(0, deadline[i] - System.nanoTime());
+            }
+
+            synchronized int size() { return live; }
+
+            synchronized long footprintBytes() {
+                return (long) deadline.length * BYTES_PER_TIMER + heads.length * 4L + firedHandle.length * 28L;
+            }
+
+            @Override
+            public void run() {
+                while (!closed) {
+                    long nowTick = Math.floorDiv(System.nanoTime() - origin, tickNanos);
+                    long wake;
+                    synchronized (this) {
+                        while (tick < nowTick) {
+                            // nothing due in the rest of this rotation: skip to just before the boundary
+                            if (live == 0) tick = nowTick;
+                            else if (levelCount[0] == 0) tick = Math.min(nowTick, tick | MASK);
+                            if (tick < nowTick) advance();
+                        }
+                        wake = wakeTick = nextWake();
+                    }
+                    dispatch();
+                    if (wake == Long.MAX_VALUE) {
+                        java.util.concurrent.locks.LockSupport.park(this);
+                    } else {
+                        long wait = origin + wake * tickNanos - System.nanoTime();
+                        if (wait > 0) java.util.concurrent.locks.LockSupport.parkNanos(this, wait);
+                    }
+                }
+            }
+
+            // the slot of a pending timer, or -1 for a stale handle
+            private int slot(long handle) {
+                int i = (int) handle;
+                if (i < 0 || i >= used || bucket[i] < 0 || gen[i] != ((int) (handle >>> 32) & GEN_MASK)) return -1;
+                return i;
+            }
+
+            private void advance() {
+                long t = ++tick;
+                int idx = (int) (t & MASK);
+                if (idx == 0) cascade(1, t);
+                int i = heads[idx];
+                if (i < 0) return;
+                heads[idx] = -1;
+                occupied[idx >>> 6] &= ~(1L << idx);
+                while (i >= 0) {
+                    int n = next[i];
+                    levelCount[0]--;
+                    collect(i);
+                    i = n;
+                }
+            }
+
+            // move the bucket the wheel just reached on this level (and above) down a level or more
+            private void cascade(int level, long t) {
+                int idx = (int) ((t >>> (BITS * level)) & MASK);
+                if (idx == 0 && level + 1 < LEVELS) cascade(level + 1, t);
+                int b = level * SLOTS + idx;
+                int i = heads[b];
+                heads[b] = -1;
+                while (i >= 0) {
+                    int n = next[i];
+                    levelCount[level]--;
+                    link(i, Math.max(tickOf(deadline[i]), tick));
+                    i = n;
+                }
+            }
+
+            private void link(int i, long t) {
+                long delta = t - tick;
+                int level = 0;
+                while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) level++;
+                // beyond the top level: parked at its far end and re-linked when the wheel gets there
+                if (delta >= RANGE) t = tick + RANGE - 1;
+                int b = level * SLOTS + (int) ((t >>> (BITS * level)) & MASK);
+                int h = heads[b];
+                next[i] = h;
+                prev[i] = -1;
+                bucket[i] = b;
+                if (h >= 0) prev[h] = i;
+                heads[b] = i;
+                levelCount[level]++;
+                if (level == 0) occupied[b >>> 6] |= 1L << b;
+            }
+
+            private void unlink(int i) {
+                int b = bucket[i], n = next[i], p = prev[i];
+                if (p >= 0) {
+                    next[p] = n;
+                } else {
+                    heads[b] = n;
+                    if (n < 0 && b < SLOTS) occupied[b >>> 6] &= ~(1L << b);
+                }
+                if (n >= 0) prev[n] = p;
+                levelCount[b >>> BITS]--;
+            }
+
+            // next tick with a level-0 bucket to fire in this rotation, else the next boundary
+            // (where level 0 wraps and the upper levels cascade)
+            private long nextWake() {
+                if (live == 0) return Long.MAX_VALUE;
+                int from = (int) (tick & MASK) + 1;
+                if (levelCount[0] > 0) {
+                    for (int w = from >>> 6; w < occupied.length; w++) {
+                        long bits = occupied[w];
+                        if (w == from >>> 6) bits &= -1L << (from & 63);
+                        if (bits != 0) return (tick & ~MASK) + (w << 6) + Long.numberOfTrailingZeros(bits);
+                    }
+                }
+                return (tick | MASK) + 1;
+            }
+
+            private int allocate() {
+                int i = free;
+                if (i >= 0) {
+                    free = next[i];
+                    return i;
+                }
+                if (used == deadline.length) {
+                    int cap = used * 2;
+                    deadline = Arrays.copyOf(deadline, cap);
+                    tenant = Arrays.copyOf(tenant, cap);
+                    payload = Arrays.copyOf(payload, cap);
+                    next = Arrays.copyOf(next, cap);
+                    prev = Arrays.copyOf(prev, cap);
+                    bucket = Arrays.copyOf(bucket, cap);
+                    gen = Arrays.copyOf(gen, cap);
+                }
+                return used++;
+            }
+
+            private void release(int i) {
+                bucket[i] = -1;
+                gen[i] = (gen[i] + 1) & GEN_MASK;
+                next[i] = free;
+                free = i;
+                live--;
+            }
+
+            private void collect(int i) {
+                if (fired == firedHandle.length) {
+                    int cap = fired * 2;
+                    firedHandle = Arrays.copyOf(firedHandle, cap);
+                    firedTenant = Arrays.copyOf(firedTenant, cap);
+                    firedDeadline = Arrays.copyOf(firedDeadline, cap);
+                    firedPayload = Arrays.copyOf(firedPayload, cap);
+                }
+                firedHandle[fired] = ((long) id << 56) | ((long) gen[i] << 32) | i;
+                firedTenant[fired] = tenant[i];
+                firedDeadline[fired] = deadline[i];
+                firedPayload[fired] = payload[i];
+                fired++;
+                release(i);
+            }
+
+            private void dispatch() {
+                if (fired == 0) return;
+                long now = System.nanoTime();
+                for (int k = 0; k < fired; k++) {
+                    try {
+                        handler.expired(firedHandle[k], firedTenant[k], firedPayload[k], Math.max(0, now - firedDeadline[k]));
+                    } catch (RuntimeException ex) {
+                        System.err.println("timer wheel: expiry handler failed: " + ex);
+                    }
+                }
+                fired = 0;
+            }
+        }
+    }
+
+    // ------------------ Alarm Service ------------------
+    // The alarm list (in the order added, which is also the display order), its scheduler and
+    // journal. Every method is safe from any thread. Checks run on the engine thread, woken for the
+    // next due alarm or midnight (capped at AlarmScheduler.MAX_SLEEP_MILLIS so a wall-clock change
+    // is noticed), and are re-armed after every change.
+    final class AlarmService {
+        private final List<AlarmItem> alarms = new ArrayList<>();
+        private final AlarmScheduler scheduler;
+        private final AlarmJournal journal;
+        private final List<AlarmItem> fired = new ArrayList<>();
+        private final List<AlarmItem> changed = new ArrayList<>();
+        private java.util.concurrent.ScheduledFuture<?> wakeup;
+
+        private AlarmService(ZoneId zone, AlarmJournal journal) {
+            this.journal = journal;
+            long now = System.currentTimeMillis();
+            scheduler = new AlarmScheduler(zone, now);
+            if (journal != null) {
+                for (AlarmItem ai : journal.recovered()) {
+                    alarms.add(ai);
+                    scheduler.add(ai, now);
+                }
+                arm(now);
+            }
+        }
+
+        synchronized int size() { return alarms.size(); }
+        synchronized AlarmItem get(int i) { return alarms.get(i); }
+        synchronized int indexOf(AlarmItem ai) { return alarms.indexOf(ai); }
+
+        synchronized AlarmItem find(UUID id) {
+            for (AlarmItem ai : alarms) if (ai.id.equals(id)) return ai;
+            return null;
+        }
+
+        synchronized List<AlarmItem> snapshot() { return new ArrayList<>(alarms); }
+
+        AlarmItem add(LocalTime t, boolean enabled) {
+            return add(t, Recurrence.DAILY, enabled);
+        }
+
+        AlarmItem add(LocalTime t, Recurrence repeat, boolean enabled) {
+            return addAll(Collections.singletonList(t), Collections.singletonList(repeat), Collections.singletonList(enabled)).get(0);
+        }
+
+        List<AlarmItem> addAll(List<LocalTime> times, boolean enabled) {
+            return addAll(times, Collections.nCopies(times.size(), enabled));
+        }
+
+        List<AlarmItem> addAll(List<LocalTime> times, List<Boolean> enabled) {
+            return addAll(times, Collections.nCopies(times.size(), Recurrence.DAILY), enabled);
+        }
+
+        // bulk add: one listener event and one journal sync for the whole batch
+        List<AlarmItem> addAll(List<LocalTime> times, List<Recurrence> repeats, List<Boolean> enabled) {
+            List<AlarmItem> batch = new ArrayList<>(times.size());
+            for (int i = 0; i < times.size(); i++)
+                batch.add(new AlarmItem(times.get(i), repeats.get(i), enabled.get(i), UUID.randomUUID()));
+            synchronized (this) {
+                alarms.addAll(batch);
+                long now = System.currentTimeMillis();
+                for (AlarmItem ai : batch) {
+                    scheduler.add(ai, now);
+                    if (journal != null) journal.put(ai);
+                }
+                sync();
+                arm(now);
+            }
+            for (Listener l : listeners) l.alarmsAdded(batch);
+            return batch;
+        }
+
+        void remove(AlarmItem ai) {
+            int i;
+            synchronized (this) {
+                i = alarms.indexOf(ai);
+                if (i < 0) return;
+                alarms.remove(i);
+                scheduler.remove(ai);
+                if (journal != null) journal.remove(ai);
+                sync();
+                arm(System.currentTimeMillis());
+            }
+            for (Listener l : listeners) l.alarmRemoved(ai, i);
+        }
+
+        void setEnabled(AlarmItem ai, boolean en) {
+            synchronized (this) {
+                if (!alarms.contains(ai)) return;
+                long now = System.currentTimeMillis();
+                scheduler.setEnabled(ai, en, now);
+                if (journal != null) journal.put(ai);
+                sync();
+                arm(now);
+            }
+            List<AlarmItem> one = Collections.singletonList(ai);
+            for (Listener l : listeners) l.alarmsChanged(one);
+        }
+
+        // fires whatever is due, reports the alarms whose display changed, then sleeps until the next one
+        void check() {
+            List<AlarmItem> f = Collections.emptyList(), c = Collections.emptyList();
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                fired.clear();
+                changed.clear();
+                scheduler.poll(now, fired, changed);
+                if (!changed.isEmpty()) {
+                    if (journal != null) for (AlarmItem ai : changed) journal.put(ai); // triggered-today flag
+                    f = new ArrayList<>(fired);
+                    c = new ArrayList<>(changed);
+                }
+                arm(now);
+            }
+            if (!f.isEmpty()) for (Listener l : listeners) l.alarmsFired(f);
+            if (!c.isEmpty()) for (Listener l : listeners) l.alarmsChanged(c);
+        }
+
+        // instant (epoch millis) of the next scheduled check
+        synchronized long nextWake() { return scheduler.nextWake(); }
+
+        // the next alarms to fire, soonest first, into items and at (epoch millis); returns how many
+        synchronized int upcoming(AlarmItem[] items, long[] at) { return scheduler.upcoming(items, at); }
+
+        private void arm(long now) {
+            if (executor.isShutdown()) return;
+            long wait = Math.max(0, Math.min(scheduler.nextWake() - now, AlarmScheduler.MAX_SLEEP_MILLIS));
+            if (wakeup != null) wakeup.cancel(false);
+            wakeup = executor.schedule(this::check, wait, java.util.concurrent.TimeUnit.MILLISECONDS);
+        }
+
+        // force user edits to disk, and compact once the journal is mostly dead records
+        private void sync() {
+            if (journal == null) return;
+            if (journal.shouldCompact(alarms.size())) {
+                try {
+                    journal.compact(alarms);
+                } catch (IOException ex) {
+                    System.err.println("alarm journal: compaction failed, appending to the journal as it is: " + ex);
+                }
+            }
+            journal.sync();
+        }
+
+        private synchronized void close() {
+            if (wakeup != null) wakeup.cancel(false);
+            if (journal != null) journal.close();
+        }
+    }
+
+    // ------------------ Alarm Import / Export ------------------
+    // Alarm rosters as CSV ("time,enabled,repeat" rows, the repeat rule in Recurrence's text form
+    // and optional) or iCalendar (one VEVENT per alarm, its RRULE mapped to and from the rule). Files
+    // are streamed a line at a time, never loaded whole. Every row is validated before anything is
+    // inserted, so the caller can show the problems first; the valid rows then go in through one
+    // AlarmService.addAll (one listener event, one journal sync).
+    static final class AlarmTransfer {
+        enum Format {
+            CSV, ICALENDAR;
+
+            static Format of(Path file) {
+                String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                return name.endsWith(".ics") || name.endsWith(".ical") || name.endsWith(".ifb") ? ICALENDAR : CSV;
+            }
+        }
+
+        static final int MAX_ERRORS = 100;
+        private static final int PROGRESS_ROWS = 4096;
+        private static final DateTimeFormatter ICS_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+        private static final String ICS_DAYS = "MOTUWETHFRSASU";
+
+        private AlarmTransfer() {}
+
+        // the valid rows of a file, and the first MAX_ERRORS problems with the others
+        static final class Parsed {
+            final List<LocalTime> times = new ArrayList<>();
+            final List<Recurrence> repeats = new ArrayList<>();
+            final List<Boolean> enabled = new ArrayList<>();
+            final List<String> errors = new ArrayList<>();
+            int invalid = 0;
+            long nanos;
+
+            int size() { return times.size(); }
+
+            private void add(LocalTime t, Recurrence repeat, boolean en) {
+                times.add(t);
+                repeats.add(repeat);
+                enabled.add(en);
+            }
+
+            private void error(int line, String message) {
+                invalid++;
+                if (errors.size() < MAX_ERRORS) errors.add("line " + line + ": " + message);
+            }
+        }
+
+        // parses without inserting; progress (may be null) hears the running row count now and then
+        static Parsed read(java.io.Reader reader, Format format, ZoneId zone,
+                           java.util.function.IntConsumer progress) throws IOException {
+            long t0 = System.nanoTime();
+            java.io.BufferedReader in = reader instanceof java.io.BufferedReader
+                    ? (java.io.BufferedReader) reader : new java.io.BufferedReader(reader, 64 * 1024);
+            Parsed p = format == Format.CSV ? readCsv(in, LocalDate.now(zone), progress) : readIcs(in, zone, progress);
+            p.nanos = System.nanoTime() - t0;
+            return p;
+        }
+
+        private static Parsed readCsv(java.io.BufferedReader in, LocalDate today, java.util.function.IntConsumer progress) throws IOException {
+            Parsed p = new Parsed();
+            int timeCol = 0, enabledCol = 1, repeatCol = 2, lineNo = 0;
+            boolean first = true;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] cols = line.split(",", -1);
+                if (first) {
+                    first = false;
+                    // an optional header names the columns (a time starts with a digit)
+                    String head = unquote(cols[0]);
+                    if (!head.isEmpty() && Character.isLetter(head.charAt(0))) {
+                        timeCol = enabledCol = repeatCol = -1;
+                        for (int c = 0; c < cols.length; c++) {
+                            String name = unquote(cols[c]).toLowerCase(Locale.ROOT);
+                            if (name.equals("time")) timeCol = c;
+                            else if (name.equals("enabled")) enabledCol = c;
+                            else if (name.equals("repeat")) repeatCol = c;
+                        }
+                        if (timeCol < 0) {
+                            p.error(lineNo, "header has no \"time\" column");
+                            return p;
+                        }
+                        continue;
+                    }
+                }
+                LocalTime t = timeCol < cols.length ? parseTime(unquote(cols[timeCol])) : null;
+                Boolean en = enabledCol >= 0 && enabledCol < cols.length ? parseEnabled(unquote(cols[enabledCol])) : Boolean.TRUE;
+                Recurrence repeat = Recurrence.DAILY;
+                String error = null;
+                if (repeatCol >= 0 && repeatCol < cols.length) {
+                    try {
+                        repeat = Recurrence.parse(unquote(cols[repeatCol]), today);
+                    } catch (IllegalArgumentException ex) {
+                        error = ex.getMessage();
+                    }
+                }
+                if (t == null) p.error(lineNo, "bad time \"" + (timeCol < cols.length ? cols[timeCol] : "") + "\" (want HH:mm)");
+                else if (en == null) p.error(lineNo, "bad enabled value \"" + cols[enabledCol] + "\"");
+                else if (error != null) p.error(lineNo, error);
+                else p.add(t, repeat, en);
+                if (progress != null && lineNo % PROGRESS_ROWS == 0) progress.accept(lineNo);
+            }
+            return p;
+        }
+
+        private static Parsed readIcs(java.io.BufferedReader in, ZoneId zone, java.util.function.IntConsumer progress) throws IOException {
+            Parsed p = new Parsed();
+            int lineNo = 0, eventLine = 0, nested = 0, events = 0;
+            boolean inEvent = false, enabled = true;
+            LocalDateTime start = null;
+            String startError = null, rrule = null;
+            // a content line may be folded over several physical lines (continuations start with a space or tab)
+            StringBuilder logical = new StringBuilder();
+            int logicalLine = 0;
+            for (String line = in.readLine(); ; line = in.readLine()) {
+                if (line != null) lineNo++;
+                if (line != null && !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+                    logical.append(line, 1, line.length());
+                    continue;
+                }
+                if (logical.length() > 0) {
+                    String content = logical.toString();
+                    int colon = content.indexOf(':');
+                    String name = colon < 0 ? content : content.substring(0, colon);
+                    String value = colon < 0 ? "" : content.substring(colon + 1).trim();
+                    String params = "";
+                    int semi = name.indexOf(';');
+                    if (semi >= 0) {
+                        params = name.substring(semi + 1);
+                        name = name.substring(0, semi);
+                    }
+                    name = name.toUpperCase(Locale.ROOT);
+                    if (name.equals("BEGIN")) {
+                        if (value.equalsIgnoreCase("VEVENT") && !inEvent) {
+                            inEvent = true;
+                            eventLine = logicalLine;
+                            nested = 0;
+                            enabled = true;
+                            start = null;
+                            startError = rrule = null;
+                        } else if (inEvent) {
+                            nested++; // VALARM and friends: their properties are not the event's
+                        }
+                    } else if (name.equals("END") && inEvent) {
+                        if (nested > 0) {
+                            nested--;
+                        } else {
+                            inEvent = false;
+                            if (start == null) {
+                                p.error(eventLine, startError != null ? startError : "VEVENT without DTSTART");
+                            } else {
+                                try {
+                                    p.add(start.toLocalTime(), icsRepeat(rrule, start.toLocalDate()), enabled);
+                                } catch (IllegalArgumentException ex) {
+                                    p.error(eventLine, ex.getMessage());
+                                }
+                            }
+                            if (progress != null && ++events % PROGRESS_ROWS == 0) progress.accept(events);
+                        }
+                    } else if (inEvent && nested == 0) {
+                        if (name.equals("DTSTART")) {
+                            try {
+                                start = icsStart(value, params, zone);
+                                if (start == null) startError = "all-day event has no time";
+                            } catch (DateTimeException ex) {
+                                startError = "bad DTSTART \"" + value + "\"";
+                            }
+                        } else if (name.equals("RRULE")) {
+                            rrule = value;
+                        } else if (name.equals("STATUS") && value.equalsIgnoreCase("CANCELLED")) {
+                            enabled = false;
+                        } else if (name.equals("X-NEONCLOCK-ENABLED")) {
+                            enabled = !value.equalsIgnoreCase("FALSE");
+                        }
+                    }
+                    logical.setLength(0);
+                }
+                if (line == null) break;
+                logical.append(line);
+                logicalLine = lineNo;
+            }
+            if (inEvent) p.error(eventLine, "VEVENT not closed");
+            return p;
+        }
+
+        // local date and time in 'zone' of a DTSTART value: floating, UTC ("Z") or with a TZID parameter; null for a DATE
+        private static LocalDateTime icsStart(String value, String params, ZoneId zone) {
+            if (value.length() == 8) return null;
+            boolean utc = value.endsWith("Z");
+            LocalDateTime local = LocalDateTime.parse(utc ? value.substring(0, value.length() - 1) : value, ICS_DATE_TIME);
+            ZoneId from = null;
+            if (utc) {
+                from = ZoneOffset.UTC;
+            } else {
+                for (String param : params.split(";")) {
+                    if (param.regionMatches(true, 0, "TZID=", 0, 5)) from = ZoneId.of(unquote(param.substring(5)));
+                }
+            }
+            return from == null ? local : local.atZone(from).withZoneSameInstant(zone).toLocalDateTime();
+        }
+
+        // the rule for an RRULE value (null: a single event, so a one-shot alarm on the start date).
+        // UNTIL and COUNT are ignored: the alarm repeats until it is removed.
+        private static Recurrence icsRepeat(String rrule, LocalDate start) {
+            if (rrule == null) return Recurrence.once(start);
+            String freq = null, byDay = null;
+            int interval = 1;
+            for (String part : rrule.toUpperCase(Locale.ROOT).split(";")) {
+                int eq = part.indexOf('=');
+                String key = eq < 0 ? part : part.substring(0, eq), v = eq < 0 ? "" : part.substring(eq + 1);
+                if (key.equals("FREQ")) freq = v;
+                else if (key.equals("BYDAY")) byDay = v;
+                else if (key.equals("INTERVAL")) {
+                    try {
+                        interval = Integer.parseInt(v);
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("bad RRULE interval \"" + v + "\"");
+                    }
+                }
+            }
+            if (freq == null) throw new IllegalArgumentException("RRULE without FREQ");
+            switch (freq) {
+                case "MINUTELY": return Recurrence.every(interval, start);
+                case "HOURLY": return Recurrence.every(interval * 60, start);
+                case "DAILY": return interval == 1 ? Recurrence.DAILY : Recurrence.every(interval * 1440, start);
+                case "WEEKLY":
+                    if (interval != 1) throw new IllegalArgumentException("RRULE every " + interval + " weeks is not supported");
+                    if (byDay == null) return Recurrence.weekly(1 << (start.getDayOfWeek().getValue() - 1));
+                    int mask = 0;
+                    for (String day : byDay.split(",")) {
+                        int d = ICS_DAYS.indexOf(day.length() > 2 ? day.substring(day.length() - 2) : day);
+                        if (d < 0 || d % 2 != 0) throw new IllegalArgumentException("bad RRULE day \"" + day + "\"");
+                        mask |= 1 << d / 2;
+                    }
+                    return Recurrence.weekly(mask);
+                default:
+                    throw new IllegalArgumentException("RRULE frequency " + freq + " is not supported");
+            }
+        }
+
+        // "7:30", "07:30" or "07:30:15"; null if it is none of those
+        static LocalTime parseTime(String s) {
+            int n = s.length(), i = 0, h = 0, m = 0, sec = 0;
+            while (i < n && i < 2 && Character.isDigit(s.charAt(i))) h = h * 10 + (s.charAt(i++) - '0');
+            if (i == 0 || i >= n || s.charAt(i++) != ':') return null;
+            if (i + 2 > n || !Character.isDigit(s.charAt(i)) || !Character.isDigit(s.charAt(i + 1))) return null;
+            m = (s.charAt(i) - '0') * 10 + (s.charAt(i + 1) - '0');
+            i += 2;
+            if (i < n) {
+                if (i + 3 != n || s.charAt(i) != ':' || !Character.isDigit(s.charAt(i + 1)) || !Character.isDigit(s.charAt(i + 2))) return null;
+                sec = (s.charAt(i + 1) - '0') * 10 + (s.charAt(i + 2) - '0');
+            }
+            if (h > 23 || m > 59 || sec > 59) return null;
+            return LocalTime.of(h, m, sec);
+        }
+
+        private static Boolean parseEnabled(String s) {
+            switch (s.toLowerCase(Locale.ROOT)) {
+                case "": case "true": case "yes": case "on": case "1": case "enabled": return Boolean.TRUE;
+                case "false": case "no": case "off": case "0": case "disabled": return Boolean.FALSE;
+                default: return null;
+            }
+        }
+
+        private static String unquote(String s) {
+            s = s.trim();
+            return s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"' ? s.substring(1, s.length() - 1) : s;
+        }
+
+        // streams the alarms out; returns how many were written
+        static int write(java.io.Writer out, Format format, List<AlarmItem> alarms, ZoneId zone) throws IOException {
+            char[] b = new char[8];
+            if (format == Format.CSV) {
+                out.write("time,enabled,repeat\n");
+                for (AlarmItem ai : alarms) {
+                    out.write(b, 0, wallTime(b, ai.time));
+                    out.write(ai.enabled ? ",true," : ",false,");
+                    out.write(ai.repeat == Recurrence.DAILY ? "daily" : ai.repeat.toString());
+                    out.write('\n');
+                }
+                return alarms.size();
+            }
+            // floating DTSTART (local wall time), today unless the rule has a date of its own
+            String today = LocalDate.now(zone).format(DateTimeFormatter.BASIC_ISO_DATE);
+            String stamp = LocalDateTime.now(ZoneOffset.UTC).format(ICS_DATE_TIME) + "Z";
+            out.write("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//NeonClock//Alarms//EN\r\n");
+            for (AlarmItem ai : alarms) {
+                out.write("BEGIN:VEVENT\r\nUID:");
+                out.write(ai.id.toString());
+                out.write("@neonclock\r\nDTSTAMP:");
+                out.write(stamp);
+                out.write("\r\nDTSTART:");
+                Recurrence r = ai.repeat;
+                out.write(r.kind == Recurrence.Kind.ONCE || r.kind == Recurrence.Kind.INTERVAL
+                        ? LocalDate.ofEpochDay(r.epochDay).format(DateTimeFormatter.BASIC_ISO_DATE) : today);
+                out.write('T');
+                int sod = ai.time.toSecondOfDay();
+                out.write(b, 0, TimeFormat.pad(b, TimeFormat.pad(b, TimeFormat.pad(b, 0, sod / 3600, 2), sod / 60 % 60, 2), sod % 60, 2));
+                switch (r.kind) {
+                    case DAILY:
+                        out.write("\r\nRRULE:FREQ=DAILY");
+                        break;
+                    case INTERVAL:
+                        out.write("\r\nRRULE:FREQ=MINUTELY;INTERVAL=" + r.minutes);
+                        break;
+                    case WEEKLY:
+                        out.write("\r\nRRULE:FREQ=WEEKLY;BYDAY=");
+                        for (int d = 0, n = 0; d < 7; d++) {
+                            if ((r.days & 1 << d) == 0) continue;
+                            if (n++ > 0) out.write(',');
+                            out.write(ICS_DAYS, 2 * d, 2);
+                        }
+                        break;
+                    default:
+                        break; // ONCE: a single event
+                }
+                out.write("\r\nSUMMARY:Alarm ");
+                out.write(b, 0, wallTime(b, ai.time));
+                out.write(ai.enabled ? "\r\nX-NEONCLOCK-ENABLED:TRUE\r\nEND:VEVENT\r\n" : "\r\nX-NEONCLOCK-ENABLED:FALSE\r\nEND:VEVENT\r\n");
+            }
+            out.write("END:VCALENDAR\r\n");
+            return alarms.size();
+        }
+
+        // "07:30", or "07:30:15" when the seconds are not zero
+        private static int wallTime(char[] b, LocalTime t) {
+            int i = TimeFormat.pad(b, 0, t.getHour(), 2);
+            b[i++] = ':';
+            i = TimeFormat.pad(b, i, t.getMinute(), 2);
+            if (t.getSecond() == 0) return i;
+            b[i++] = ':';
+            return TimeFormat.pad(b, i, t.getSecond(), 2);
+        }
+    }
+
+    // ------------------ Alarm Recurrence ------------------
+    // When an alarm repeats: every day, on some weekdays, every N minutes, or once on a date. A rule
+    // is compiled against the alarm's wall time into a NextFire function that answers "first
+    // instant after t" with a little arithmetic on epoch days: the weekday rule looks up how many
+    // days to skip in a 7-entry table, the interval rule rounds up to the next multiple of its
+    // period, and local wall times become instants through ZoneDays, with no ZonedDateTime per call.
+    //
+    // Text form (CSV, the HTTP API and the alarm panel): "daily", "weekdays", "weekends",
+    // "mon wed fri" (or "mon,wed,fri"), "every 15m from 2026-10-18", "once 2026-12-24".
+    static final class Recurrence {
+        enum Kind { DAILY, WEEKLY, INTERVAL, ONCE }
+
+        // first instant (epoch millis) strictly after 'after'; NEVER once there is none
+        interface NextFire {
+            long after(long after);
+        }
+
+        private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+        static final long NEVER = Long.MAX_VALUE;
+        static final int ALL_DAYS = 0x7F;
+        static final Recurrence DAILY = new Recurrence(Kind.DAILY, ALL_DAYS, 0, 0);
+        static final Recurrence WEEKDAYS = new Recurrence(Kind.WEEKLY, 0x1F, 0, 0);
+        static final Recurrence WEEKENDS = new Recurrence(Kind.WEEKLY, 0x60, 0, 0);
+
+        final Kind kind;
+        final int days;         // WEEKLY: bit 0 is Monday ... bit 6 Sunday
+        final int minutes;      // INTERVAL: the period
+        final long epochDay;    // ONCE: the date; INTERVAL: the day of the first occurrence
+        private final String text;
+
+        private Recurrence(Kind kind, int days, int minutes, long epochDay) {
+            this.kind = kind;
+            this.days = days;
+            this.minutes = minutes;
+            this.epochDay = epochDay;
+            text = format();
+        }
+
+        static Recurrence weekly(int days) {
+            days &= ALL_DAYS;
+            if (days == 0) throw new IllegalArgumentException("no days selected");
+            if (days == ALL_DAYS) return DAILY;
+            if (days == WEEKDAYS.days) return WEEKDAYS;
+            return days == WEEKENDS.days ? WEEKENDS : new Recurrence(Kind.WEEKLY, days, 0, 0);
+        }
+
+        static Recurrence weekly(Set<DayOfWeek> days) {
+            int mask = 0;
+            for (DayOfWeek d : days) mask |= 1 << (d.getValue() - 1);
+            return weekly(mask);
+        }
+
+        // every 'minutes' of elapsed time from the alarm's wall time on 'from', so a reminder keeps
+        // its period through a DST change
+        static Recurrence every(int minutes, LocalDate from) {
+            if (minutes < 1 || minutes > 7 * 1440) throw new IllegalArgumentException("interval must be 1 minute to 7 days");
+            return new Recurrence(Kind.INTERVAL, 0, minutes, from.toEpochDay());
+        }
+
+        static Recurrence once(LocalDate date) {
+            return new Recurrence(Kind.ONCE, 0, 0, date.toEpochDay());
+        }
+
+        // the text form; an interval without "from" starts 'today'
+        static Recurrence parse(String s, LocalDate today) {
+            String t = s.trim().toLowerCase(Locale.ROOT);
+            switch (t) {
+                case "": case "daily": case "every day": return DAILY;
+                case "weekdays": return WEEKDAYS;
+                case "weekends": return WEEKENDS;
+                default: break;
+            }
+            try {
+                if (t.startsWith("once ")) return once(LocalDate.parse(t.substring(5).trim()));
+                if (t.startsWith("every ")) {
+                    String rest = t.substring(6).trim();
+                    LocalDate from = today;
+                    int f = rest.indexOf(" from ");
+                    if (f >= 0) {
+                        from = LocalDate.parse(rest.substring(f + 6).trim());
+                        rest = rest.substring(0, f).trim();
+                    }
+                    int scale = rest.endsWith("h") ? 60 : 1;
+                    if (rest.endsWith("h") || rest.endsWith("m")) rest = rest.substring(0, rest.length() - 1);
+                    return every(Integer.parseInt(rest.trim()) * scale, from);
+                }
+            } catch (DateTimeException | NumberFormatException ex) {
+                throw new IllegalArgumentException("bad repeat rule \"" + s + "\"");
+            }
+            int mask = 0;
+            for (String day : t.split("[,\\s]+")) {
+                int d = Arrays.asList(DAY_NAMES).indexOf(day.length() > 3 ? day.substring(0, 3) : day);
+                if (d < 0) throw new IllegalArgumentException("bad repeat rule \"" + s + "\"");
+                mask |= 1 << d;
+            }
+            return weekly(mask);
+        }
+
+        // the text form, built once: list rows show it on every paint
+        @Override
+        public String toString() { return text; }
+
+        private String format() {
+            switch (kind) {
+                case DAILY: return "daily";
+                case ONCE: return "once " + LocalDate.ofEpochDay(epochDay);
+                case INTERVAL:
+                    return "every " + (minutes % 60 == 0 ? minutes / 60 + "h" : minutes + "m") + " from " + LocalDate.ofEpochDay(epochDay);
+                default:
+                    if (days == 0x1F) return "weekdays";
+                    if (days == 0x60) return "weekends";
+                    StringBuilder sb = new StringBuilder();
+                    for (int d = 0; d < 7; d++) {
+                        if ((days & 1 << d) == 0) continue;
+                        if (sb.length() > 0) sb.append(' ');
+                        sb.append(DAY_NAMES[d]);
+                    }
+                    return sb.toString();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Recurrence)) return false;
+            Recurrence r = (Recurrence) o;
+            return kind == r.kind && days == r.days && minutes == r.minutes && epochDay == r.epochDay;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(kind, days, minutes, epochDay); }
+
+        // this rule for an alarm at wall time t; the function uses 'zone' unsynchronised, so it
+        // belongs to the zone's owner (the scheduler)
+        NextFire compile(LocalTime t, ZoneDays zone) {
+            int sod = t.toSecondOfDay();
+            switch (kind) {
+                case ONCE: {
+                    long at = zone.resolve(epochDay, sod);
+                    return after -> at > after ? at : NEVER;
+                }
+                case INTERVAL: {
+                    long first = zone.resolve(epochDay, sod), period = minutes * 60_000L;
+                    return after -> after < first ? first : first + (Math.floorDiv(after - first, period) + 1) * period;
+                }
+                default: {
+                    // ahead[w]: days from weekday w (0 = Monday) to the next selected one, 0 if w itself is
+                    int[] ahead = new int[7];
+                    for (int w = 0; w < 7; w++) {
+                        while ((days & 1 << (w + ahead[w]) % 7) == 0) ahead[w]++;
+                    }
+                    return after -> {
+                        // from the day before: a late time pushed forward by a gap lands on the next date
+                        long d = zone.epochDay(after) - 1;
+                        long at;
+                        do {
+                            d += ahead[ZoneDays.weekday(d)];
+                            at = zone.resolve(d++, sod);
+                        } while (at <= after);
+                        return at;
+                    };
+                }
+            }
+        }
+    }
+
+    // Local calendar arithmetic for one zone on primitives. The zone's offset transitions are
+    // expanded once into sorted arrays (and extended as time goes on), so the offset at an instant
+    // is a binary search, and a local date and wall time resolve to an instant the way
+    // ZonedDateTime.of does: a time in a DST gap moves forward by the length of the gap, a time in
+    // an overlap takes the earlier offset, so it fires once. Not thread-safe.
+    static final class ZoneDays {
+        private static final long SECONDS_PER_DAY = 86_400;
+        private static final long MAX_OFFSET = 18 * 3600;
+        // transitions are expanded this far past the latest instant asked about
+        private static final long HORIZON = 400 * SECONDS_PER_DAY;
+
+        private final ZoneRules rules;
+        private final int fixed;
+        private long[] at = new long[0];       // transition instants, epoch seconds, ascending
+        private int[] before = new int[0], offset = new int[0];
+        private int count = 0;
+        private long coveredUntil = Long.MIN_VALUE;
+
+        ZoneDays(ZoneId zone) {
+            rules = zone.getRules();
+            fixed = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+        }
+
+        // 0 = Monday ... 6 = Sunday (epoch day 0 was a Thursday)
+        static int weekday(long epochDay) {
+            return Math.floorMod(epochDay + 3, 7);
+        }
+
+        // the local date, as an epoch day, at an instant
+        long epochDay(long epochMilli) {
+            long s = Math.floorDiv(epochMilli, 1000);
+            return Math.floorDiv(s + offsetAt(s), SECONDS_PER_DAY);
+        }
+
+        int offsetAt(long epochSecond) {
+            if (rules.isFixedOffset()) return fixed;
+            cover(epochSecond);
+            int i = Arrays.binarySearch(at, 0, count, epochSecond);
+            i = i >= 0 ? i : -i - 2;
+            return i >= 0 ? offset[i] : count > 0 ? before[0] : fixed;
+        }
+
+        // the instant (epoch millis) of secondOfDay on the local date epochDay
+        long resolve(long epochDay, int secondOfDay) {
+            long local = epochDay * SECONDS_PER_DAY + secondOfDay;
+            if (rules.isFixedOffset()) return (local - fixed) * 1000;
+            cover(local + MAX_OFFSET);
+            // the first transition whose local effect ends after 'local' decides: before it (or inside
+            // its gap or overlap) the old offset applies; past every one, the newest offset. Offsets
+            // are within MAX_OFFSET, so that is at most a few transitions on from local - 2 * MAX_OFFSET.
+            int i = Arrays.binarySearch(at, 0, count, local - 2 * MAX_OFFSET);
+            for (i = i >= 0 ? i : -i - 1; i < count; i++) {
+                if (local < at[i] + Math.max(before[i], offset[i])) return (local - before[i]) * 1000;
+            }
+            int o = i > 0 ? offset[i - 1] : count > 0 ? before[0] : fixed;
+            return (local - o) * 1000;
+        }
+
+        // expands transitions up to at least epochSecond
+        private void cover(long epochSecond) {
+            if (epochSecond < coveredUntil) return;
+            long until = Math.max(epochSecond, System.currentTimeMillis() / 1000) + HORIZON;
+            // from the beginning of the zone's history on first use, then from where the last stopped
+            ZoneOffsetTransition t = count == 0 ? firstTransition() : rules.nextTransition(Instant.ofEpochSecond(at[count - 1]));
+            for (; t != null && t.toEpochSecond() <= until; t = rules.nextTransition(t.getInstant())) {
+                if (count == at.length) {
+                    int n = Math.max(64, count * 2);
+                    at = Arrays.copyOf(at, n);
+                    before = Arrays.copyOf(before, n);
+                    offset = Arrays.copyOf(offset, n);
+                }
+                at[count] = t.toEpochSecond();
+                before[count] = t.getOffsetBefore().getTotalSeconds();
+                offset[count++] = t.getOffsetAfter().getTotalSeconds();
+            }
+            coveredUntil = until;
+        }
+
+        private ZoneOffsetTransition firstTransition() {
+            List<ZoneOffsetTransition> history = rules.getTransitions();
+            return history.isEmpty() ? rules.nextTransition(Instant.ofEpochSecond(Long.MIN_VALUE / 2000))
+                    : history.get(0);
+        }
+    }
+
+    // ------------------ Alarm Scheduler ------------------
+    static class AlarmItem {
+        LocalTime time;
+        Recurrence repeat = Recurrence.DAILY;
+        boolean enabled;
+        boolean triggeredToday = false;
+        UUID id;
+        // owned by AlarmScheduler: the compiled rule, next fire instant (epoch millis) and queue tie-breaker
+        Recurrence.NextFire next;
+        long nextFire;
+        long seq;
+        AlarmItem(LocalTime t, boolean e, UUID id) { time = t; enabled = e; this.id = id; }
+        AlarmItem(LocalTime t, Recurrence repeat, boolean e, UUID id) { this(t, e, id); this.repeat = repeat; }
+    }
+
+    // Enabled alarms ordered by next fire instant, so a check only looks at the head of the queue
+    // instead of scanning every alarm. Each alarm's rule is compiled when it is queued; after
+    // firing it is re-queued at the rule's next occurrence, which is the only rule evaluated per
+    // fire. A one-shot alarm disables itself once it has fired. The local midnight is tracked as
+    // its own deadline, where the "triggered today" flags are cleared.
+    static final class AlarmScheduler {
+        static final long MAX_SLEEP_MILLIS = 60_000;
+        // an alarm noticed more than this late (suspend, clock jump) is skipped, as a missed minute was before
+        static final long GRACE_MILLIS = 60_000;
+
+        private final ZoneDays days;
+        private final TreeSet<AlarmItem> queue = new TreeSet<>((a, b) ->
+                a.nextFire != b.nextFire ? Long.compare(a.nextFire, b.nextFire) : Long.compare(a.seq, b.seq));
+        private final List<AlarmItem> triggered = new ArrayList<>();
+        private long nextMidnight;
+        private long seq = 0;
+
+        AlarmScheduler(ZoneId zone, long now) {
+            days = new ZoneDays(zone);
+            nextMidnight = midnightAfter(now);
+        }
+
+        void add(AlarmItem ai, long now) {
+            if (ai.triggeredToday) triggered.add(ai);
+            if (!ai.enabled) return;
+            ai.next = ai.repeat.compile(ai.time, days);
+            // an alarm for the current minute still fires, unless it already did today
+            ai.nextFire = ai.next.after(ai.triggeredToday ? now : now - GRACE_MILLIS);
+            ai.seq = seq++;
+            if (ai.nextFire != Recurrence.NEVER) queue.add(ai);
+            else ai.enabled = false; // a one-shot whose date has passed: off, as after it has fired
+        }
+
+        void remove(AlarmItem ai) {
+            queue.remove(ai);
+            triggered.remove(ai);
+        }
+
+        void setEnabled(AlarmItem ai, boolean en, long now) {
+            remove(ai);
+            ai.enabled = en;
+            add(ai, now);
+        }
+
+        int size() { return queue.size(); }
+
+        // the head of the queue: a board of the next few alarms reads only those
+        int upcoming(AlarmItem[] items, long[] at) {
+            int n = 0;
+            for (Iterator<AlarmItem> it = queue.iterator(); it.hasNext() && n < items.length; n++) {
+                items[n] = it.next();
+                at[n] = items[n].nextFire;
+            }
+            return n;
+        }
+
+        // next instant anything can change: the earliest alarm or the local midnight rollover
+        long nextWake() {
+            return queue.isEmpty() ? nextMidnight : Math.min(nextMidnight, queue.first().nextFire);
+        }
+
+        // collects the alarms due at 'now' into fired, and every alarm whose display changed into changed
+        void poll(long now, List<AlarmItem> fired, List<AlarmItem> changed) {
+            if (now >= nextMidnight) {
+                for (AlarmItem ai : triggered) {
+                    ai.triggeredToday = false;
+                    changed.add(ai);
+                }
+                triggered.clear();
+                nextMidnight = midnightAfter(now);
+            }
+            while (!queue.isEmpty() && queue.first().nextFire <= now) {
+                AlarmItem ai = queue.pollFirst();
+                boolean late = now - ai.nextFire >= GRACE_MILLIS;
+                ai.nextFire = ai.next.after(now);
+                if (ai.nextFire != Recurrence.NEVER) {
+                    queue.add(ai);
+                } else {
+                    ai.enabled = false; // a one-shot that has had its turn
+                    if (late) changed.add(ai);
+                }
+                if (late) continue;
+                if (!ai.triggeredToday) triggered.add(ai);
+                ai.triggeredToday = true;
+                fired.add(ai);
+                changed.add(ai);
+            }
+        }
+
+        private long midnightAfter(long now) {
+            return days.resolve(days.epochDay(now) + 1, 0);
+        }
+    }
+
+    // ------------------ Alarm Journal ------------------
+    // Alarms persist in an append-only journal of fixed 32-byte records written through a
+    // MappedByteBuffer, so an append is a few stores into the page cache and survives a process crash
+    // without a write() call. Each record carries a CRC32C; recovery replays records up to the first
+    // empty or corrupt one (a torn write at crash time) and wipes everything after it. When the
+    // journal holds far more records than live alarms it is compacted: the live set is written to a
+    // temp file, forced, and atomically renamed to the next generation ("alarms.journal.1", ".2", ...),
+    // which the journal then switches to. Nothing is renamed over a file that is still mapped (Windows
+    // refuses that); open takes the newest generation and deletes the older ones.
+    //
+    // record: type(1) flags(1) pad(2) secondOfDay(4) idMsb(8) idLsb(8) triggeredEpochDay(4) crc(4)
+    // rule:   type(1) kind(1) days(2) minutes(4) idMsb(8) idLsb(8) epochDay(4) crc(4)
+    //
+    // A non-daily alarm's PUT is preceded by a RULE record for the same id. The PUT commits it: a
+    // RULE left without its PUT by a crash is ignored, and the alarm keeps its previous state.
+    static final class AlarmJournal implements java.io.Closeable {
+        private static final int MAGIC = 0x4E434A31; // "NCJ1"
+        private static final int HEADER = 32, RECORD = 32, MIN_MAP = 64 * 1024;
+        private static final byte PUT = 1, REMOVE = 2, RULE = 3;
+        private static final int ENABLED = 1, TRIGGERED = 2;
+
+        private static final int COMPACT_MIN = 4096;
+
+        private final Path file;       // generation 0; generation g > 0 is "<file>.<g>"
+        private final ZoneId zone;
+        private long generation;
+        private FileChannel channel;
+        private MappedByteBuffer map;
+        private int end;               // offset of the next record
+        private int records;           // records in the file
+        private int compactAt = COMPACT_MIN; // pushed back after a failed compaction
+        private List<AlarmItem> recovered;
+        private final java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
+
+        static Path defaultFile() {
+            String p = System.getProperty("neonclock.alarms");
+            return p != null ? Paths.get(p) : Paths.get(System.getProperty("user.home"), ".neonclock", "alarms.journal");
+        }
+
+        static AlarmJournal open(Path file, ZoneId zone) throws IOException {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            AlarmJournal j = new AlarmJournal(file, zone);
+            j.recover();
+            return j;
+        }
+
+        private AlarmJournal(Path file, ZoneId zone) {
+            this.file = file;
+            this.zone = zone;
+        }
+
+        // the alarms found at open, in the order they were first added
+        List<AlarmItem> recovered() { return recovered; }
+
+        int records() { return records; }
+        long bytes() { return end; }
+
+        void put(AlarmItem ai) {
+            if (ai.repeat != Recurrence.DAILY) append(RULE, ai);
+            append(PUT, ai);
+        }
+
+        void remove(AlarmItem ai) {
+            append(REMOVE, ai);
+        }
+
+        // flush to the device (the mapped pages already survive a process crash, not a power loss)
+        void sync() {
+            map.force();
+        }
+
+        // the file in use
+        Path file() { return generation(generation); }
+
+        // worth compacting once dead records outnumber live alarms (and there are enough to matter);
+        // after a failure, not again until another COMPACT_MIN records have been appended
+        boolean shouldCompact(int liveAlarms) {
+            return records > COMPACT_MIN && records >= compactAt && records > 2 * liveAlarms;
+        }
+
+        // rewrite the journal as exactly one PUT per live alarm, in the next generation's file. The
+        // current file stays open and mapped until the new one is mapped; if the new one can't be
+        // written, renamed or mapped, the journal carries on appending to the current file.
+        void compact(Collection<AlarmItem> alarms) throws IOException {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp"), old = file(), next = generation(generation + 1);
+            ByteBuffer buf = ByteBuffer.allocate(HEADER + 2 * RECORD * alarms.size());
+            header(buf);
+            for (AlarmItem ai : alarms) encodePut(buf, ai);
+            int length = buf.position();
+            buf.flip();
+            FileChannel reopened = null;
+            MappedByteBuffer remapped;
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+                    while (buf.hasRemaining()) out.write(buf);
+                    out.force(true);
+                }
+                Files.move(tmp, next, StandardCopyOption.ATOMIC_MOVE);
+                reopened = FileChannel.open(next, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                remapped = reopened.map(FileChannel.MapMode.READ_WRITE, 0, mapSize(MIN_MAP, length + RECORD));
+            } catch (IOException ex) {
+                compactAt = records + COMPACT_MIN;
+                // a next generation left behind would win over the appends still to come at the next open
+                try {
+                    if (reopened != null) reopened.close();
+                } catch (IOException ignored) {}
+                for (Path p : new Path[]{tmp, next}) {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException ignored) {}
+                }
+                throw ex;
+            }
+            channel.close();
+            channel = reopened;
+            map = remapped;
+            generation++;
+            end = length;
+            records = (length - HEADER) / RECORD;
+            // still mapped until the old buffer is collected, so this can fail on Windows; the next
+            // open deletes it then
+            try {
+                Files.deleteIfExists(old);
+            } catch (IOException ignored) {}
+        }
+
+        @Override
+        public void close() {
+            if (channel == null) return;
+            try {
+                map.force();
+                channel.close();
+            } catch (IOException ignored) {}
+            channel = null;
+        }
+
+        private void recover() throws IOException {
+            generation = newestGeneration();
+            channel = FileChannel.open(file(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            dropGenerationsBefore(generation);
+            long size = channel.size();
+            mapAtLeast((int) Math.max(size, HEADER + RECORD));
+            if (size < HEADER || map.getInt(0) != MAGIC) {
+                // new (or unrecognisable) file: start an empty journal
+                map.position(0);
+                header(map);
+                wipe(HEADER);
+                end = HEADER;
+                recovered = new ArrayList<>();
+                return;
+            }
+            // startup runs this cold, so it stays primitive: the file is copied to the heap in one
+            // bulk get, ids go into an open-addressing table sized for every record in the file, the
+            // per-record work is its own method (compiled after a few hundred calls instead of waiting
+            // for the loop to be OSR-compiled), and removed alarms are nulled out rather than unlinked
+            byte[] raw = new byte[map.capacity()];
+            map.get(0, raw);
+            ByteBuffer buf = ByteBuffer.wrap(raw);
+            int maxRecords = (raw.length - HEADER) / RECORD;
+            Replay r = new Replay(Integer.highestOneBit(Math.max(16, maxRecords)) * 4, LocalDate.now(zone).toEpochDay());
+            int at = HEADER;
+            while (at + RECORD <= raw.length && replay(buf, at, r)) at += RECORD;
+            end = at;
+            // drop a torn tail so later appends can never be followed by stale records
+            if (Arrays.mismatch(raw, end, raw.length, new byte[raw.length - end], 0, raw.length - end) != -1) wipe(end);
+            recovered = new ArrayList<>(r.items.size());
+            for (AlarmItem ai : r.items) if (ai != null) recovered.add(ai);
+        }
+
+        private static final class Replay {
+            final long[] msb, lsb;
+            final int[] index;      // slot -> position in items, -1 when free
+            final int mask;
+            final long today;
+            final List<AlarmItem> items = new ArrayList<>();
+            // the RULE waiting for its PUT
+            long ruleMsb, ruleLsb;
+            Recurrence rule;
+
+            Replay(int slots, long today) {
+                msb = new long[slots];
+                lsb = new long[slots];
+                index = new int[slots];
+                Arrays.fill(index, -1);
+                mask = slots - 1;
+                this.today = today;
+            }
+
+            int slot(long hi, long lo) {
+                int s = (int) (((hi * 31 + lo) * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+                while (index[s] >= 0 && (msb[s] != hi || lsb[s] != lo)) s = (s + 1) & mask;
+                return s;
+            }
+        }
+
+        // apply the record at 'at'; false if it is empty or corrupt (the end of the journal)
+        private boolean replay(ByteBuffer b, int at, Replay r) {
+            byte type = b.get(at);
+            if (type != PUT && type != REMOVE && type != RULE) return false;
+            crc.reset();
+            crc.update(b.array(), at, RECORD - 4);
+            if ((int) crc.getValue() != b.getInt(at + RECORD - 4)) return false;
+            records++;
+            long hi = b.getLong(at + 8), lo = b.getLong(at + 16);
+            Recurrence rule = r.rule != null && r.ruleMsb == hi && r.ruleLsb == lo ? r.rule : Recurrence.DAILY;
+            r.rule = null;
+            if (type == RULE) {
+                r.rule = decodeRule(b, at);
+                r.ruleMsb = hi;
+                r.ruleLsb = lo;
+                return true;
+            }
+            int s = r.slot(hi, lo);
+            AlarmItem ai = r.index[s] >= 0 ? r.items.get(r.index[s]) : null;
+            if (type == REMOVE) {
+                if (ai != null) r.items.set(r.index[s], null);
+                return true;
+            }
+            LocalTime t = LocalTime.ofSecondOfDay(b.getInt(at + 4));
+            if (ai == null) {
+                // new, or re-added after a remove: either way it goes to the end of the list
+                ai = new AlarmItem(t, false, new UUID(hi, lo));
+                r.msb[s] = hi;
+                r.lsb[s] = lo;
+                r.index[s] = r.items.size();
+                r.items.add(ai);
+            }
+            int flags = b.get(at + 1);
+            ai.time = t;
+            ai.repeat = rule;
+            ai.enabled = (flags & ENABLED) != 0;
+            ai.triggeredToday = (flags & TRIGGERED) != 0 && b.getInt(at + 24) == r.today;
+            return true;
+        }
+
+        private void append(byte type, AlarmItem ai) {
+            if (channel == null) return;
+            try {
+                if (end + RECORD > map.capacity()) mapAtLeast(end + RECORD);
+            } catch (IOException ex) {
+                System.err.println("alarm journal: cannot grow " + file() + ": " + ex);
+                return;
+            }
+            map.position(end);
+            encode(map, type, ai);
+            end += RECORD;
+            records++;
+        }
+
+        private void encodePut(ByteBuffer b, AlarmItem ai) {
+            if (ai.repeat != Recurrence.DAILY) encode(b, RULE, ai);
+            encode(b, PUT, ai);
+        }
+
+        private void encode(ByteBuffer b, byte type, AlarmItem ai) {
+            int start = b.position();
+            UUID id = ai.id;
+            b.put(type);
+            if (type == RULE) {
+                Recurrence r = ai.repeat;
+                b.put((byte) r.kind.ordinal());
+                b.putShort((short) r.days);
+                b.putInt(r.minutes);
+            } else {
+                b.put((byte) ((ai.enabled ? ENABLED : 0) | (ai.triggeredToday ? TRIGGERED : 0)));
+                b.putShort((short) 0);
+                b.putInt(ai.time.toSecondOfDay());
+            }
+            b.putLong(id.getMostSignificantBits());
+            b.putLong(id.getLeastSignificantBits());
+            if (type == RULE) b.putInt((int) ai.repeat.epochDay);
+            else b.putInt(ai.triggeredToday ? (int) LocalDate.now(zone).toEpochDay() : 0);
+            crc.reset();
+            crc.update(b.slice(start, RECORD - 4));
+            b.putInt((int) crc.getValue());
+        }
+
+        private static Recurrence decodeRule(ByteBuffer b, int at) {
+            long epochDay = b.getInt(at + 24);
+            Recurrence.Kind[] kinds = Recurrence.Kind.values();
+            int kind = b.get(at + 1);
+            switch (kind >= 0 && kind < kinds.length ? kinds[kind] : Recurrence.Kind.DAILY) {
+                case WEEKLY: return Recurrence.weekly(b.getShort(at + 2));
+                case INTERVAL: return Recurrence.every(b.getInt(at + 4), LocalDate.ofEpochDay(epochDay));
+                case ONCE: return Recurrence.once(LocalDate.ofEpochDay(epochDay));
+                default: return Recurrence.DAILY;
+            }
+        }
+
+        private Path generation(long g) {
+            return g == 0 ? file : file.resolveSibling(file.getFileName() + "." + g);
+        }
+
+        // generation numbers of the files next to the journal, -1 for anything else
+        private long generationOf(Path p) {
+            String prefix = file.getFileName() + ".", name = p.getFileName().toString();
+            if (name.equals(file.getFileName().toString())) return 0;
+            if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() > prefix.length() + 18) return -1;
+            for (int i = prefix.length(); i < name.length(); i++) if (!Character.isDigit(name.charAt(i))) return -1;
+            return Long.parseLong(name.substring(prefix.length()));
+        }
+
+        // the newest generation with a journal header: a generation appears only by the rename at the
+        // end of a compaction, so it is complete
+        private long newestGeneration() throws IOException {
+            long newest = 0;
+            try (java.nio.file.DirectoryStream<Path> dir = Files.newDirectoryStream(file.toAbsolutePath().getParent())) {
+                for (Path p : dir) {
+                    long g = generationOf(p);
+                    if (g > newest && hasHeader(p)) newest = g;
+                }
+            }
+            return newest;
+        }
+
+        private static boolean hasHeader(Path p) throws IOException {
+            try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+                ByteBuffer b = ByteBuffer.allocate(4);
+                return ch.read(b, 0) == 4 && b.getInt(0) == MAGIC;
+            }
+        }
+
+        // what a compaction left behind: older generations it could not delete, and its temp file
+        private void dropGenerationsBefore(long g) throws IOException {
+            try (java.nio.file.DirectoryStream<Path> dir = Files.newDirectoryStream(file.toAbsolutePath().getParent())) {
+                for (Path p : dir) {
+                    long pg = generationOf(p);
+                    if ((pg >= 0 && pg < g) || p.getFileName().toString().equals(file.getFileName() + ".tmp")) {
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (IOException ignored) {}
+                    }
+                }
+            }
+        }
+
+        private static void header(ByteBuffer b) {
+            b.putInt(MAGIC);
+            b.putInt(1); // version
+            b.put(new byte[HEADER - 8]);
+        }
+
+        // (re)map the file read-write with room for at least 'bytes', growing geometrically
+        private void mapAtLeast(int bytes) throws IOException {
+            int cap = mapSize(map == null ? MIN_MAP : map.capacity(), bytes);
+            if (map == null || cap != map.capacity()) map = channel.map(FileChannel.MapMode.READ_WRITE, 0, cap);
+        }
+
+        private static int mapSize(int cap, int bytes) {
+            while (cap < bytes) cap *= 2;
+            return cap;
+        }
+
+        // zero everything from 'from' on; pages may reach the disk out of order, so there can be
+        // stale records beyond a hole. Compared a page at a time, and only non-zero pages are written.
+        private void wipe(int from) {
+            ByteBuffer zeros = ByteBuffer.allocate(4096);
+            for (int i = from; i < map.capacity(); i += zeros.capacity()) {
+                int len = Math.min(zeros.capacity(), map.capacity() - i);
+                ByteBuffer page = map.slice(i, len), zero = zeros.slice(0, len);
+                if (page.mismatch(zero) != -1) page.put(zero);
+            }
+        }
+    }
+
+    // ------------------ Event Log ------------------
+    // An audit trail of everything the engine reports: stopwatch start/stop/reset/lap, countdown
+    // set/start/pause/expiry and alarm add/remove/change/fire, each stamped with epoch nanoseconds
+    // (a wall-clock origin advanced by System.nanoTime(), so stamps are monotonic within a run).
+    //
+    // Subscribers record on the listener's thread into a bounded ring buffer: a slot is claimed
+    // with a CAS on the head, filled, then published by storing its sequence number, so recording
+    // never takes a lock or touches the disk. A single writer thread drains the ring every
+    // DRAIN_MILLIS and packs events into blocks of up to BLOCK_EVENTS, written once full or once
+    // the oldest pending event is FLUSH_MILLIS old. When the ring is full a single event is dropped
+    // (and counted) rather than making the caller wait; bulk events (an import) wait for room.
+    //
+    // block: magic(4) count(4) bodyLength(4) crc32c(4) minTime(8) maxTime(8), then the body (the
+    // CRC covers the count, length and times as well as the body; in "NCE1" blocks, written
+    // before, only the body):
+    //   subject dictionary (varint n, then n length-prefixed UTF-8 strings)
+    //   times    varint deltas from minTime, the block being sorted by time
+    //   types    one byte each
+    //   subjects varint dictionary indexes
+    //   values   zigzag varints
+    // Opening the log reads only the block headers (and checks every body's CRC), truncating a
+    // torn tail; the headers make the time index, searched by binary search for range queries.
+    static final class EventLog implements Listener, java.io.Closeable {
+        // stored as the ordinal: append new types at the end
+        enum Type {
+            STOPWATCH_START, STOPWATCH_STOP, STOPWATCH_RESET, STOPWATCH_LAP,
+            TIMER_SET, TIMER_START, TIMER_PAUSE, TIMER_EXPIRE,
+            ALARM_ADD, ALARM_REMOVE, ALARM_CHANGE, ALARM_FIRE
+        }
+
+        interface Visitor {
+            // value: elapsed nanos (stopwatch), remaining or set nanos (timer), second of day
+            // (alarm add/remove/fire), or ALARM_ENABLED | ALARM_TRIGGERED (alarm change)
+            void event(long epochNanos, Type type, String subject, long value);
+        }
+
+        static final int ALARM_ENABLED = 1, ALARM_TRIGGERED = 2;
+        static final int BLOCK_EVENTS = 4096;
+        private static final int MAGIC = 0x4E434532, BODY_CRC_MAGIC = 0x4E434531; // "NCE2", "NCE1"
+        private static final int HEADER = 32, MAX_BODY = 16 << 20;
+        private static final long DRAIN_MILLIS = 100, FLUSH_MILLIS = 1000;
+        private static final Type[] TYPES = Type.values();
+
+        private final long epochOrigin, nanoOrigin = System.nanoTime();
+        // ring: claimed by CAS on head, published via the slot's sequence + 1, consumed at tail
+        private final int mask;
+        private final long[] ringTime, ringValue;
+        private final byte[] ringType;
+        private final String[] ringSubject;
+        private final java.util.concurrent.atomic.AtomicLongArray published;
+        private final java.util.concurrent.atomic.AtomicLong head = new java.util.concurrent.atomic.AtomicLong();
+        private volatile long tail = 0;
+        private final java.util.concurrent.atomic.AtomicLong dropped = new java.util.concurrent.atomic.AtomicLong();
+        private final java.util.concurrent.atomic.AtomicBoolean drainRequested = new java.util.concurrent.atomic.AtomicBoolean();
+
+        // the block being filled (writer thread only)
+        private final long[] blockTime = new long[BLOCK_EVENTS], blockValue = new long[BLOCK_EVENTS];
+        private final byte[] blockType = new byte[BLOCK_EVENTS];
+        private final String[] blockSubject = new String[BLOCK_EVENTS];
+        private final int[] order = new int[BLOCK_EVENTS], subjectIndex = new int[BLOCK_EVENTS];
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
+        private byte[] out = new byte[64 * 1024];
+        private int outPos;
+        private int blockSize = 0;
+        private long blockStarted;
+
+        // time index, one entry per block: offset and count, the latest time in it or any earlier
+        // block, and the earliest time in it or any later one (both monotonic, so both ends of a
+        // range are binary searches even where neighbouring blocks overlap a little in time)
+        private long[] offsets = new long[64], maxUpTo = new long[64], minFrom = new long[64];
+        private int[] counts = new int[64];
+        private int blocks = 0;
+        private long events = 0;
+
+        private final FileChannel channel;
+        private long end;
+        private final java.util.concurrent.ScheduledThreadPoolExecutor writer = newExecutor("event-log");
+
+        static Path defaultFile() {
+            String p = System.getProperty("neonclock.events");
+            return p != null ? Paths.get(p) : Paths.get(System.getProperty("user.home"), ".neonclock", "events.log");
+        }
+
+        // ringCapacity: events buffered between drains (rounded up to a power of two)
+        static EventLog open(Path file, int ringCapacity) throws IOException {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            return new EventLog(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                    ringCapacity);
+        }
+
+        private EventLog(FileChannel channel, int ringCapacity) throws IOException {
+            this.channel = channel;
+            Instant now = Instant.now();
+            epochOrigin = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+            int cap = Integer.highestOneBit(Math.max(16, ringCapacity) - 1) << 1;
+            mask = cap - 1;
+            ringTime = new long[cap];
+            ringValue = new long[cap];
+            ringType = new byte[cap];
+            ringSubject = new String[cap];
+            published = new java.util.concurrent.atomic.AtomicLongArray(cap);
+            recover();
+            writer.scheduleWithFixedDelay(this::drain, DRAIN_MILLIS, DRAIN_MILLIS, java.util.concurrent.TimeUnit.MILLISECONDS);
+        }
+
+        long now() { return epochOrigin + (System.nanoTime() - nanoOrigin); }
+
+        // never blocks: false (and counted as dropped) if the ring is full
+        boolean record(Type type, String subject, long value) {
+            return offer(now(), type, subject, value);
+        }
+
+        // for batches: waits for the writer to make room instead of dropping (not for the EDT);
+        // false (and counted as dropped) if the log is closed while waiting
+        boolean recordAll(Type type, String subject, long value) {
+            return recordAll(now(), type, subject, value);
+        }
+
+        // as above, stamped epochNanos (imported or replayed history)
+        boolean recordAll(long epochNanos, Type type, String subject, long value) {
+            while (!tryOffer(epochNanos, type, subject, value)) {
+                if (writer.isShutdown()) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                requestDrain();
+                java.util.concurrent.locks.LockSupport.parkNanos(100_000);
+            }
+            return true;
+        }
+
+        long dropped() { return dropped.get(); }
+        synchronized long size() { return events; }
+        synchronized int blockCount() { return blocks; }
+        synchronized long bytes() { return end; }
+
+        // everything recorded so far, written out and visible to queries
+        void flush() {
+            try {
+                writer.submit(() -> {
+                    drain();
+                    writeBlock();
+                }).get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (java.util.concurrent.ExecutionException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+
+        // visits the written events with fromNanos <= time <= toNanos, in time order within each
+        // block and blocks in file order; returns how many were visited
+        long query(long fromNanos, long toNanos, Visitor v) throws IOException {
+            int first, last;
+            long[] at;
+            int[] n;
+            synchronized (this) {
+                first = search(maxUpTo, blocks, fromNanos, false);
+                last = search(minFrom, blocks, toNanos, true) - 1;
+                if (first > last) return 0;
+                at = Arrays.copyOfRange(offsets, first, last + 1);
+                n = Arrays.copyOfRange(counts, first, last + 1);
+            }
+            long visited = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            Cursor b = new Cursor();
+            long[] time = new long[BLOCK_EVENTS];
+            for (int k = 0; k < at.length; k++) {
+                readFully(header.clear(), at[k]);
+                int len = header.getInt(8), count = n[k];
+                if (b.bytes.length < len) b.bytes = new byte[len];
+                readFully(ByteBuffer.wrap(b.bytes, 0, len), at[k] + HEADER);
+                b.pos = 0;
+                String[] dict = new String[(int) b.varLong()];
+                for (int i = 0; i < dict.length; i++) {
+                    int l = (int) b.varLong();
+                    dict[i] = new String(b.bytes, b.pos, l, java.nio.charset.StandardCharsets.UTF_8);
+                    b.pos += l;
+                }
+                // rows are in time order: only [lo, hi) is in range, and nothing past hi is decoded
+                long t = header.getLong(16);
+                int lo = count, hi = 0;
+                for (int i = 0; i < count; i++) {
+                    time[i] = t += b.varLong();
+                    if (t >= fromNanos && t <= toNanos) {
+                        lo = Math.min(lo, i);
+                        hi = i + 1;
+                    }
+                }
+                int types = b.pos;
+                b.pos += count;
+                int[] subject = new int[hi];
+                for (int i = 0; i < count; i++) {
+                    if (i < hi) subject[i] = (int) b.varLong();
+                    else b.skipVarLong();
+                }
+                for (int i = 0; i < hi; i++) {
+                    long value = unzigzag(b.varLong());
+                    if (i < lo) continue;
+                    v.event(time[i], TYPES[b.bytes[types + i]], dict[subject[i]], value);
+                    visited++;
+                }
+            }
+            return visited;
+        }
+
+        @Override
+        public void close() {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                drain();
+                writeBlock();
+                try {
+                    channel.force(false);
+                    channel.close();
+                } catch (IOException ignored) {}
+            }
+        }
+
+        // ---- engine events ----
+
+        @Override
+        public void stopwatchChanged(Stopwatch sw) {
+            long elapsed = sw.elapsedNanos();
+            record(sw.isRunning() ? Type.STOPWATCH_START : elapsed == 0 ? Type.STOPWATCH_RESET : Type.STOPWATCH_STOP, sw.name, elapsed);
+        }
+
+        @Override
+        public void lapRecorded(Stopwatch sw, int lap) {
+            record(Type.STOPWATCH_LAP, sw.name, sw.laps().elapsed(lap));
+        }
+
+        @Override
+        public void countdownChanged(CountdownEngine.Countdown c) {
+            long remaining = c.remainingNanos(), duration = c.durationNanos();
+            record(c.isRunning() ? Type.TIMER_START : remaining == duration ? Type.TIMER_SET : Type.TIMER_PAUSE, c.name, remaining);
+        }
+
+        @Override
+        public void countdownExpired(CountdownEngine.Countdown c) {
+            record(Type.TIMER_EXPIRE, c.name, c.durationNanos());
+        }
+
+        // a batch (an import, many alarms due at once) waits for room rather than dropping;
+        // a single alarm is recorded like any other event
+        @Override
+        public void alarmsAdded(List<AlarmItem> added) {
+            for (AlarmItem ai : added) record(added.size() > 1, Type.ALARM_ADD, ai.id.toString(), ai.time.toSecondOfDay());
+        }
+
+        @Override
+        public void alarmRemoved(AlarmItem ai, int index) {
+            record(Type.ALARM_REMOVE, ai.id.toString(), ai.time.toSecondOfDay());
+        }
+
+        @Override
+        public void alarmsChanged(List<AlarmItem> changed) {
+            for (AlarmItem ai : changed)
+                record(changed.size() > 1, Type.ALARM_CHANGE, ai.id.toString(), (ai.enabled ? ALARM_ENABLED : 0) | (ai.triggeredToday ? ALARM_TRIGGERED : 0));
+        }
+
+        @Override
+        public void alarmsFired(List<AlarmItem> fired) {
+            for (AlarmItem ai : fired) record(fired.size() > 1, Type.ALARM_FIRE, ai.id.toString(), ai.time.toSecondOfDay());
+        }
+
+        private void record(boolean batch, Type type, String subject, long value) {
+            if (batch) recordAll(type, subject, value);
+            else record(type, subject, value);
+        }
+
+        // ---- ring ----
+
+        private boolean offer(long time, Type type, String subject, long value) {
+            if (tryOffer(time, type, subject, value)) return true;
+            dropped.incrementAndGet();
+            requestDrain();
+            return false;
+        }
+
+        private boolean tryOffer(long time, Type type, String subject, long value) {
+            long seq;
+            do {
+                seq = head.get();
+                if (seq - tail > mask) return false;
+            } while (!head.compareAndSet(seq, seq + 1));
+            int i = (int) seq & mask;
+            ringTime[i] = time;
+            ringType[i] = (byte) type.ordinal();
+            ringSubject[i] = subject;
+            ringValue[i] = value;
+            published.set(i, seq + 1); // volatile store: the slot's fields are visible to the writer after this
+            return true;
+        }
+
+        private void requestDrain() {
+            if (drainRequested.compareAndSet(false, true) && !writer.isShutdown()) {
+                try {
+                    writer.execute(this::drain);
+                } catch (java.util.concurrent.RejectedExecutionException ignored) {}
+            }
+        }
+
+        // writer thread: move every published event into blocks; a partially filled block goes out
+        // once its oldest event is FLUSH_MILLIS old
+        private void drain() {
+            drainRequested.set(false);
+            long t = tail;
+            int i;
+            while (published.get(i = (int) t & mask) == t + 1) {
+                if (blockSize == 0) blockStarted = System.nanoTime();
+                blockTime[blockSize] = ringTime[i];
+                blockType[blockSize] = ringType[i];
+                blockSubject[blockSize] = ringSubject[i];
+                blockValue[blockSize] = ringValue[i];
+                ringSubject[i] = null;
+                t++;
+                if (++blockSize == BLOCK_EVENTS) {
+                    tail = t;
+                    writeBlock();
+                }
+            }
+            tail = t;
+            if (blockSize > 0 && System.nanoTime() - blockStarted >= FLUSH_MILLIS * 1_000_000L) writeBlock();
+        }
+
+        // ---- blocks ----
+
+        private void writeBlock() {
+            int n = blockSize;
+            if (n == 0 || !channel.isOpen()) return;
+            // events arrive nearly in time order (threads race only between stamping and claiming
+            // a slot), so an insertion sort of the indexes is linear in practice
+            for (int i = 0; i < n; i++) {
+                int j = i;
+                while (j > 0 && blockTime[order[j - 1]] > blockTime[i]) {
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                order[j] = i;
+            }
+            dictionary.clear();
+            List<byte[]> names = new ArrayList<>();
+            int dictBytes = 0;
+            for (int i = 0; i < n; i++) {
+                String s = blockSubject[i];
+                Integer k = dictionary.putIfAbsent(s, names.size());
+                if (k == null) {
+                    subjectIndex[i] = names.size();
+                    byte[] utf = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                    names.add(utf);
+                    dictBytes += utf.length + 5;
+                } else {
+                    subjectIndex[i] = k;
+                }
+            }
+            int worst = HEADER + 5 + dictBytes + n * (10 + 1 + 5 + 10);
+            if (out.length < worst) out = new byte[worst];
+            outPos = HEADER;
+            putVarLong(names.size());
+            for (byte[] s : names) {
+                putVarLong(s.length);
+                System.arraycopy(s, 0, out, outPos, s.length);
+                outPos += s.length;
+            }
+            long min = blockTime[order[0]], max = blockTime[order[n - 1]], prev = min;
+            for (int i = 0; i < n; i++) {
+                long t = blockTime[order[i]];
+                putVarLong(t - prev);
+                prev = t;
+            }
+            for (int i = 0; i < n; i++) out[outPos++] = blockType[order[i]];
+            for (int i = 0; i < n; i++) putVarLong(subjectIndex[order[i]]);
+            for (int i = 0; i < n; i++) putVarLong(zigzag(blockValue[order[i]]));
+            int len = outPos - HEADER;
+            ByteBuffer b = ByteBuffer.wrap(out, 0, outPos);
+            b.putInt(0, MAGIC).putInt(4, n).putInt(8, len).putLong(16, min).putLong(24, max);
+            b.putInt(12, checksum(out, out, HEADER, len, true));
+            long at = end;
+            try {
+                while (b.hasRemaining()) channel.write(b, at + b.position());
+            } catch (IOException ex) {
+                System.err.println("event log: write failed, " + n + " events lost: " + ex);
+                blockSize = 0;
+                return;
+            }
+            Arrays.fill(blockSubject, 0, n, null);
+            blockSize = 0;
+            index(at, n, min, max, at + HEADER + len);
+        }
+
+        private synchronized void index(long at, int n, long min, long max, long newEnd) {
+            if (blocks == offsets.length) {
+                int cap = blocks * 2;
+                offsets = Arrays.copyOf(offsets, cap);
+                counts = Arrays.copyOf(counts, cap);
+                maxUpTo = Arrays.copyOf(maxUpTo, cap);
+                minFrom = Arrays.copyOf(minFrom, cap);
+            }
+            offsets[blocks] = at;
+            counts[blocks] = n;
+            maxUpTo[blocks] = blocks == 0 ? max : Math.max(max, maxUpTo[blocks - 1]);
+            minFrom[blocks] = min;
+            // a block that starts before earlier ones ended lowers their "min from here on"
+            for (int k = blocks - 1; k >= 0 && minFrom[k] > min; k--) minFrom[k] = min;
+            blocks++;
+            events += n;
+            end = newEnd;
+        }
+
+        // the first k < n with a[k] >= key (a[k] > key if strict) in the non-decreasing a; n if none
+        private static int search(long[] a, int n, long key, boolean strict) {
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] < key || strict && a[mid] == key) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private void recover() throws IOException {
+            long size = channel.size(), at = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            byte[] b = new byte[0];
+            while (at + HEADER <= size) {
+                readFully(header.clear(), at);
+                int magic = header.getInt(0), n = header.getInt(4), len = header.getInt(8);
+                if (magic != MAGIC && magic != BODY_CRC_MAGIC || n <= 0 || n > BLOCK_EVENTS || len < 0 || len > MAX_BODY
+                        || at + HEADER + len > size) break;
+                if (b.length < len) b = new byte[len];
+                readFully(ByteBuffer.wrap(b, 0, len), at + HEADER);
+                if (checksum(header.array(), b, 0, len, magic == MAGIC) != header.getInt(12)) break;
+                index(at, n, header.getLong(16), header.getLong(24), at + HEADER + len);
+                at += HEADER + len;
+            }
+            // a torn last block: cut it off so new blocks follow the last good one
+            if (at < size) channel.truncate(at);
+            end = at;
+        }
+
+        // CRC32C of a block's body, after its count, length and times when withHeader
+        private int checksum(byte[] header, byte[] body, int bodyAt, int len, boolean withHeader) {
+            crc.reset();
+            if (withHeader) {
+                crc.update(header, 4, 8);
+                crc.update(header, 16, 16);
+            }
+            crc.update(body, bodyAt, len);
+            return (int) crc.getValue();
+        }
+
+        private void readFully(ByteBuffer b, long at) throws IOException {
+            while (b.hasRemaining()) {
+                if (channel.read(b, at + b.position()) < 0) throw new java.io.EOFException("event log truncated");
+            }
+        }
+
+        // unsigned LEB128 into the block being written
+        private void putVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                out[outPos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out[outPos++] = (byte) v;
+        }
+
+        // reads a block body back
+        private static final class Cursor {
+            byte[] bytes = new byte[0];
+            int pos;
+
+            long varLong() {
+                long v = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte x = bytes[pos++];
+                    v |= (long) (x & 0x7F) << shift;
+                    if (x >= 0) return v;
+                }
+            }
+
+            void skipVarLong() {
+                while (bytes[pos++] < 0) {}
+            }
+        }
+
+        private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+        private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+    }
+
+    // ------------------ Time Formatting ------------------
+    // Allocation-free formatting for the per-tick displays. Digits are written straight into
+    // preallocated char buffers; TextBuffer only materialises a String when the text changed.
+    static final class TimeFormat {
+        private TimeFormat() {}
+
+        // "hh:mm:ss AM" (11 chars), colon between hour and minute blanked when colonOn is false
+        static int clock12(char[] b, int secondOfDay, boolean colonOn) {
+            int h24 = secondOfDay / 3600;
+            int h12 = h24 % 12 == 0 ? 12 : h24 % 12;
+            int i = pad(b, 0, h12, 2);
+            b[i++] = colonOn ? ':' : ' ';
+            i = pad(b, i, (secondOfDay / 60) % 60, 2);
+            b[i++] = ':';
+            i = pad(b, i, secondOfDay % 60, 2);
+            b[i++] = ' ';
+            b[i++] = h24 < 12 ? 'A' : 'P';
+            b[i++] = 'M';
+            return i;
+        }
+
+        // "HH:mm:ss" (8 chars)
+        static int clock24(char[] b, int secondOfDay) {
+            int i = pad(b, 0, secondOfDay / 3600, 2);
+            b[i++] = ':';
+            i = pad(b, i, (secondOfDay / 60) % 60, 2);
+            b[i++] = ':';
+            return pad(b, i, secondOfDay % 60, 2);
+        }
+
+        // stopwatch: "mm:ss.cc", or "hh:mm:ss.cc" once an hour has passed
+        static int elapsed(char[] b, int at, long nano) {
+            long ms = nano / 1_000_000;
+            long hours = ms / (1000*60*60);
+            int i = at;
+            if (hours > 0) {
+                i = pad(b, i, hours, 2);
+                b[i++] = ':';
+            }
+            i = pad(b, i, (ms / (1000*60)) % 60, 2);
+            return secondsAndCentis(b, i, ms);
+        }
+
+        // countdown: "mm:ss.cc" with unbounded minutes
+        static int countdown(char[] b, int at, long ms) {
+            int i = pad(b, at, ms / (1000*60), 2);
+            return secondsAndCentis(b, i, ms);
+        }
+
+        // "Lap 01  mm:ss.cc"
+        static int lap(char[] b, int lapNo, long nano) {
+            b[0] = 'L'; b[1] = 'a'; b[2] = 'p'; b[3] = ' ';
+            int i = pad(b, 4, lapNo, 2);
+            b[i++] = ' ';
+            b[i++] = ' ';
+            return elapsed(b, i, nano);
+        }
+
+        private static int secondsAndCentis(char[] b, int i, long ms) {
+            b[i++] = ':';
+            i = pad(b, i, (ms / 1000) % 60, 2);
+            b[i++] = '.';
+            return pad(b, i, (ms / 10) % 100, 2);
+        }
+
+        // zero-padded decimal (like %0Nd for non-negative values); returns the index after the last digit
+        static int pad(char[] b, int at, long v, int minDigits) {
+            int digits = 1;
+            for (long t = v; t >= 10; t /= 10) digits++;
+            int n = Math.max(digits, minDigits);
+            for (int k = at + n - 1; k >= at; k--) {
+                b[k] = (char) ('0' + (v % 10));
+                v /= 10;
+            }
+            return at + n;
+        }
+    }
+
+    // reusable char buffer; commit() hands back the previous String when nothing changed
+    static final class TextBuffer {
+        final char[] chars;
+        private String text = "";
+
+        TextBuffer(int capacity) { chars = new char[capacity]; }
+
+        String commit(int length) {
+            if (length == text.length()) {
+                int i = 0;
+                while (i < length && chars[i] == text.charAt(i)) i++;
+                if (i == length) return text;
+            }
+            text = new String(chars, 0, length);
+            return text;
+        }
+    }
+
+    // Wall-clock reader for one zone. The UTC offset and the instants it stops being valid (next
+    // midnight or DST transition) are looked up in the zone rules once; until then each lookup is
+    // plain arithmetic on an epoch-millis instant. The day/date strings are formatted on first use
+    // within that window, so a clock that never shows them never formats them.
+    static final class LocalClock {
+        private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.ofPattern("EEEE");
+        private static final DateTimeFormatter LONG_DATE_FMT = DateTimeFormatter.ofPattern("MMMM dd, yyyy");
+        private static final DateTimeFormatter HEADER_DATE_FMT = DateTimeFormatter.ofPattern("EEEE, MMMM dd, yyyy");
+        private static final DateTimeFormatter SHORT_DATE_FMT = DateTimeFormatter.ofPattern("EEE d MMM");
+
+        private final ZoneId zone;
+        private long validUntil = Long.MIN_VALUE;
+        private long validFrom = Long.MAX_VALUE;
+        private long offsetMillis;
+        private LocalDate day;
+        private ZoneOffset offset;
+        private String dayLine, headerDate, shortDate, offsetLabel;
+
+        LocalClock(ZoneId zone) { this.zone = zone; }
+
+        ZoneId zone() { return zone; }
+
+        long millisOfDay(long epochMillis) {
+            refresh(epochMillis);
+            return Math.floorMod(epochMillis + offsetMillis, 86_400_000L);
+        }
+
+        long offsetMillis(long epochMillis) { refresh(epochMillis); return offsetMillis; }
+
+        // "Monday • October 19, 2026"
+        String dayLine(long epochMillis) {
+            refresh(epochMillis);
+            if (dayLine == null) dayLine = day.format(DAY_FMT) + " • " + day.format(LONG_DATE_FMT);
+            return dayLine;
+        }
+
+        // "Monday, October 19, 2026"
+        String headerDate(long epochMillis) {
+            refresh(epochMillis);
+            if (headerDate == null) headerDate = day.format(HEADER_DATE_FMT);
+            return headerDate;
+        }
+
+        // "Mon 19 Oct"
+        String shortDate(long epochMillis) {
+            refresh(epochMillis);
+            if (shortDate == null) shortDate = day.format(SHORT_DATE_FMT);
+            return shortDate;
+        }
+
+        // "UTC+05:30", "UTC"
+        String offsetLabel(long epochMillis) {
+            refresh(epochMillis);
+            if (offsetLabel == null) offsetLabel = offset.getTotalSeconds() == 0 ? "UTC" : "UTC" + offset.getId();
+            return offsetLabel;
+        }
+
+        private void refresh(long now) {
+            if (now >= validFrom && now < validUntil) return;
+            ZonedDateTime z = Instant.ofEpochMilli(now).atZone(zone);
+            offset = z.getOffset();
+            offsetMillis = offset.getTotalSeconds() * 1000L;
+            day = z.toLocalDate();
+            dayLine = headerDate = shortDate = offsetLabel = null;
+            long midnight = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            java.time.zone.ZoneOffsetTransition t = zone.getRules().nextTransition(z.toInstant());
+            validFrom = day.atStartOfDay(zone).toInstant().toEpochMilli();
+            validUntil = t == null ? midnight : Math.min(midnight, t.toEpochSecond() * 1000L);
+            // a transition earlier today must not stretch validFrom back across it
+            java.time.zone.ZoneOffsetTransition prev = zone.getRules().previousTransition(z.toInstant().plusNanos(1));
+            if (prev != null) validFrom = Math.max(validFrom, prev.toEpochSecond() * 1000L);
+        }
+    }
+
+    // ------------------ World Clock ------------------
+    // A list of cities, each with its own LocalClock. A reader takes one instant per tick and asks
+    // every city for its wall time at that instant, so all cells agree on the second and a city
+    // costs a range check and an add until its next midnight or DST change. Not thread-safe: one
+    // reader thread (the EDT in the app).
+    static final class WorldClock {
+        // a spread of offsets, including the half- and quarter-hour ones
+        static final String[] DEFAULT_ZONES = {
+            "Pacific/Honolulu", "America/Anchorage", "America/Los_Angeles", "America/Vancouver",
+            "America/Phoenix", "America/Denver", "America/Mexico_City", "America/Chicago",
+            "America/Toronto", "America/New_York", "America/Bogota", "America/Lima",
+            "America/Caracas", "America/Halifax", "America/Santiago", "America/St_Johns",
+            "America/Sao_Paulo", "America/Argentina/Buenos_Aires", "Atlantic/Azores", "Atlantic/Reykjavik",
+            "Europe/London", "Europe/Dublin", "Europe/Lisbon", "Africa/Lagos",
+            "Europe/Paris", "Europe/Berlin", "Europe/Madrid", "Europe/Rome",
+            "Europe/Stockholm", "Europe/Warsaw", "Africa/Cairo", "Africa/Johannesburg",
+            "Europe/Athens", "Europe/Helsinki", "Europe/Kiev", "Asia/Jerusalem",
+            "Europe/Istanbul", "Europe/Moscow", "Africa/Nairobi", "Asia/Riyadh",
+            "Asia/Tehran", "Asia/Dubai", "Asia/Kabul", "Asia/Karachi",
+            "Asia/Kolkata", "Asia/Kathmandu", "Asia/Dhaka", "Asia/Yangon",
+            "Asia/Bangkok", "Asia/Jakarta", "Asia/Singapore", "Asia/Hong_Kong",
+            "Asia/Shanghai", "Australia/Perth", "Australia/Eucla", "Asia/Seoul",
+            "Asia/Tokyo", "Australia/Adelaide", "Australia/Darwin", "Australia/Brisbane",
+            "Australia/Sydney", "Pacific/Noumea", "Pacific/Auckland", "Pacific/Chatham",
+            "Pacific/Tongatapu", "Pacific/Kiritimati",
+        };
+
+        private final String[] cities;
+        private final LocalClock[] clocks;
+
+        WorldClock(List<ZoneId> zones) {
+            cities = new String[zones.size()];
+            clocks = new LocalClock[zones.size()];
+            for (int i = 0; i < cities.length; i++) {
+                cities[i] = cityName(zones.get(i));
+                clocks[i] = new LocalClock(zones.get(i));
+            }
+        }
+
+        // -Dneonclock.zones=Europe/Paris,Asia/Tokyo,... overrides the default list; "all" lists every zone
+        static List<ZoneId> configuredZones() {
+            String p = System.getProperty("neonclock.zones");
+            List<ZoneId> zones = new ArrayList<>();
+            if ("all".equals(p)) {
+                for (String id : new TreeSet<>(ZoneId.getAvailableZoneIds())) zones.add(ZoneId.of(id));
+            } else {
+                for (String id : p != null ? p.split(",") : DEFAULT_ZONES) {
+                    try {
+                        zones.add(ZoneId.of(id.trim()));
+                    } catch (DateTimeException ex) {
+                        System.err.println("world clock: skipping unknown zone " + id);
+                    }
+                }
+            }
+            return zones;
+        }
+
+        // "America/Argentina/Buenos_Aires" -> "Buenos Aires"
+        static String cityName(ZoneId zone) {
+            String id = zone.getId();
+            return id.substring(id.lastIndexOf('/') + 1).replace('_', ' ');
+        }
+
+        int size() { return cities.length; }
+        String city(int i) { return cities[i]; }
+        LocalClock clock(int i) { return clocks[i]; }
+
+        int secondOfDay(int i, long epochMillis) {
+            return (int) (clocks[i].millisOfDay(epochMillis) / 1000);
+        }
+    }
+
+    // ------------------ Latency Recorder ------------------
+    // Keeps the last N latency samples (nanoseconds) plus running count/max; percentiles are
+    // computed on demand from a sorted copy, so recording stays cheap.
+    static final class LatencyRecorder {
+        private final long[] ring;
+        private int next = 0;
+        private long count = 0, max = 0, sum = 0;
+
+        LatencyRecorder(int capacity) { ring = new long[capacity]; }
+
+        synchronized void record(long nanos) {
+            ring[next] = nanos;
+            next = (next + 1) % ring.length;
+            count++;
+            sum += nanos;
+            if (nanos > max) max = nanos;
+        }
+
+        synchronized long count() { return count; }
+        synchronized long max() { return max; }
+        synchronized double mean() { return count == 0 ? 0 : (double) sum / count; }
+
+        // copies up to into.length samples of the retained window, in no particular order; returns how many
+        synchronized int samples(long[] into) {
+            int n = (int) Math.min(Math.min(count, ring.length), into.length);
+            System.arraycopy(ring, 0, into, 0, n);
+            return n;
+        }
+
+        // p in [0, 1] over the retained window
+        synchronized long percentile(double p) {
+            int n = (int) Math.min(count, ring.length);
+            if (n == 0) return 0;
+            long[] copy = Arrays.copyOf(ring, n);
+            Arrays.sort(copy);
+            return copy[Math.min(n - 1, Math.max(0, (int) Math.ceil(p * n) - 1))];
+        }
+
+        String describe() {
+            return String.format("n=%d p50=%.2fms p99=%.2fms max=%.2fms",
+                    count(), percentile(0.5) / 1e6, percentile(0.99) / 1e6, max() / 1e6);
+        }
+    }
+}
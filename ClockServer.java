@@ -0,0 +1,877 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+import java.util.List;
+
+// Embedded HTTP + WebSocket API over a ClockEngine, for other screens and scripts on the same
+// machine. One NIO selector thread serves every connection: requests are parsed from
+// per-connection buffers and answered inline (engine calls are cheap and thread-safe), so there is
+// no thread per client and nothing blocks.
+//
+//   GET    /time                                   wall clock of the engine's zone
+//   GET    /stopwatches, /stopwatches/{name}       state and laps
+//   POST   /stopwatches/{name}/start|stop|reset|lap
+//   GET    /timers, /timers/{name}                 remaining time
+//   POST   /timers/{name}/set {"millis":N}, /timers/{name}/start|pause
+//   GET    /alarms, /alarms/{id}
+//   POST   /alarms {"time":"07:30","enabled":true,"repeat":"weekdays"}   repeat is optional, see ClockEngine.Recurrence
+//   PUT    /alarms/{id} {"enabled":false}
+//   DELETE /alarms/{id}
+//   GET    /ws                                     WebSocket: a full snapshot, then pushed deltas
+//   GET    /metrics                                plain-text metrics, when a source is set (the UI's telemetry)
+//
+// Pushes are not per tick. Engine events only mark what changed; at most once every BATCH_MS the
+// selector thread encodes one frame holding just the changed stopwatches (with only their new
+// laps), timers and alarms, and queues the same bytes to every subscriber. Running stopwatches and
+// timers are sent as state plus server time ("t"), and clients extrapolate between frames.
+//
+// Requests carrying an Origin header other than localhost are refused, so a web page cannot drive
+// the API through the user's browser.
+public final class ClockServer implements java.io.Closeable {
+    static final int BATCH_MS = 50;
+    private static final long BATCH_NANOS = BATCH_MS * 1_000_000L;
+    private static final int MAX_REQUEST = 64 * 1024;
+    // bytes queued to one client before it is dropped as too slow
+    private static final int MAX_PENDING = 1 << 20;
+    private static final String WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ClockEngine engine;
+    private final ClockEngine.LocalClock clock;   // the engine's is owned by the UI thread
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private final ClockEngine.Listener listener;
+    private volatile boolean closed = false;
+    private volatile java.util.function.Supplier<String> metrics;
+
+    // what changed since the last push; written by engine events on any thread
+    private final java.util.concurrent.atomic.AtomicBoolean dirty = new java.util.concurrent.atomic.AtomicBoolean();
+    private final Set<String> dirtyStopwatches = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyTimers = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    private final Map<UUID, ClockEngine.AlarmItem> dirtyAlarms = new java.util.concurrent.ConcurrentHashMap<>();
+    private final Queue<UUID> removedAlarms = new java.util.concurrent.ConcurrentLinkedQueue<>();
+    private final Queue<UUID> firedAlarms = new java.util.concurrent.ConcurrentLinkedQueue<>();
+
+    // selector thread only
+    private final List<Conn> subscribers = new ArrayList<>();
+    // per stopwatch, {resets, laps} as of the last push
+    private final Map<String, int[]> lapsPushed = new HashMap<>();
+    private long lastPush = System.nanoTime() - BATCH_NANOS;
+    private long seq = 0;
+    private volatile long frames = 0, frameBytes = 0, dropped = 0;
+
+    static ClockServer open(ClockEngine engine, InetSocketAddress address) throws IOException {
+        return new ClockServer(engine, address);
+    }
+
+    private ClockServer(ClockEngine engine, InetSocketAddress address) throws IOException {
+        this.engine = engine;
+        clock = new ClockEngine.LocalClock(engine.clock().zone());
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        listener = new ClockEngine.Listener() {
+            @Override public void stopwatchChanged(ClockEngine.Stopwatch sw) { mark(dirtyStopwatches, sw.name); }
+            @Override public void lapRecorded(ClockEngine.Stopwatch sw, int lap) { mark(dirtyStopwatches, sw.name); }
+            @Override public void countdownChanged(ClockEngine.CountdownEngine.Countdown c) { mark(dirtyTimers, c.name); }
+            @Override public void countdownExpired(ClockEngine.CountdownEngine.Countdown c) { mark(dirtyTimers, c.name); }
+            @Override public void alarmsAdded(List<ClockEngine.AlarmItem> added) { alarmsChanged(added); }
+            @Override
+            public void alarmRemoved(ClockEngine.AlarmItem ai, int index) {
+                dirtyAlarms.remove(ai.id);
+                removedAlarms.add(ai.id);
+                wake();
+            }
+            @Override
+            public void alarmsChanged(List<ClockEngine.AlarmItem> changed) {
+                for (ClockEngine.AlarmItem ai : changed) dirtyAlarms.put(ai.id, ai);
+                wake();
+            }
+            @Override
+            public void alarmsFired(List<ClockEngine.AlarmItem> fired) {
+                for (ClockEngine.AlarmItem ai : fired) firedAlarms.add(ai.id);
+                wake();
+            }
+        };
+        engine.addListener(listener);
+        thread = new Thread(this::loop, "clock-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    int port() { return server.socket().getLocalPort(); }
+
+    // serves GET /metrics from source (Prometheus text format); null turns the endpoint off
+    void metrics(java.util.function.Supplier<String> source) { metrics = source; }
+
+    String describe() {
+        return String.format("subscribers=%d frames=%d bytes=%d dropped=%d",
+                subscriberCount(), frames, frameBytes, dropped);
+    }
+
+    // read on the selector thread, approximately elsewhere
+    int subscriberCount() { return subscribers.size(); }
+
+    @Override
+    public void close() {
+        closed = true;
+        engine.removeListener(listener);
+        selector.wakeup();
+    }
+
+    // headless: java -cp out ClockServer [port]
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8420;
+        ZoneId zone = ZoneId.systemDefault();
+        ClockEngine engine = new ClockEngine(zone, ClockEngine.openDefaultJournal(zone));
+        ClockServer s = open(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        System.out.println("listening on http://127.0.0.1:" + s.port());
+        s.thread.join();
+    }
+
+    // ------------------ Event Loop ------------------
+
+    private void mark(Set<String> set, String name) {
+        set.add(name);
+        wake();
+    }
+
+    private void wake() {
+        if (dirty.compareAndSet(false, true)) selector.wakeup();
+    }
+
+    private void loop() {
+        try {
+            while (!closed) {
+                long timeout = 0;
+                if (dirty.get()) {
+                    long wait = lastPush + BATCH_NANOS - System.nanoTime();
+                    if (wait <= 0) {
+                        push();
+                        continue;
+                    }
+                    timeout = Math.max(1, wait / 1_000_000);
+                }
+                selector.select(timeout);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Conn c = (Conn) key.attachment();
+                    try {
+                        if (key.isWritable()) flush(c);
+                        if (key.isValid() && key.isReadable()) read(c);
+                    } catch (IOException | RuntimeException ex) {
+                        close(c);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("clock server stopped: " + ex);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try { key.channel().close(); } catch (IOException ignored) {}
+            }
+            try { selector.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+            Conn c = new Conn(ch);
+            c.key = ch.register(selector, SelectionKey.OP_READ, c);
+        }
+    }
+
+    private void read(Conn c) throws IOException {
+        if (!c.in.hasRemaining()) {
+            if (c.in.capacity() >= MAX_REQUEST) {
+                respond(c, 413, error("request too large"), false);
+                return;
+            }
+            ByteBuffer bigger = ByteBuffer.allocate(c.in.capacity() * 2);
+            c.in.flip();
+            c.in = bigger.put(c.in);
+        }
+        if (c.channel.read(c.in) < 0) {
+            close(c);
+            return;
+        }
+        if (c.websocket) {
+            readFrames(c);
+        } else {
+            while (c.key.isValid() && !c.websocket && nextRequest(c)) { }
+            if (c.websocket) readFrames(c);
+        }
+    }
+
+    // queue bytes for a client, writing straight away when nothing is queued ahead of them
+    private void send(Conn c, ByteBuffer buf) throws IOException {
+        if (!c.key.isValid()) return;
+        if (c.out.isEmpty()) {
+            c.channel.write(buf);
+            if (!buf.hasRemaining()) {
+                if (c.closeAfterWrite) close(c);
+                return;
+            }
+        }
+        if (c.pending + buf.remaining() > MAX_PENDING) {
+            dropped++;
+            close(c);
+            return;
+        }
+        c.out.add(buf);
+        c.pending += buf.remaining();
+        c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void flush(Conn c) throws IOException {
+        while (!c.out.isEmpty()) {
+            ByteBuffer head = c.out.peek();
+            c.pending -= c.channel.write(head);
+            if (head.hasRemaining()) return;
+            c.out.poll();
+        }
+        if (c.closeAfterWrite) close(c);
+        else c.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void close(Conn c) {
+        if (c.websocket) subscribers.remove(c);
+        c.key.cancel();
+        try { c.channel.close(); } catch (IOException ignored) {}
+    }
+
+    private static final class Conn {
+        final SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        long pending = 0;
+        boolean websocket = false, closeAfterWrite = false;
+
+        Conn(SocketChannel channel) { this.channel = channel; }
+    }
+
+    // ------------------ HTTP ------------------
+
+    // handles one complete request from the buffer; false if more bytes are needed
+    private boolean nextRequest(Conn c) throws IOException {
+        byte[] a = c.in.array();
+        int len = c.in.position(), headEnd = -1;
+        for (int i = 3; i < len; i++) {
+            if (a[i] == '\n' && a[i - 1] == '\r' && a[i - 2] == '\n' && a[i - 3] == '\r') {
+                headEnd = i + 1;
+                break;
+            }
+        }
+        if (headEnd < 0) return false;
+        String[] lines = new String(a, 0, headEnd - 4, StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] start = lines[0].split(" ");
+        if (start.length != 3) {
+            respond(c, 400, error("bad request line"), false);
+            return false;
+        }
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT), lines[i].substring(colon + 1).trim());
+        }
+        int bodyLen;
+        try {
+            bodyLen = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+        } catch (NumberFormatException ex) {
+            bodyLen = -1;
+        }
+        if (bodyLen < 0 || headEnd + bodyLen > MAX_REQUEST) {
+            respond(c, 413, error("bad or too large body"), false);
+            return false;
+        }
+        if (len < headEnd + bodyLen) return false;
+        String body = new String(a, headEnd, bodyLen, StandardCharsets.UTF_8);
+        // drop the request from the buffer, keeping any pipelined bytes after it
+        System.arraycopy(a, headEnd + bodyLen, a, 0, len - headEnd - bodyLen);
+        c.in.position(len - headEnd - bodyLen);
+
+        boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection")) && start[2].equals("HTTP/1.1");
+        String origin = headers.get("origin");
+        if (origin != null && !isLocalOrigin(origin)) {
+            respond(c, 403, error("cross-origin requests are not allowed"), false);
+            return false;
+        }
+        String path = start[1];
+        int q = path.indexOf('?');
+        if (q >= 0) path = path.substring(0, q);
+        if (path.equals("/ws") && "websocket".equalsIgnoreCase(headers.get("upgrade"))) {
+            upgrade(c, headers.get("sec-websocket-key"));
+            return false;
+        }
+        Response r;
+        try {
+            r = route(start[0], segments(path), body);
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            r = new Response(400, error(ex.getMessage()));
+        }
+        respond(c, r.status, r.type, r.json, keepAlive);
+        return keepAlive;
+    }
+
+    private static boolean isLocalOrigin(String origin) {
+        return origin.matches("https?://(localhost|127\\.0\\.0\\.1|\\[::1\\])(:\\d+)?");
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segs = new ArrayList<>();
+        for (String s : path.split("/")) if (!s.isEmpty()) segs.add(URLDecoder.decode(s, StandardCharsets.UTF_8));
+        return segs;
+    }
+
+    private static final class Response {
+        final int status;
+        final String type;
+        final String json;
+        Response(int status, String json) { this(status, "application/json", json); }
+        Response(int status, String type, String body) { this.status = status; this.type = type; this.json = body; }
+    }
+
+    private Response route(String method, List<String> p, String body) {
+        String root = p.isEmpty() ? "" : p.get(0);
+        switch (root) {
+            case "time":
+                if (p.size() == 1 && method.equals("GET")) return ok(timeJson(new StringBuilder()));
+                break;
+            case "stopwatches":
+                return stopwatchRoute(method, p);
+            case "timers":
+                return timerRoute(method, p, body);
+            case "alarms":
+                return alarmRoute(method, p, body);
+            case "metrics":
+                java.util.function.Supplier<String> source = metrics;
+                if (source == null) return notFound();
+                if (p.size() == 1 && method.equals("GET")) return new Response(200, "text/plain; version=0.0.4; charset=utf-8", source.get());
+                break;
+            default:
+        }
+        return notFound();
+    }
+
+    private Response stopwatchRoute(String method, List<String> p) {
+        StringBuilder b = new StringBuilder();
+        if (p.size() == 1 && method.equals("GET")) {
+            b.append('{');
+            for (String name : engine.stopwatchNames()) {
+                if (b.length() > 1) b.append(',');
+                quote(b, name).append(':');
+                stopwatchJson(b, engine.findStopwatch(name), 0);
+            }
+            return ok(b.append('}'));
+        }
+        if (p.size() == 2 && method.equals("GET")) {
+            ClockEngine.Stopwatch sw = engine.findStopwatch(p.get(1));
+            if (sw == null) return notFound();
+            stopwatchJson(b, sw, 0);
+            return ok(b);
+        }
+        if (p.size() == 3 && method.equals("POST")) {
+            ClockEngine.Stopwatch sw = engine.stopwatch(p.get(1));
+            switch (p.get(2)) {
+                case "start": sw.start(); break;
+                case "stop":  sw.stop(); break;
+                case "reset": sw.reset(); break;
+                case "lap":   sw.lap(); break;
+                default: return notFound();
+            }
+            stopwatchJson(b, sw, 0);
+            return ok(b);
+        }
+        return p.size() <= 3 ? methodNotAllowed() : notFound();
+    }
+
+    private Response timerRoute(String method, List<String> p, String body) {
+        StringBuilder b = new StringBuilder();
+        ClockEngine.CountdownEngine countdowns = engine.countdowns();
+        if (p.size() == 1 && method.equals("GET")) {
+            b.append('{');
+            for (String name : countdowns.names()) {
+                ClockEngine.CountdownEngine.Countdown c = countdowns.get(name);
+                if (c == null) continue;
+                if (b.length() > 1) b.append(',');
+                quote(b, name).append(':');
+                timerJson(b, c);
+            }
+            return ok(b.append('}'));
+        }
+        if (p.size() == 2 && method.equals("GET")) {
+            ClockEngine.CountdownEngine.Countdown c = countdowns.get(p.get(1));
+            if (c == null) return notFound();
+            return ok(timerJson(b, c));
+        }
+        if (p.size() == 3 && method.equals("POST")) {
+            ClockEngine.CountdownEngine.Countdown c = countdowns.get(p.get(1));
+            switch (p.get(2)) {
+                case "set":
+                    long millis = Long.parseLong(require(parseObject(body), "millis"));
+                    if (millis < 0) throw new IllegalArgumentException("millis must not be negative");
+                    if (c == null) c = engine.countdown(p.get(1));
+                    c.set(millis * 1_000_000L);
+                    break;
+                case "start":
+                    if (c == null) return notFound();
+                    c.start();
+                    break;
+                case "pause":
+                    if (c == null) return notFound();
+                    c.pause();
+                    break;
+                default: return notFound();
+            }
+            return ok(timerJson(b, c));
+        }
+        return p.size() <= 3 ? methodNotAllowed() : notFound();
+    }
+
+    private Response alarmRoute(String method, List<String> p, String body) {
+        StringBuilder b = new StringBuilder();
+        ClockEngine.AlarmService alarms = engine.alarms();
+        if (p.size() == 1) {
+            switch (method) {
+                case "GET":
+                    b.append('[');
+                    synchronized (alarms) {
+                        for (int i = 0; i < alarms.size(); i++) {
+                            if (i > 0) b.append(',');
+                            alarmJson(b, alarms.get(i));
+                        }
+                    }
+                    return ok(b.append(']'));
+                case "POST":
+                    Map<String, String> o = parseObject(body);
+                    LocalTime t = LocalTime.parse(require(o, "time"));
+                    ClockEngine.Recurrence repeat = o.containsKey("repeat")
+                            ? ClockEngine.Recurrence.parse(o.get("repeat"), LocalDate.now(clock.zone())) : ClockEngine.Recurrence.DAILY;
+                    ClockEngine.AlarmItem ai = alarms.add(t, repeat, !"false".equals(o.get("enabled")));
+                    return new Response(201, alarmJson(b, ai).toString());
+                default:
+                    return methodNotAllowed();
+            }
+        }
+        if (p.size() != 2) return notFound();
+        ClockEngine.AlarmItem ai;
+        try {
+            ai = alarms.find(UUID.fromString(p.get(1)));
+        } catch (IllegalArgumentException ex) {
+            return notFound();
+        }
+        if (ai == null) return notFound();
+        switch (method) {
+            case "GET":
+                return ok(alarmJson(b, ai));
+            case "PUT":
+            case "PATCH":
+                String enabled = require(parseObject(body), "enabled");
+                if (!enabled.equals("true") && !enabled.equals("false")) throw new IllegalArgumentException("enabled must be true or false");
+                alarms.setEnabled(ai, enabled.equals("true"));
+                return ok(alarmJson(b, ai));
+            case "DELETE":
+                alarms.remove(ai);
+                return new Response(204, "");
+            default:
+                return methodNotAllowed();
+        }
+    }
+
+    private static Response ok(CharSequence json) { return new Response(200, json.toString()); }
+    private static Response notFound() { return new Response(404, error("not found")); }
+    private static Response methodNotAllowed() { return new Response(405, error("method not allowed")); }
+
+    private static String error(String message) {
+        return quote(new StringBuilder("{\"error\":"), message == null ? "error" : message).append('}').toString();
+    }
+
+    private static String require(Map<String, String> o, String field) {
+        String v = o.get(field);
+        if (v == null) throw new IllegalArgumentException("missing \"" + field + "\"");
+        return v;
+    }
+
+    private void respond(Conn c, int status, String json, boolean keepAlive) throws IOException {
+        respond(c, status, "application/json", json, keepAlive);
+    }
+
+    private void respond(Conn c, int status, String type, String content, boolean keepAlive) throws IOException {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        StringBuilder h = new StringBuilder(128).append("HTTP/1.1 ").append(status).append(' ').append(reason(status)).append("\r\n");
+        if (status != 204) h.append("Content-Type: ").append(type).append("\r\nContent-Length: ").append(body.length).append("\r\n");
+        if (!keepAlive) h.append("Connection: close\r\n");
+        h.append("\r\n");
+        byte[] head = h.toString().getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buf = ByteBuffer.allocate(head.length + body.length).put(head).put(body);
+        buf.flip();
+        if (!keepAlive) c.closeAfterWrite = true;
+        send(c, buf);
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 201: return "Created";
+            case 204: return "No Content";
+            case 400: return "Bad Request";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 413: return "Payload Too Large";
+            default:  return "Status";
+        }
+    }
+
+    // ------------------ WebSocket ------------------
+
+    private void upgrade(Conn c, String key) throws IOException {
+        if (key == null) {
+            respond(c, 400, error("missing Sec-WebSocket-Key"), false);
+            return;
+        }
+        String accept;
+        try {
+            accept = Base64.getEncoder().encodeToString(java.security.MessageDigest.getInstance("SHA-1")
+                    .digest((key + WS_GUID).getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (java.security.NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        send(c, ByteBuffer.wrap(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1)));
+        c.websocket = true;
+        subscribers.add(c);
+        send(c, frame(snapshot()));
+    }
+
+    // client frames: answers ping and close, ignores data (the socket is push-only)
+    private void readFrames(Conn c) throws IOException {
+        ByteBuffer in = c.in;
+        while (c.key.isValid()) {
+            int len = in.position();
+            if (len < 2) return;
+            byte[] a = in.array();
+            int op = a[0] & 0x0F, n = a[1] & 0x7F, at = 2;
+            if ((a[1] & 0x80) == 0) { // clients must mask
+                close(c);
+                return;
+            }
+            if (n == 126) {
+                if (len < 4) return;
+                n = (a[2] & 0xFF) << 8 | (a[3] & 0xFF);
+                at = 4;
+            } else if (n == 127) {
+                close(c); // no client message is that large
+                return;
+            }
+            if (at + 4 + n > in.capacity()) {
+                close(c);
+                return;
+            }
+            if (len < at + 4 + n) return;
+            byte[] payload = new byte[n];
+            for (int i = 0; i < n; i++) payload[i] = (byte) (a[at + 4 + i] ^ a[at + (i & 3)]);
+            System.arraycopy(a, at + 4 + n, a, 0, len - at - 4 - n);
+            in.position(len - at - 4 - n);
+            if (op == 0x8) {
+                c.closeAfterWrite = true;
+                send(c, control(0x8, payload));
+            } else if (op == 0x9) {
+                send(c, control(0xA, payload));
+            }
+        }
+    }
+
+    private static ByteBuffer control(int op, byte[] payload) {
+        int n = Math.min(payload.length, 125);
+        ByteBuffer b = ByteBuffer.allocate(2 + n);
+        b.put((byte) (0x80 | op)).put((byte) n).put(payload, 0, n);
+        return b.flip();
+    }
+
+    // an unmasked text frame
+    private static ByteBuffer frame(String text) {
+        byte[] p = text.getBytes(StandardCharsets.UTF_8);
+        int head = p.length < 126 ? 2 : p.length < 65536 ? 4 : 10;
+        ByteBuffer b = ByteBuffer.allocate(head + p.length);
+        b.put((byte) 0x81);
+        if (p.length < 126) {
+            b.put((byte) p.length);
+        } else if (p.length < 65536) {
+            b.put((byte) 126).putShort((short) p.length);
+        } else {
+            b.put((byte) 127).putLong(p.length);
+        }
+        return b.put(p).flip();
+    }
+
+    // one delta frame with everything that changed since the last, to every subscriber
+    private void push() {
+        dirty.set(false);
+        lastPush = System.nanoTime();
+        StringBuilder b = new StringBuilder(256);
+        b.append("{\"seq\":").append(++seq).append(",\"t\":").append(System.currentTimeMillis());
+        if (!dirtyStopwatches.isEmpty()) {
+            b.append(",\"stopwatches\":{");
+            int n = 0;
+            for (Iterator<String> it = dirtyStopwatches.iterator(); it.hasNext(); ) {
+                String name = it.next();
+                it.remove();
+                ClockEngine.Stopwatch sw = engine.findStopwatch(name);
+                if (sw == null) continue;
+                if (n++ > 0) b.append(',');
+                quote(b, name).append(':');
+                // only the new laps, unless it was reset since: then all of them, from 0
+                int[] pushed = lapsPushed.computeIfAbsent(name, k -> new int[2]);
+                synchronized (sw) {
+                    int resets = sw.resets();
+                    pushed[1] = stopwatchJson(b, sw, resets == pushed[0] ? pushed[1] : 0);
+                    pushed[0] = resets;
+                }
+            }
+            b.append('}');
+        }
+        if (!dirtyTimers.isEmpty()) {
+            b.append(",\"timers\":{");
+            int n = 0;
+            for (Iterator<String> it = dirtyTimers.iterator(); it.hasNext(); ) {
+                String name = it.next();
+                it.remove();
+                ClockEngine.CountdownEngine.Countdown c = engine.countdowns().get(name);
+                if (c == null) continue;
+                if (n++ > 0) b.append(',');
+                quote(b, name).append(':');
+                timerJson(b, c);
+            }
+            b.append('}');
+        }
+        if (!dirtyAlarms.isEmpty()) {
+            b.append(",\"alarms\":[");
+            int n = 0;
+            synchronized (engine.alarms()) {
+                for (Iterator<ClockEngine.AlarmItem> it = dirtyAlarms.values().iterator(); it.hasNext(); ) {
+                    ClockEngine.AlarmItem ai = it.next();
+                    it.remove();
+                    if (n++ > 0) b.append(',');
+                    alarmJson(b, ai);
+                }
+            }
+            b.append(']');
+        }
+        idList(b, "removedAlarms", removedAlarms);
+        idList(b, "firedAlarms", firedAlarms);
+        b.append('}');
+        if (subscribers.isEmpty()) return;
+        ByteBuffer f = frame(b.toString()).asReadOnlyBuffer();
+        frames++;
+        frameBytes += f.remaining();
+        // the same bytes for everyone; close() may remove from the list while iterating
+        for (Conn c : subscribers.toArray(new Conn[0])) {
+            try {
+                send(c, f.duplicate());
+            } catch (IOException ex) {
+                close(c);
+            }
+        }
+    }
+
+    private static void idList(StringBuilder b, String field, Queue<UUID> ids) {
+        if (ids.isEmpty()) return;
+        b.append(",\"").append(field).append("\":[");
+        int n = 0;
+        for (UUID id; (id = ids.poll()) != null; ) {
+            if (n++ > 0) b.append(',');
+            b.append('"').append(id).append('"');
+        }
+        b.append(']');
+    }
+
+    // the state a new subscriber starts from; later frames patch it
+    private String snapshot() {
+        StringBuilder b = new StringBuilder(1024);
+        b.append("{\"seq\":").append(seq).append(",\"full\":true,\"t\":").append(System.currentTimeMillis());
+        b.append(",\"time\":");
+        timeJson(b);
+        b.append(",\"stopwatches\":{");
+        int n = 0;
+        for (String name : engine.stopwatchNames()) {
+            if (n++ > 0) b.append(',');
+            quote(b, name).append(':');
+            stopwatchJson(b, engine.findStopwatch(name), 0);
+        }
+        b.append("},\"timers\":{");
+        n = 0;
+        for (String name : engine.countdowns().names()) {
+            ClockEngine.CountdownEngine.Countdown c = engine.countdowns().get(name);
+            if (c == null) continue;
+            if (n++ > 0) b.append(',');
+            quote(b, name).append(':');
+            timerJson(b, c);
+        }
+        b.append("},\"alarms\":[");
+        ClockEngine.AlarmService alarms = engine.alarms();
+        synchronized (alarms) {
+            for (int i = 0; i < alarms.size(); i++) {
+                if (i > 0) b.append(',');
+                alarmJson(b, alarms.get(i));
+            }
+        }
+        return b.append("]}").toString();
+    }
+
+    // ------------------ JSON ------------------
+
+    private StringBuilder timeJson(StringBuilder b) {
+        long now = System.currentTimeMillis();
+        char[] hms = new char[8];
+        int secondOfDay = (int) (clock.millisOfDay(now) / 1000);
+        b.append("{\"t\":").append(now).append(",\"zone\":");
+        quote(b, clock.zone().getId()).append(",\"offset\":");
+        quote(b, clock.offsetLabel(now)).append(",\"date\":");
+        quote(b, clock.shortDate(now)).append(",\"local\":\"");
+        return b.append(hms, 0, ClockEngine.TimeFormat.clock24(hms, secondOfDay)).append("\"}");
+    }
+
+    // laps from index 'from' on; returns the lap count written up to
+    private static int stopwatchJson(StringBuilder b, ClockEngine.Stopwatch sw, int from) {
+        synchronized (sw) {
+            ClockEngine.LapRecorder laps = sw.laps();
+            int size = laps.size();
+            b.append("{\"running\":").append(sw.isRunning()).append(",\"elapsedNanos\":").append(sw.elapsedNanos())
+                    .append(",\"lapsFrom\":").append(from).append(",\"laps\":[");
+            for (int i = from; i < size; i++) {
+                if (i > from) b.append(',');
+                b.append(laps.elapsed(i));
+            }
+            b.append("]}");
+            return size;
+        }
+    }
+
+    private static StringBuilder timerJson(StringBuilder b, ClockEngine.CountdownEngine.Countdown c) {
+        synchronized (c) {
+            return b.append("{\"running\":").append(c.isRunning()).append(",\"expired\":").append(c.isExpired())
+                    .append(",\"remainingMillis\":").append(c.remainingNanos() / 1_000_000)
+                    .append(",\"durationMillis\":").append(c.durationNanos() / 1_000_000).append('}');
+        }
+    }
+
+    private static StringBuilder alarmJson(StringBuilder b, ClockEngine.AlarmItem ai) {
+        return b.append("{\"id\":\"").append(ai.id).append("\",\"time\":\"").append(ai.time.format(ClockEngine.HOUR_MIN_FMT))
+                .append("\",\"repeat\":\"").append(ai.repeat).append("\",\"enabled\":").append(ai.enabled).append(",\"triggeredToday\":").append(ai.triggeredToday).append('}');
+    }
+
+    static StringBuilder quote(StringBuilder b, String s) {
+        b.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"':  b.append("\\\""); break;
+                case '\\': b.append("\\\\"); break;
+                case '\n': b.append("\\n"); break;
+                case '\r': b.append("\\r"); break;
+                case '\t': b.append("\\t"); break;
+                default:
+                    if (ch < 0x20) b.append(String.format("\\u%04x", (int) ch));
+                    else b.append(ch);
+            }
+        }
+        return b.append('"');
+    }
+
+    // a flat JSON object of strings, numbers, booleans and nulls; values come back as their text
+    static Map<String, String> parseObject(String s) {
+        Map<String, String> o = new HashMap<>();
+        int[] at = {skip(s, 0)};
+        expect(s, at, '{');
+        if (peek(s, at) == '}') {
+            at[0]++;
+            return o;
+        }
+        while (true) {
+            String key = string(s, at);
+            expect(s, at, ':');
+            String value;
+            if (peek(s, at) == '"') {
+                value = string(s, at);
+            } else {
+                int start = at[0];
+                while (at[0] < s.length() && ",} \t\r\n".indexOf(s.charAt(at[0])) < 0) at[0]++;
+                value = s.substring(start, at[0]);
+                if (value.isEmpty() || value.charAt(0) == '{' || value.charAt(0) == '[') throw new IllegalArgumentException("unsupported value for \"" + key + "\"");
+                if (value.equals("null")) value = null;
+            }
+            o.put(key, value);
+            char ch = peek(s, at);
+            at[0]++;
+            if (ch == '}') return o;
+            if (ch != ',') throw new IllegalArgumentException("malformed JSON");
+        }
+    }
+
+    private static int skip(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static char peek(String s, int[] at) {
+        at[0] = skip(s, at[0]);
+        if (at[0] >= s.length()) throw new IllegalArgumentException("malformed JSON");
+        return s.charAt(at[0]);
+    }
+
+    private static void expect(String s, int[] at, char ch) {
+        if (peek(s, at) != ch) throw new IllegalArgumentException("malformed JSON");
+        at[0]++;
+    }
+
+    private static String string(String s, int[] at) {
+        expect(s, at, '"');
+        StringBuilder b = new StringBuilder();
+        for (int i = at[0]; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"') {
+                at[0] = i + 1;
+                return b.toString();
+            }
+            if (ch == '\\' && i + 1 < s.length()) {
+                char e = s.charAt(++i);
+                switch (e) {
+                    case 'n': b.append('\n'); break;
+                    case 't': b.append('\t'); break;
+                    case 'r': b.append('\r'); break;
+                    case 'b': b.append('\b'); break;
+                    case 'f': b.append('\f'); break;
+                    case 'u':
+                        if (i + 4 >= s.length()) throw new IllegalArgumentException("malformed JSON");
+                        b.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default: b.append(e);
+                }
+            } else {
+                b.append(ch);
+            }
+        }
+        throw new IllegalArgumentException("malformed JSON");
+    }
+}
@@ -1,10 +1,11 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 import javax.sound.sampled.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -16,15 +17,31 @@ public class NeonClockApp extends JFrame {
     private static final Color PANEL = new Color(15, 15, 28, 220);
     private static final Color NEON = new Color(0, 255, 180);    
     private static final Color NEON_ALT = new Color(255, 0, 150);
-    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("hh:mm:ss a");
-    private static final DateTimeFormatter HOUR_MIN_FMT = DateTimeFormatter.ofPattern("HH:mm");
-    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("EEEE, MMMM dd, yyyy");
+    private static final DateTimeFormatter HOUR_MIN_FMT = ClockEngine.HOUR_MIN_FMT;
+    static final String DIGITAL_FONT = "Digital-7 Mono";
+    // -Dneonclock.startup=print reports the time from JVM start to the first painted frame on
+    // stderr; =exit then also exits (AppCDS training runs)
+    private static final String STARTUP = System.getProperty("neonclock.startup");
+
+    // Shared tick source for every periodic UI task
+    private final TickScheduler ticks = new TickScheduler();
+    // Headless time-keeping core (stopwatch, countdowns, alarms); the panels subscribe to it
+    private final ClockEngine engine = new ClockEngine(ZoneId.systemDefault(),
+            ClockEngine.openDefaultJournal(ZoneId.systemDefault()));
+    // Local wall-clock reader with cached day/date strings (shared by header and clock tab)
+    private final ClockEngine.LocalClock localClock = engine.clock();
 
     // Core panels
     private ClockPanel clockPanel;
+    private WorldClockPanel worldPanel;
     private StopwatchPanel stopwatchPanel;
     private TimerPanel timerPanel;
     private AlarmPanel alarmPanel;
+    private TickScheduler.Registration headerTick;
+    // placeholder -> the tab it stands in for, until first selected
+    private final Map<Component, java.util.function.Supplier<Component>> unbuiltTabs = new HashMap<>();
+    private boolean painted = false;
+    private Signage signage;
 
     public NeonClockApp() {
         super("Neon Digital Clock — Advanced");
@@ -33,6 +50,38 @@ public class NeonClockApp extends JFrame {
         setLocationRelativeTo(null);
         setLayout(new BorderLayout());
         initUI();
+        notifyFromEngine();
+        ticks.attach(this);
+        Telemetry telemetry = Telemetry.shared();
+        telemetry.attach(ticks);
+        telemetry.listenForJfr();
+        RepaintDebugOverlay.install(this, ticks);
+        Runtime.getRuntime().addShutdownHook(new Thread(engine::close, "clock-engine-close"));
+        // every start/stop/lap/expiry/alarm goes to the audit log (-Dneonclock.events=<file>)
+        ClockEngine.EventLog events = ClockEngine.openDefaultEventLog();
+        if (events != null) {
+            engine.addListener(events);
+            Runtime.getRuntime().addShutdownHook(new Thread(events::close, "event-log-close"));
+        }
+        // -Dneonclock.screens=clock,timer,alarms puts boards on the other displays, drawn from this engine
+        List<ScreenWall.Board> boards = ScreenWall.configuredBoards();
+        if (!boards.isEmpty()) ScreenWall.open(engine, ticks.policy, boards);
+        // -Dneonclock.signage=clock[@display] takes a display full-screen, once this window is up
+        if (System.getProperty(Signage.PROPERTY) != null) SwingUtilities.invokeLater(() -> signage = Signage.openConfigured(engine));
+        // -Dneonclock.metrics=<file> keeps the telemetry in a text file, rewritten every 5 seconds
+        String metrics = System.getProperty("neonclock.metrics");
+        if (metrics != null) telemetry.exportTo(java.nio.file.Paths.get(metrics));
+        // -Dneonclock.http=<port> serves the engine's state, and /metrics, on localhost (see ClockServer)
+        String http = System.getProperty("neonclock.http");
+        if (http != null) {
+            try {
+                ClockServer server = ClockServer.open(engine, new java.net.InetSocketAddress(java.net.InetAddress.getLoopbackAddress(), Integer.parseInt(http)));
+                server.metrics(telemetry::metricsText);
+                telemetry.watch(true);
+            } catch (java.io.IOException | RuntimeException ex) {
+                System.err.println("clock server unavailable: " + ex);
+            }
+        }
     }
 
     private void initUI() {
@@ -43,7 +92,7 @@ public class NeonClockApp extends JFrame {
         JLabel title = new JLabel("Neon Digital Clock");
         title.setFont(new Font("SansSerif", Font.BOLD, 22));
         title.setForeground(NEON);
-        JLabel subtitle = new JLabel("Animated • Stopwatch • Timer • Multi-Alarm");
+        JLabel subtitle = new JLabel("Animated • World • Stopwatch • Timer • Multi-Alarm");
         subtitle.setForeground(new Color(170, 200, 220));
         subtitle.setFont(new Font("SansSerif", Font.PLAIN, 12));
         JPanel left = new JPanel(new BorderLayout());
@@ -56,13 +105,12 @@ public class NeonClockApp extends JFrame {
         JLabel dateLabel = new JLabel();
         dateLabel.setForeground(new Color(200, 220, 240));
         dateLabel.setFont(new Font("SansSerif", Font.PLAIN, 14));
-        // Update date label each second
-            javax.swing.Timer dateTimer = new javax.swing.Timer(
-             1000,
-          e -> dateLabel.setText(LocalDate.now().format(DATE_FMT))
-        );
-
-        dateTimer.start();
+        // the date only changes at midnight; checked at least once a minute in case the clock or zone moves
+        headerTick = ticks.register("header-date", dateLabel, 0, () -> {
+            long now = System.currentTimeMillis();
+            dateLabel.setText(localClock.headerDate(now));
+            headerTick.wakeAt(RenderPolicy.after(Math.min(60_000, 86_400_000 - localClock.millisOfDay(now))));
+        });
 
         right.add(dateLabel);
 
@@ -71,21 +119,38 @@ public class NeonClockApp extends JFrame {
 
         add(top, BorderLayout.NORTH);
 
-        // Tabbed content
+        // Tabbed content: only the clock is built before the first frame, the others on first selection
         JTabbedPane tabs = new JTabbedPane();
         tabs.setBackground(BG);
         tabs.setForeground(new Color(200, 220, 240));
         tabs.setFont(new Font("SansSerif", Font.PLAIN, 14));
 
-        clockPanel = new ClockPanel();
-        stopwatchPanel = new StopwatchPanel();
-        timerPanel = new TimerPanel();
-        alarmPanel = new AlarmPanel();
-
+        clockPanel = new ClockPanel(ticks, localClock);
         tabs.addTab("Clock", clockPanel);
-        tabs.addTab("Stopwatch", stopwatchPanel);
-        tabs.addTab("Timer", timerPanel);
-        tabs.addTab("Alarms", alarmPanel);
+        lazyTab(tabs, "World", () -> WorldClockPanel.scrollPane(
+                worldPanel = new WorldClockPanel(ticks, new ClockEngine.WorldClock(ClockEngine.WorldClock.configuredZones()))));
+        lazyTab(tabs, "Stopwatch", () -> stopwatchPanel = new StopwatchPanel(ticks, engine));
+        lazyTab(tabs, "Timer", () -> timerPanel = new TimerPanel(ticks, engine));
+        lazyTab(tabs, "Alarms", () -> alarmPanel = new AlarmPanel(ticks, engine));
+        tabs.addChangeListener(e -> {
+            java.util.function.Supplier<Component> build = unbuiltTabs.remove(tabs.getSelectedComponent());
+            if (build != null) tabs.setComponentAt(tabs.getSelectedIndex(), build.get());
+        });
+        // F11: the selected tab's board full-screen on this window's display, until Esc or F11
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F11, 0), "signage");
+        getRootPane().getActionMap().put("signage", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (signage != null && signage.isOpen()) {
+                    signage.close();
+                    return;
+                }
+                String tab = tabs.getTitleAt(tabs.getSelectedIndex());
+                ScreenWall.Board board = tab.equals("Alarms") ? ScreenWall.Board.ALARMS
+                        : tab.equals("Timer") || tab.equals("Stopwatch") ? ScreenWall.Board.TIMER : ScreenWall.Board.CLOCK;
+                signage = Signage.open(engine, board, getGraphicsConfiguration().getDevice());
+            }
+        });
 
         add(tabs, BorderLayout.CENTER);
 
@@ -98,15 +163,77 @@ public class NeonClockApp extends JFrame {
         add(footer, BorderLayout.SOUTH);
     }
 
+    private void lazyTab(JTabbedPane tabs, String title, java.util.function.Supplier<Component> build) {
+        JPanel placeholder = new JPanel();
+        placeholder.setBackground(BG);
+        unbuiltTabs.put(placeholder, build);
+        tabs.addTab(title, placeholder);
+    }
+
+    // alarms and the timer notify whether or not their tab has been opened
+    private void notifyFromEngine() {
+        engine.countdown(TimerPanel.COUNTDOWN);
+        engine.addListener(new ClockEngine.Listener() {
+            @Override
+            public void alarmsFired(List<ClockEngine.AlarmItem> fired) {
+                for (ClockEngine.AlarmItem ai : fired) {
+                    // play multi-tone pattern, then show notification
+                    NotificationDispatcher.shared().dispatch("alarm:" + ai.id, NeonClockApp.this,
+                            "Alarm! " + ai.time.format(HOUR_MIN_FMT), AlarmPanel.ALARM_TONES, 350, 250);
+                }
+            }
+
+            @Override
+            public void countdownExpired(ClockEngine.CountdownEngine.Countdown c) {
+                if (c.name.equals(TimerPanel.COUNTDOWN))
+                    NotificationDispatcher.shared().dispatch("timer", NeonClockApp.this, "Timer finished!", new int[]{800}, 250, 0);
+            }
+        });
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (painted) return;
+        painted = true;
+        if (STARTUP != null) {
+            long millis = System.currentTimeMillis() - java.lang.management.ManagementFactory.getRuntimeMXBean().getStartTime();
+            System.err.println("first frame painted " + millis + " ms after JVM start");
+            if (STARTUP.equals("exit")) System.exit(0);
+        }
+        // the sound device is opened now, off the startup path, rather than when the first alarm rings
+        Thread audio = new Thread(AudioEngine::shared, "audio-open");
+        audio.setDaemon(true);
+        audio.start();
+    }
+
+    // resolving the display font can mean scanning every installed font: started before the
+    // look-and-feel and window are set up, alongside them rather than in the clock's first layout
+    static void warmUpFonts() {
+        Thread fonts = new Thread(() -> new Font(DIGITAL_FONT, Font.BOLD, 72).getFamily(), "font-warmup");
+        fonts.setDaemon(true);
+        fonts.start();
+    }
+
     // ------------------ Clock Panel ------------------
-    private class ClockPanel extends JPanel {
-        private JLabel timeLabel;
+    // panels are static so they can be built (and benchmarked) without a JFrame
+    static class ClockPanel extends JPanel {
+        private final ClockEngine.LocalClock localClock;
+        private GlyphTextView timeView;
         private JLabel dayLabel;
-        private javax.swing.Timer blinkTimer;
-        private boolean colonOn = true;
+        private final RenderPolicy policy;
+        private final TickScheduler.Registration timeTick, glowTick;
         private float glowPhase = 0f;
-
-        ClockPanel() {
+        private final char[] timeChars = new char[12];
+        // the glow backdrop is pre-rendered per phase bucket (Backdrops)
+        static final int GLOW_BUCKETS = 16;
+        private static final long GLOW_CYCLE_NANOS = (long) (2 * Math.PI * 1e9); // 1 rad/s
+        private static final Telemetry.Probe PAINT = Telemetry.probe("ClockPanel");
+        private int glowBucket = -1;
+
+        ClockPanel(TickScheduler ticks, ClockEngine.LocalClock localClock) {
+            this.localClock = localClock;
+            policy = ticks.policy;
             setOpaque(true);
             setBackground(BG);
             setLayout(new GridBagLayout());
@@ -115,84 +242,263 @@ public class NeonClockApp extends JFrame {
             JPanel glass = createGlassPanel(new BorderLayout());
             glass.setPreferredSize(new Dimension(760, 360));
 
-            timeLabel = new JLabel("", SwingConstants.CENTER);
-            timeLabel.setFont(new Font("Digital-7 Mono", Font.BOLD, 72));
-            timeLabel.setForeground(NEON);
-            timeLabel.setOpaque(false);
+            timeView = new GlyphTextView(new Font(DIGITAL_FONT, Font.BOLD, 72), NEON, Color.WHITE, "88:88:88 AM");
 
             dayLabel = new JLabel("", SwingConstants.CENTER);
             dayLabel.setFont(new Font("SansSerif", Font.PLAIN, 20));
             dayLabel.setForeground(new Color(190, 220, 240));
 
-            glass.add(timeLabel, BorderLayout.CENTER);
+            glass.add(timeView, BorderLayout.CENTER);
             glass.add(dayLabel, BorderLayout.SOUTH);
 
             add(glass);
 
-            // timers: update every 200ms for animation and blinking
-            javax.swing.Timer t = new javax.swing.Timer(200, e -> updateTime());
-            t.start();
-
-            // glow animation
-            blinkTimer = new javax.swing.Timer(60, e -> {
-                glowPhase += 0.06f;
-                if (glowPhase > (float)Math.PI * 2) glowPhase = 0f;
-                float factor = 0.6f + 0.4f*(float)(0.5*(1+Math.sin(glowPhase)));
-                Color glow = blend(NEON, Color.WHITE, factor*0.12f);
-                timeLabel.setForeground(glow);
-                repaint();
+            // both wake only when what they draw changes, and only while this tab is showing
+            timeTick = ticks.register("clock-time", this, 0, this::updateTime);
+            glowTick = ticks.register("clock-glow", this, 0, this::glow);
+            glowTick.setActive(policy.level().glowMs > 0);
+            policy.addListener(() -> {
+                timeTick.wakeAt(System.nanoTime()); // the colon may stop or start blinking
+                glowTick.setActive(policy.level().glowMs > 0);
+                glowTick.wakeAt(System.nanoTime());
             });
-            blinkTimer.start();
         }
 
-        private void updateTime() {
-            LocalDateTime now = LocalDateTime.now();
-            String hh = String.format("%02d", now.getHour()%12==0?12:now.getHour()%12);
-            String mm = String.format("%02d", now.getMinute());
-            String ss = String.format("%02d", now.getSecond());
-            String ampm = now.getHour() < 12 ? "AM" : "PM";
+        // the phase follows the clock, so the glow's speed doesn't depend on how often it is drawn;
+        // the next frame is when the tint or the backdrop next changes shade
+        private void glow() {
+            long now = System.nanoTime();
+            glowPhase = (float) (Math.floorMod(now, GLOW_CYCLE_NANOS) / 1e9);
+            // white tint over the neon glyphs == blend(NEON, WHITE, tint), without re-layout
+            timeView.setTint(glowTint(glowPhase));
+            // the backdrop only needs repainting when the glow moves to another bucket, and only under the glow
+            int bucket = glowBucket(glowPhase);
+            if (bucket != glowBucket) {
+                glowBucket = bucket;
+                int r = glowRadius();
+                repaint(getWidth()/2 - r, getHeight()/3 - r, 2*r, 2*r);
+            }
+            int minMs = policy.level().glowMs;
+            if (minMs > 0) glowTick.wakeAt(now + nextGlowChange(glowPhase, minMs) * 1_000_000L);
+        }
+
+        static float glowTint(float glowPhase) {
+            float factor = 0.6f + 0.4f*(float)(0.5*(1+Math.sin(glowPhase)));
+            return factor*0.12f;
+        }
+
+        // ms until the tint level or the backdrop bucket differs from now's: looked for on a 10 ms
+        // grid from minMs, at most a second ahead
+        static int nextGlowChange(float glowPhase, int minMs) {
+            int tint = GlyphTextView.tintLevel(glowTint(glowPhase)), bucket = glowBucket(glowPhase);
+            for (int ms = minMs; ms < 1000; ms += 10) {
+                float p = glowPhase + ms / 1000f;
+                if (glowBucket(p) != bucket || GlyphTextView.tintLevel(glowTint(p)) != tint) return ms;
+            }
+            return 1000;
+        }
+
+        private int glowRadius() { return Math.min(getWidth(), getHeight())/3; }
 
-            // blinking colon effect (toggle every second)
-            colonOn = !colonOn;
-            String colon = colonOn ? ":" : " ";
-            String timeText = hh + colon + mm + ":" + ss + " " + ampm;
-            timeLabel.setText(timeText);
-            dayLabel.setText(now.format(DateTimeFormatter.ofPattern("EEEE")) + " • " + now.format(DateTimeFormatter.ofPattern("MMMM dd, yyyy")));
+        static int glowBucket(float glowPhase) {
+            float phase = (float)(0.5f + 0.5f*Math.sin(glowPhase));
+            return Math.min(GLOW_BUCKETS - 1, (int) (phase * GLOW_BUCKETS));
+        }
+
+        void updateTime() {
+            long now = System.currentTimeMillis();
+            long ms = localClock.millisOfDay(now);
+            RenderPolicy.Level level = policy.level();
+
+            // the colon blinks on the half second (steady when saving power); woken again at the next change
+            boolean colonOn = !level.blink || ms % 1000 < 500;
+            timeView.setText(timeChars, ClockEngine.TimeFormat.clock12(timeChars, (int) (ms / 1000), colonOn));
+            dayLabel.setText(localClock.dayLine(now));
+            timeTick.wakeAt(RenderPolicy.after(level.blink ? 500 - ms % 500 : 1000 - ms % 1000));
         }
 
         @Override
         protected void paintComponent(Graphics g) {
+            long t0 = System.nanoTime();
+            paintGlow(g);
+            PAINT.painted(t0);
+        }
+
+        private void paintGlow(Graphics g) {
             super.paintComponent(g);
             // subtle neon glow under the time
-            Graphics2D g2 = (Graphics2D) g.create();
-            int w = getWidth(), h = getHeight();
-            int cx = w/2, cy = h/3;
-            int r = Math.min(w, h)/3;
-            float phase = (float)(0.5f + 0.5f*Math.sin(glowPhase));
-            Color glow = blend(NEON, NEON_ALT, 0.3f + 0.7f*phase);
-            Composite orig = g2.getComposite();
-            g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.06f + 0.02f*phase));
-            g2.setPaint(new RadialGradientPaint(new Point(cx, cy), r,
-                    new float[]{0f, 0.6f, 1f},
-                    new Color[]{glow, new Color(0,0,0,0), new Color(0,0,0,0)}));
-            g2.fillOval(cx-r, cy-r, r*2, r*2);
-            g2.setComposite(orig);
-            g2.dispose();
+            int r = glowRadius();
+            if (r <= 0) return;
+            int bucket = glowBucket(glowPhase);
+            int cx = getWidth()/2, cy = getHeight()/3;
+            Rectangle clip = g.getClipBounds();
+            if (clip != null && !clip.intersects(cx-r, cy-r, 2*r, 2*r)) return;
+            BufferedImage img = Backdrops.glow(bucket, r);
+            if (img.getWidth() == 2*r) {
+                g.drawImage(img, cx-r, cy-r, null);
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g;
+            Object interp = g2.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(img, cx-r, cy-r, 2*r, 2*r, null);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    interp != null ? interp : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+    }
+
+    // ------------------ World Clock Panel ------------------
+    // A grid of city clocks painted by one component in one pass: no child components per cell,
+    // and only the cells inside the clip are drawn, so hundreds of zones cost what the viewport
+    // shows. Every cell is painted at the same instant, read once per tick.
+    static class WorldClockPanel extends JComponent implements Scrollable {
+        static final int CELL_W = 230, CELL_H = 96, GAP = 8;
+        private static final Font TIME_FONT = new Font(DIGITAL_FONT, Font.BOLD, 34);
+        private static final Font CITY_FONT = new Font("SansSerif", Font.BOLD, 14);
+        private static final Font INFO_FONT = new Font("SansSerif", Font.PLAIN, 12);
+        private static final Color NIGHT = new Color(90, 140, 255);
+        private static final Color INFO = new Color(160, 190, 215);
+        private static final Telemetry.Probe PAINT = Telemetry.probe("WorldClockPanel");
+
+        private final ClockEngine.WorldClock world;
+        private final char[] timeChars = new char[8];
+        private long now = System.currentTimeMillis();
+        // one glass backdrop shared by every cell, per device scale
+        private BufferedImage cellBg;
+        private double cellBgScale;
+        private int columns = -1;
+        private final TickScheduler.Registration secondTick;
+
+        WorldClockPanel(TickScheduler ticks, ClockEngine.WorldClock world) {
+            this.world = world;
+            setOpaque(true);
+            setBackground(BG);
+            // the row count depends on the width
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    if (columns() != columns) {
+                        columns = columns();
+                        revalidate();
+                        repaint();
+                    }
+                }
+            });
+            // woken on each second boundary, when every visible cell changes
+            secondTick = ticks.register("world-clock", this, 0, this::tick);
+        }
+
+        static JScrollPane scrollPane(WorldClockPanel panel) {
+            JScrollPane sp = new JScrollPane(panel, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                    ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+            sp.setBorder(null);
+            sp.getViewport().setBackground(BG);
+            return sp;
+        }
+
+        void tick() {
+            long t = System.currentTimeMillis();
+            if (t / 1000 != now / 1000) {
+                now = t;
+                repaint(getVisibleRect());
+            }
+            secondTick.wakeAt(RenderPolicy.after(1000 - t % 1000));
+        }
+
+        private int columns() { return Math.max(1, (getWidth() - GAP) / (CELL_W + GAP)); }
+
+        @Override
+        public Dimension getPreferredSize() {
+            int cols = getWidth() > 0 ? columns() : 4;
+            int rows = (world.size() + cols - 1) / cols;
+            return new Dimension(GAP + cols * (CELL_W + GAP), GAP + rows * (CELL_H + GAP));
+        }
+
+        @Override
+        public Dimension getPreferredScrollableViewportSize() { return getPreferredSize(); }
+        @Override
+        public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) { return 24; }
+        @Override
+        public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+            return Math.max(CELL_H + GAP, visible.height - CELL_H);
+        }
+        @Override
+        public boolean getScrollableTracksViewportWidth() { return true; }
+        @Override
+        public boolean getScrollableTracksViewportHeight() { return false; }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            long t0 = System.nanoTime();
+            Graphics2D g2 = (Graphics2D) g;
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            double scale = g2.getTransform().getScaleX();
+            GlyphAtlas day = GlyphAtlas.get(TIME_FONT, NEON, scale), night = GlyphAtlas.get(TIME_FONT, NIGHT, scale);
+            if (cellBg == null || cellBgScale != scale) {
+                cellBg = renderGlass(CELL_W, CELL_H, scale);
+                cellBgScale = scale;
+            }
+            FontMetrics infoMetrics = g.getFontMetrics(INFO_FONT);
+            int cols = columns(), pitchX = CELL_W + GAP, pitchY = CELL_H + GAP;
+            int left = (getWidth() - (cols * pitchX - GAP)) / 2;
+            int firstRow = Math.max(0, (clip.y - GAP) / pitchY);
+            int lastRow = Math.min((world.size() - 1) / cols, (clip.y + clip.height) / pitchY);
+            for (int row = firstRow; row <= lastRow; row++) {
+                int y = GAP + row * pitchY;
+                for (int col = 0; col < cols; col++) {
+                    int i = row * cols + col, x = left + col * pitchX;
+                    if (i >= world.size()) break;
+                    if (x + CELL_W < clip.x || x > clip.x + clip.width) continue;
+                    paintCell(g, i, x, y, day, night, infoMetrics);
+                }
+            }
+            PAINT.painted(t0);
+        }
+
+        private void paintCell(Graphics g, int i, int x, int y, GlyphAtlas day, GlyphAtlas night, FontMetrics infoMetrics) {
+            ClockEngine.LocalClock clock = world.clock(i);
+            int secondOfDay = world.secondOfDay(i, now);
+            g.drawImage(cellBg, x, y, CELL_W, CELL_H, null);
+
+            g.setFont(CITY_FONT);
+            g.setColor(Color.WHITE);
+            g.drawString(world.city(i), x + 12, y + 22);
+            g.setFont(INFO_FONT);
+            g.setColor(INFO);
+            g.drawString(clock.shortDate(now), x + 12, y + 40);
+            String offset = clock.offsetLabel(now);
+            g.drawString(offset, x + CELL_W - 12 - infoMetrics.stringWidth(offset), y + 40);
+
+            GlyphAtlas a = secondOfDay >= 6 * 3600 && secondOfDay < 18 * 3600 ? day : night;
+            int len = ClockEngine.TimeFormat.clock24(timeChars, secondOfDay);
+            int tx = x + 12, ty = y + CELL_H - 8 - a.height;
+            for (int k = 0; k < len; k++) {
+                a.draw(g, timeChars[k], tx, ty);
+                tx += a.advance(timeChars[k]);
+            }
         }
     }
 
     // ------------------ Stopwatch Panel ------------------
-    private class StopwatchPanel extends JPanel {
+    static class StopwatchPanel extends JPanel {
+        static final String STOPWATCH = "stopwatch";
         private JLabel display;
         private JButton startBtn, stopBtn, lapBtn, resetBtn;
-        private DefaultListModel<String> lapModel;
-        private javax.swing.Timer updateTimer;
-
-        private long startTimeNano = 0L;
-        private long elapsedBeforeNano = 0L;
-        private boolean running = false;
-
-        StopwatchPanel() {
+        private JLabel statsLabel;
+        private final ClockEngine.Stopwatch stopwatch;
+        private final LapListModel lapModel;
+        private TickScheduler.Registration updateTick;
+        private final RenderPolicy policy;
+        private final ClockEngine.TextBuffer displayText = new ClockEngine.TextBuffer(24);
+
+        StopwatchPanel(TickScheduler ticks, ClockEngine engine) {
+            stopwatch = engine.stopwatch(STOPWATCH);
+            lapModel = new LapListModel(stopwatch);
             setOpaque(true);
             setBackground(BG);
             setLayout(new BorderLayout(12,12));
@@ -201,7 +507,7 @@ public class NeonClockApp extends JFrame {
             JPanel top = createGlassPanel(new BorderLayout());
             top.setPreferredSize(new Dimension(760, 140));
             display = new JLabel(formatTime(0L), SwingConstants.CENTER);
-            display.setFont(new Font("Digital-7 Mono", Font.BOLD, 48));
+            display.setFont(new Font(DIGITAL_FONT, Font.BOLD, 48));
             display.setForeground(NEON_ALT);
             top.add(display, BorderLayout.CENTER);
 
@@ -216,94 +522,153 @@ public class NeonClockApp extends JFrame {
 
             add(top, BorderLayout.NORTH);
 
-            // laps
-            lapModel = new DefaultListModel<>();
+            // laps: newest first; the prototype fixes the row size so only visible rows are formatted
             JList<String> lapList = new JList<>(lapModel);
             lapList.setBackground(new Color(12,14,20));
             lapList.setForeground(new Color(200,220,240));
             lapList.setFont(new Font("Monospaced", Font.PLAIN, 14));
+            lapList.setPrototypeCellValue("Lap 000000  000:00:00.00  +000:00:00.00");
             add(new JScrollPane(lapList), BorderLayout.CENTER);
 
-            // actions
-            startBtn.addActionListener(e -> startStopwatch());
-            stopBtn.addActionListener(e -> stopStopwatch());
-            lapBtn.addActionListener(e -> recordLap());
-            resetBtn.addActionListener(e -> resetStopwatch());
+            statsLabel = new JLabel(" ");
+            statsLabel.setFont(new Font("Monospaced", Font.PLAIN, 13));
+            statsLabel.setForeground(new Color(160,180,200));
+            add(statsLabel, BorderLayout.SOUTH);
+
+            // actions go to the engine; the display follows its events
+            startBtn.addActionListener(e -> stopwatch.start());
+            stopBtn.addActionListener(e -> stopwatch.stop());
+            lapBtn.addActionListener(e -> stopwatch.lap());
+            resetBtn.addActionListener(e -> stopwatch.reset());
+
+            // while running: a frame interval from the render policy, or each displayed second
+            updateTick = ticks.register("stopwatch-display", this, 0, this::tick);
+            updateTick.setActive(false);
+            ticks.policy.addListener(() -> updateTick.wakeAt(System.nanoTime()));
+            policy = ticks.policy;
+            engine.addListener(new ClockEngine.Listener() {
+                @Override
+                public void stopwatchChanged(ClockEngine.Stopwatch sw) {
+                    if (sw == stopwatch) onEdt(StopwatchPanel.this::stateChanged);
+                }
 
-            updateTimer = new javax.swing.Timer(20, e -> updateDisplay());
+                @Override
+                public void lapRecorded(ClockEngine.Stopwatch sw, int lap) {
+                    if (sw == stopwatch) onEdt(StopwatchPanel.this::lapsChanged);
+                }
+            });
+            stateChanged(); // it may already be running (the HTTP API)
         }
 
-        private void startStopwatch() {
-            if (!running) {
-                startTimeNano = System.nanoTime();
-                running = true;
-                updateTimer.start();
-            }
+        private void stateChanged() {
+            updateTick.setActive(stopwatch.isRunning());
+            updateDisplay();
+            lapsChanged();
         }
 
-        private void stopStopwatch() {
-            if (running) {
-                long now = System.nanoTime();
-                elapsedBeforeNano += now - startTimeNano;
-                running = false;
-                updateTimer.stop();
+        private void lapsChanged() {
+            lapModel.sync();
+            String stats;
+            synchronized (stopwatch) {
+                stats = stopwatch.laps().size() == 0 ? " " : stopwatch.laps().describe();
             }
+            statsLabel.setText(stats);
         }
 
-        private void resetStopwatch() {
-            startTimeNano = 0L;
-            elapsedBeforeNano = 0L;
-            running = false;
-            updateTimer.stop();
-            display.setText(formatTime(0L));
-            lapModel.clear();
+        private void tick() {
+            long elapsed = stopwatch.elapsedNanos();
+            display.setText(formatTime(elapsed));
+            int ms = policy.level().counterMs;
+            updateTick.wakeAt(ms >= 1000 ? RenderPolicy.after(1000 - elapsed / 1_000_000 % 1000) : System.nanoTime() + ms * 1_000_000L);
         }
 
-        private void recordLap() {
-            long t = getElapsedNano();
-            lapModel.add(0, String.format("Lap %02d  %s", lapModel.getSize()+1, formatTime(t)));
+        private void updateDisplay() {
+            display.setText(formatTime(stopwatch.elapsedNanos()));
         }
 
-        private void updateDisplay() {
-            display.setText(formatTime(getElapsedNano()));
+        String formatTime(long nano) {
+            return displayText.commit(ClockEngine.TimeFormat.elapsed(displayText.chars, 0, nano));
+        }
+    }
+
+    // JList model over a stopwatch's laps, newest lap first. Rows are formatted on demand, so with a
+    // fixed cell size only the visible rows are ever turned into strings. The model keeps its own size
+    // and catches up in sync(): new laps are one intervalAdded at the top, a reset one intervalRemoved.
+    // The HTTP API laps and resets from its own thread, so the recorder is read under the stopwatch's lock.
+    static final class LapListModel extends AbstractListModel<String> {
+        private final ClockEngine.Stopwatch stopwatch;
+        private final ClockEngine.LapRecorder laps;
+        private final char[] row = new char[64];
+        private int size = 0, resets = 0;
+
+        LapListModel(ClockEngine.Stopwatch stopwatch) {
+            this.stopwatch = stopwatch;
+            laps = stopwatch.laps();
         }
 
-        private long getElapsedNano() {
-            if (running) {
-                long now = System.nanoTime();
-                return elapsedBeforeNano + (now - startTimeNano);
-            } else {
-                return elapsedBeforeNano;
+        void sync() {
+            int n, r;
+            synchronized (stopwatch) {
+                n = laps.size();
+                r = stopwatch.resets();
+            }
+            // reset since the last sync, perhaps already with as many new laps: every row goes
+            if (n < size || r != resets) {
+                int old = size;
+                size = 0;
+                if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+            }
+            resets = r;
+            if (n > size) {
+                int added = n - size;
+                size = n;
+                fireIntervalAdded(this, 0, added - 1);
             }
         }
 
-        private String formatTime(long nano) {
-            long ms = nano / 1_000_000;
-            long centis = (ms / 10) % 100;
-            long seconds = (ms / 1000) % 60;
-            long minutes = (ms / (1000*60)) % 60;
-            long hours = (ms / (1000*60*60));
-            if (hours > 0)
-                return String.format("%02d:%02d:%02d.%02d", hours, minutes, seconds, centis);
-            return String.format("%02d:%02d.%02d", minutes, seconds, centis);
+        @Override
+        public int getSize() { return size; }
+
+        // "Lap 01  mm:ss.cc  +mm:ss.cc" (elapsed, then split)
+        @Override
+        public String getElementAt(int index) {
+            int lap = size - 1 - index;
+            long elapsed, split;
+            synchronized (stopwatch) {
+                if (lap >= laps.size()) return ""; // reset since the last sync; the row is about to go
+                elapsed = laps.elapsed(lap);
+                split = laps.split(lap);
+            }
+            int i = ClockEngine.TimeFormat.lap(row, lap + 1, elapsed);
+            row[i++] = ' ';
+            row[i++] = ' ';
+            row[i++] = '+';
+            i = ClockEngine.TimeFormat.elapsed(row, i, split);
+            return new String(row, 0, i);
         }
     }
 
     // ------------------ Timer Panel ------------------
-    private class TimerPanel extends JPanel {
+    static class TimerPanel extends JPanel {
+        // the engine countdown behind this tab (/timers/timer in the HTTP API)
+        static final String COUNTDOWN = "timer";
         private JLabel display;
         private JButton startBtn, pauseBtn, resetBtn;
         private JProgressBar progress;
         private JComboBox<String> presetCombo;
         private JSpinner minutesSpinner, secondsSpinner;
-        private javax.swing.Timer countdownTimer;
-
-        private long totalMillis = 0;
-        private long remainingMillis = 0;
-        private boolean running = false;
-        private long lastTick = 0;
+        private TickScheduler.Registration countdownTick;
+        private final RenderPolicy policy;
+        private final ClockEngine.CountdownEngine.Countdown countdown;
+        private final ClockEngine.TextBuffer displayText = new ClockEngine.TextBuffer(24);
+        // the bar's label, "0%" .. "100%"; set only when the whole percent changes
+        private static final String[] PERCENT = new String[101];
+        static {
+            for (int i = 0; i < PERCENT.length; i++) PERCENT[i] = i + "%";
+        }
+        private int percentShown = -1;
 
-        TimerPanel() {
+        TimerPanel(TickScheduler ticks, ClockEngine engine) {
             setOpaque(true);
             setBackground(BG);
             setLayout(new BorderLayout(12,12));
@@ -312,7 +677,7 @@ public class NeonClockApp extends JFrame {
             JPanel top = createGlassPanel(new BorderLayout());
             top.setPreferredSize(new Dimension(760, 140));
             display = new JLabel("00:00.00", SwingConstants.CENTER);
-            display.setFont(new Font("Digital-7 Mono", Font.BOLD, 48));
+            display.setFont(new Font(DIGITAL_FONT, Font.BOLD, 48));
             display.setForeground(NEON);
             top.add(display, BorderLayout.CENTER);
 
@@ -356,86 +721,115 @@ public class NeonClockApp extends JFrame {
             pauseBtn.addActionListener(e -> pauseTimer());
             resetBtn.addActionListener(e -> resetTimer());
 
-            countdownTimer = new javax.swing.Timer(50, e -> tick());
+            // expiry is scheduled by the countdown engine, so the display tick can stop while the
+            // tab is hidden without delaying the alarm; it may already be running (the HTTP API)
+            ClockEngine.CountdownEngine.Countdown c = engine.countdowns().get(COUNTDOWN);
+            countdown = c != null ? c : engine.countdown(COUNTDOWN);
+            engine.addListener(new ClockEngine.Listener() {
+                // also started and paused from elsewhere (the HTTP API)
+                @Override
+                public void countdownChanged(ClockEngine.CountdownEngine.Countdown c) {
+                    if (c == countdown) onEdt(() -> {
+                        countdownTick.setActive(countdown.isRunning());
+                        tick();
+                    });
+                }
+
+                @Override
+                public void countdownExpired(ClockEngine.CountdownEngine.Countdown c) {
+                    if (c == countdown) SwingUtilities.invokeLater(TimerPanel.this::tick);
+                }
+            });
+            // while running: a frame interval from the render policy, or each displayed second
+            policy = ticks.policy;
+            countdownTick = ticks.register("timer-countdown", this, 0, this::tick);
+            countdownTick.setActive(countdown.isRunning());
+            policy.addListener(() -> countdownTick.wakeAt(System.nanoTime()));
+            if (countdown.remainingNanos() > 0) tick();
         }
 
         private void startTimer() {
-            if (!running) {
-                if (remainingMillis <= 0) {
-                    int mins = (Integer) minutesSpinner.getValue();
-                    int secs = (Integer) secondsSpinner.getValue();
-                    totalMillis = (mins*60L + secs) * 1000L;
-                    remainingMillis = totalMillis;
-                    if (totalMillis <= 0) {
-                        JOptionPane.showMessageDialog(this, "Set a duration > 0");
-                        return;
-                    }
+            if (countdown.isRunning()) return;
+            if (countdown.remainingNanos() <= 0) {
+                int mins = (Integer) minutesSpinner.getValue();
+                int secs = (Integer) secondsSpinner.getValue();
+                long totalMillis = (mins*60L + secs) * 1000L;
+                if (totalMillis <= 0) {
+                    JOptionPane.showMessageDialog(this, "Set a duration > 0");
+                    return;
                 }
-                running = true;
-                lastTick = System.nanoTime();
-                countdownTimer.start();
+                countdown.set(totalMillis * 1_000_000L);
             }
+            countdown.start();
+            countdownTick.setActive(true);
         }
 
         private void pauseTimer() {
-            if (running) {
-                countdownTimer.stop();
-                running = false;
-            }
+            countdown.pause();
+            countdownTick.setActive(false);
         }
 
         private void resetTimer() {
-            countdownTimer.stop();
-            running = false;
-            remainingMillis = 0;
-            totalMillis = 0;
+            NotificationDispatcher.shared().cancel("timer");
+            countdown.set(0);
+            countdownTick.setActive(false);
             progress.setValue(0);
+            showPercent(0);
             display.setText("00:00.00");
         }
 
+        // display only: remaining time is derived from the countdown's deadline
         private void tick() {
-            long now = System.nanoTime();
-            long delta = (now - lastTick) / 1_000_000; // ms
-            lastTick = now;
-            remainingMillis -= delta;
-            if (remainingMillis <= 0) {
-                remainingMillis = 0;
-                countdownTimer.stop();
-                running = false;
+            long remainingMillis = countdown.remainingNanos() / 1_000_000;
+            long totalMillis = countdown.durationNanos() / 1_000_000;
+            if (countdown.isExpired()) {
+                countdownTick.setActive(false);
                 display.setText("00:00.00");
                 progress.setValue(progress.getMaximum());
-                // alarm sound
-                new Thread(() -> playTone(800, 1200, 250)).start();
-                JOptionPane.showMessageDialog(this, "Timer finished!");
+                showPercent(100);
                 return;
             }
-            // update UI
             display.setText(formatTimer(remainingMillis));
+            if (countdown.isRunning()) {
+                int ms = policy.level().counterMs;
+                countdownTick.wakeAt(ms >= 1000 ? RenderPolicy.after(remainingMillis % 1000) : System.nanoTime() + ms * 1_000_000L);
+            }
             if (totalMillis > 0) {
-                int val = (int) ((1.0 - (double) remainingMillis / totalMillis) * progress.getMaximum());
-                progress.setValue(Math.max(0, Math.min(progress.getMaximum(), val)));
-                progress.setString(String.format("%d%%", (int)(100.0*val/progress.getMaximum())));
+                int max = progress.getMaximum();
+                int val = Math.max(0, Math.min(max, (int) ((1.0 - (double) remainingMillis / totalMillis) * max)));
+                progress.setValue(val);
+                showPercent((int) (100L * val / max));
             }
         }
 
-        private String formatTimer(long ms) {
-            long centis = (ms / 10) % 100;
-            long seconds = (ms / 1000) % 60;
-            long minutes = (ms / (1000*60));
-            return String.format("%02d:%02d.%02d", minutes, seconds, centis);
+        private void showPercent(int p) {
+            if (p == percentShown) return;
+            percentShown = p;
+            progress.setString(PERCENT[p]);
+        }
+
+        String formatTimer(long ms) {
+            return displayText.commit(ClockEngine.TimeFormat.countdown(displayText.chars, 0, ms));
         }
     }
 
     // ------------------ Alarm Panel ------------------
-    private class AlarmPanel extends JPanel {
-        private DefaultListModel<String> alarmModel;
-        private JList<String> alarmList;
+    static class AlarmPanel extends JPanel {
+        private final AlarmListModel alarmModel = new AlarmListModel();
+        private JList<ClockEngine.AlarmItem> alarmList;
         private JTextField timeField; // HH:mm
-        private JButton addBtn, removeBtn, enableBtn, disableBtn;
-        private final List<AlarmItem> alarms = new CopyOnWriteArrayList<>();
-        private javax.swing.Timer checkTimer;
-
-        AlarmPanel() {
+        private JComboBox<String> repeatCombo; // a Recurrence in its text form, or "once"
+        private JButton addBtn, removeBtn, enableBtn, disableBtn, importBtn, exportBtn;
+        private JLabel status;
+        private final ClockEngine.AlarmService alarms;
+        private final ZoneId zone;
+        static final int[] ALARM_TONES = {880, 1000, 1120};
+
+        // the engine schedules and fires the alarms (also while the tab is hidden or minimised, or
+        // was never opened) and the app turns them into notifications; this panel only mirrors the list
+        AlarmPanel(TickScheduler ticks, ClockEngine engine) {
+            alarms = engine.alarms();
+            zone = engine.clock().zone();
             setOpaque(true);
             setBackground(BG);
             setLayout(new BorderLayout(12,12));
@@ -451,201 +845,2957 @@ public class NeonClockApp extends JFrame {
             timeField.setText(LocalTime.now().plusMinutes(1).format(HOUR_MIN_FMT));
             g.gridx = 1;
             top.add(timeField, g);
-            addBtn = neonButton("Add Alarm", NEON);
+            repeatCombo = new JComboBox<>(new String[]{"daily", "weekdays", "weekends", "once", "every 15m", "every 1h", "mon wed fri"});
+            repeatCombo.setEditable(true);
+            repeatCombo.setToolTipText("daily, weekdays, weekends, once, once 2026-12-24, every 30m, or days such as \"mon wed fri\"");
             g.gridx = 2;
+            top.add(repeatCombo, g);
+            addBtn = neonButton("Add Alarm", NEON);
+            g.gridx = 3;
             top.add(addBtn, g);
+            // sorting and filtering only re-index the model; the alarms themselves are not copied
+            JComboBox<AlarmListModel.Filter> filterCombo = new JComboBox<>(AlarmListModel.Filter.values());
+            JComboBox<AlarmListModel.Order> orderCombo = new JComboBox<>(AlarmListModel.Order.values());
+            filterCombo.addActionListener(e -> keepSelection(() -> alarmModel.setFilter((AlarmListModel.Filter) filterCombo.getSelectedItem())));
+            orderCombo.addActionListener(e -> keepSelection(() -> alarmModel.setOrder((AlarmListModel.Order) orderCombo.getSelectedItem())));
+            JPanel view = new JPanel(new FlowLayout(FlowLayout.CENTER, 8, 0));
+            view.setOpaque(false);
+            view.add(new JLabel("Show"));
+            view.add(filterCombo);
+            view.add(new JLabel("Sort"));
+            view.add(orderCombo);
+            g.gridx = 0; g.gridy = 1; g.gridwidth = 4;
+            top.add(view, g);
 
             add(top, BorderLayout.NORTH);
 
-            alarmModel = new DefaultListModel<>();
             alarmList = new JList<>(alarmModel);
+            alarmList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
             alarmList.setFont(new Font("Monospaced", Font.PLAIN, 14));
             alarmList.setBackground(new Color(10,12,16));
             alarmList.setForeground(new Color(200,220,240));
+            alarmList.setCellRenderer(new AlarmCellRenderer());
+            // fixed row size: a roster of 100k alarms is not measured row by row
+            ClockEngine.AlarmItem prototype = new ClockEngine.AlarmItem(LocalTime.MIDNIGHT,
+                    ClockEngine.Recurrence.every(1439, LocalDate.now(zone)), false, new UUID(0, 0));
+            prototype.triggeredToday = true;
+            alarmList.setPrototypeCellValue(prototype);
             add(new JScrollPane(alarmList), BorderLayout.CENTER);
 
-            JPanel right = new JPanel(new GridLayout(4,1,8,8));
+            JPanel right = new JPanel(new GridLayout(5,1,8,8));
             right.setOpaque(false);
             removeBtn = neonButton("Remove Selected", new Color(255,120,120));
             enableBtn = neonButton("Enable", NEON);
             disableBtn = neonButton("Disable", new Color(200,200,200));
-            right.add(enableBtn); right.add(disableBtn); right.add(removeBtn);
+            importBtn = neonButton("Import…", NEON_ALT);
+            exportBtn = neonButton("Export…", NEON_ALT);
+            right.add(enableBtn); right.add(disableBtn); right.add(removeBtn); right.add(importBtn); right.add(exportBtn);
             add(right, BorderLayout.EAST);
 
+            status = new JLabel(" ");
+            status.setForeground(new Color(170, 200, 220));
+            add(status, BorderLayout.SOUTH);
+
             // actions
             addBtn.addActionListener(e -> addAlarm());
             removeBtn.addActionListener(e -> removeSelectedAlarm());
             enableBtn.addActionListener(e -> setSelectedAlarmEnabled(true));
             disableBtn.addActionListener(e -> setSelectedAlarmEnabled(false));
+            importBtn.addActionListener(e -> importAlarms());
+            exportBtn.addActionListener(e -> exportAlarms());
+
+            engine.addListener(new ClockEngine.Listener() {
+                // the model replays the engine's events on the EDT; a batch (an import) is one model event
+                @Override
+                public void alarmsAdded(List<ClockEngine.AlarmItem> added) {
+                    onEdt(() -> keepSelection(() -> alarmModel.added(added)));
+                }
 
-            // load any pre-saved? (not persisting in this demo)
-            // periodic check
-            checkTimer = new javax.swing.Timer(1000, e -> checkAlarms());
-            checkTimer.start();
+                @Override
+                public void alarmRemoved(ClockEngine.AlarmItem ai, int index) {
+                    onEdt(() -> alarmModel.removed(ai, index));
+                }
+
+                // only the rows that changed are repainted
+                @Override
+                public void alarmsChanged(List<ClockEngine.AlarmItem> changed) {
+                    onEdt(() -> alarmModel.changed(changed));
+                }
+            });
+            alarmModel.added(alarms.snapshot());
+        }
+
+        // a reset (re-sort, refilter, bulk insert) would otherwise leave the selection on whatever
+        // alarm now occupies its old row
+        private void keepSelection(Runnable update) {
+            ClockEngine.AlarmItem selected = alarmList.getSelectedValue();
+            update.run();
+            if (selected == null) return;
+            int row = alarmModel.rowOf(selected);
+            if (row < 0) alarmList.clearSelection();
+            else if (alarmList.getSelectedIndex() != row) alarmList.setSelectedIndex(row);
         }
 
         private void addAlarm() {
             String txt = timeField.getText().trim();
+            LocalTime t;
             try {
-                LocalTime t = LocalTime.parse(txt, HOUR_MIN_FMT);
-                AlarmItem ai = new AlarmItem(t, true, UUID.randomUUID().toString());
-                alarms.add(ai);
-                alarmModel.addElement(ai.toDisplay());
-                JOptionPane.showMessageDialog(this, "Alarm added for " + t.format(HOUR_MIN_FMT));
+                t = LocalTime.parse(txt, HOUR_MIN_FMT);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Invalid time format. Use HH:mm (24-hour). Example: 07:30 or 19:45");
+                return;
+            }
+            String rule = String.valueOf(repeatCombo.getSelectedItem()).trim();
+            LocalDate today = LocalDate.now(zone);
+            ClockEngine.Recurrence repeat;
+            try {
+                // plain "once": the next time the clock shows t
+                repeat = rule.equalsIgnoreCase("once")
+                        ? ClockEngine.Recurrence.once(t.isAfter(LocalTime.now(zone)) ? today : today.plusDays(1))
+                        : ClockEngine.Recurrence.parse(rule, today);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage() + ". Try daily, weekdays, weekends, once, every 30m or mon wed fri");
+                return;
             }
+            addAlarm(t, repeat, true);
+            status.setText("Alarm added for " + t.format(HOUR_MIN_FMT) + ", " + repeat);
+        }
+
+        // add without any dialog
+        ClockEngine.AlarmItem addAlarm(LocalTime t, boolean enabled) {
+            return alarms.add(t, enabled);
+        }
+
+        ClockEngine.AlarmItem addAlarm(LocalTime t, ClockEngine.Recurrence repeat, boolean enabled) {
+            return alarms.add(t, repeat, enabled);
         }
 
         private void removeSelectedAlarm() {
-            int i = alarmList.getSelectedIndex();
-            if (i == -1) return;
-            alarms.remove(i);
-            alarmModel.remove(i);
+            ClockEngine.AlarmItem ai = alarmList.getSelectedValue();
+            if (ai == null) return;
+            NotificationDispatcher.shared().cancel("alarm:" + ai.id);
+            alarms.remove(ai);
         }
 
         private void setSelectedAlarmEnabled(boolean en) {
-            int i = alarmList.getSelectedIndex();
-            if (i == -1) return;
-            AlarmItem ai = alarms.get(i);
-            ai.enabled = en;
-            alarmModel.set(i, ai.toDisplay());
-        }
-
-        private void checkAlarms() {
-            LocalTime now = LocalTime.now().withSecond(0).withNano(0);
-            for (AlarmItem ai : alarms) {
-                if (!ai.triggeredToday && ai.enabled && ai.time.equals(now)) {
-                    // trigger
-                    ai.triggeredToday = true;
-                    // show notification and play tone
-                    new Thread(() -> {
-                        // play multi-tone pattern
-                        for (int k=0;k<3;k++) {
-                            playTone(880 + k*120, 1200, 350);
-                            try { Thread.sleep(250); } catch (InterruptedException ex) {}
-                        }
-                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(AlarmPanel.this, "Alarm! " + ai.time.format(HOUR_MIN_FMT)));
-                    }).start();
+            ClockEngine.AlarmItem ai = alarmList.getSelectedValue();
+            if (ai == null) return;
+            if (!en) NotificationDispatcher.shared().cancel("alarm:" + ai.id);
+            alarms.setEnabled(ai, en);
+        }
+
+        // CSV or iCalendar roster: parsed and validated on a worker, then (after a confirmation if
+        // some rows are invalid) inserted as one batch on another; the EDT only updates the status
+        private void importAlarms() {
+            JFileChooser fc = rosterChooser();
+            if (fc.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            java.nio.file.Path file = fc.getSelectedFile().toPath();
+            setTransferring(true);
+            status.setText("Reading " + file.getFileName() + "…");
+            new SwingWorker<ClockEngine.AlarmTransfer.Parsed, Integer>() {
+                @Override
+                protected ClockEngine.AlarmTransfer.Parsed doInBackground() throws Exception {
+                    try (java.io.Reader r = java.nio.file.Files.newBufferedReader(file)) {
+                        return ClockEngine.AlarmTransfer.read(r, ClockEngine.AlarmTransfer.Format.of(file), zone, n -> publish(n));
+                    }
                 }
-                // reset triggeredToday at midnight
-                if (LocalTime.now().isBefore(LocalTime.of(0,1))) {
-                    ai.triggeredToday = false;
+
+                @Override
+                protected void process(List<Integer> rows) {
+                    status.setText(String.format("Reading %s… %,d rows", file.getFileName(), rows.get(rows.size() - 1)));
                 }
-            }
-            // update list display (for visual status)
-            SwingUtilities.invokeLater(() -> {
-                alarmModel.clear();
-                for (AlarmItem ai : alarms) alarmModel.addElement(ai.toDisplay());
-            });
+
+                @Override
+                protected void done() {
+                    ClockEngine.AlarmTransfer.Parsed p;
+                    try {
+                        p = get();
+                    } catch (Exception ex) {
+                        transferFailed("Import", ex);
+                        return;
+                    }
+                    if (p.invalid > 0 && !confirmPartialImport(p)) {
+                        setTransferring(false);
+                        status.setText("Import cancelled");
+                        return;
+                    }
+                    insert(p, file);
+                }
+            }.execute();
+        }
+
+        private void insert(ClockEngine.AlarmTransfer.Parsed p, java.nio.file.Path file) {
+            status.setText(String.format("Adding %,d alarms…", p.size()));
+            new SwingWorker<Long, Void>() {
+                @Override
+                protected Long doInBackground() {
+                    long t0 = System.nanoTime();
+                    alarms.addAll(p.times, p.repeats, p.enabled);
+                    return System.nanoTime() - t0;
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        long insertNanos = get(), total = p.nanos + insertNanos;
+                        status.setText(String.format("Imported %,d alarms from %s in %.2f s (parse %.2f s, insert %.2f s, %,.0f rows/s)",
+                                p.size(), file.getFileName(), total / 1e9, p.nanos / 1e9, insertNanos / 1e9, p.size() * 1e9 / Math.max(1, total)));
+                        setTransferring(false);
+                    } catch (Exception ex) {
+                        transferFailed("Import", ex);
+                    }
+                }
+            }.execute();
         }
 
-        class AlarmItem {
-            LocalTime time;
-            boolean enabled;
-            boolean triggeredToday = false;
-            String id;
-            AlarmItem(LocalTime t, boolean e, String id) { time = t; enabled = e; this.id = id; }
-            String toDisplay() {
-                return String.format("%s  [%s]  %s", time.format(HOUR_MIN_FMT), enabled ? "ENABLED " : "DISABLED", triggeredToday ? "(triggered today)" : "");
+        // true to go ahead with the valid rows
+        private boolean confirmPartialImport(ClockEngine.AlarmTransfer.Parsed p) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < Math.min(15, p.errors.size()); i++) sb.append(p.errors.get(i)).append('\n');
+            if (p.invalid > 15) sb.append("…and ").append(p.invalid - 15).append(" more\n");
+            if (p.size() == 0) {
+                JOptionPane.showMessageDialog(this, "No valid alarms found.\n\n" + sb, "Import", JOptionPane.WARNING_MESSAGE);
+                return false;
             }
+            return JOptionPane.showConfirmDialog(this, String.format("%,d rows are invalid:%n%n%s%nImport the %,d valid alarms?",
+                    p.invalid, sb, p.size()), "Import", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.OK_OPTION;
+        }
+
+        private void exportAlarms() {
+            JFileChooser fc = rosterChooser();
+            fc.setSelectedFile(new java.io.File("alarms.csv"));
+            if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            java.nio.file.Path file = fc.getSelectedFile().toPath();
+            setTransferring(true);
+            status.setText("Writing " + file.getFileName() + "…");
+            new SwingWorker<Integer, Void>() {
+                private long nanos;
+
+                @Override
+                protected Integer doInBackground() throws Exception {
+                    long t0 = System.nanoTime();
+                    try (java.io.Writer w = java.nio.file.Files.newBufferedWriter(file)) {
+                        int n = ClockEngine.AlarmTransfer.write(w, ClockEngine.AlarmTransfer.Format.of(file), alarms.snapshot(), zone);
+                        nanos = System.nanoTime() - t0;
+                        return n;
+                    }
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        status.setText(String.format("Exported %,d alarms to %s in %.2f s", get(), file.getFileName(), nanos / 1e9));
+                        setTransferring(false);
+                    } catch (Exception ex) {
+                        transferFailed("Export", ex);
+                    }
+                }
+            }.execute();
+        }
+
+        private static JFileChooser rosterChooser() {
+            JFileChooser fc = new JFileChooser();
+            fc.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Alarm rosters (CSV, iCalendar)", "csv", "txt", "ics", "ical"));
+            return fc;
+        }
+
+        private void setTransferring(boolean busy) {
+            importBtn.setEnabled(!busy);
+            exportBtn.setEnabled(!busy);
+        }
+
+        private void transferFailed(String what, Exception ex) {
+            Throwable cause = ex instanceof java.util.concurrent.ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+            setTransferring(false);
+            status.setText(what + " failed");
+            JOptionPane.showMessageDialog(this, what + " failed: " + cause.getMessage(), what, JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    // -------------------- Utilities --------------------
+    // JList model that is a view over the alarms, not a copy of their text. It mirrors the engine's
+    // alarm list (references, in engine order, replayed from the listener events on the EDT) and
+    // shows it through an index: view[row] is an item index, kept sorted by the current order and
+    // holding only the items that pass the filter. Both orders depend only on an item's time and
+    // position, which never change, so a state change is one binary search and either one
+    // contentsChanged row or, when the item crosses the filter, one row in or out. Formatting is
+    // left to AlarmCellRenderer, so only the visible rows ever become strings.
+    static final class AlarmListModel extends AbstractListModel<ClockEngine.AlarmItem> {
+        enum Order {
+            ADDED("Order added"), TIME("By time");
+
+            private final String label;
+            Order(String label) { this.label = label; }
+            @Override public String toString() { return label; }
+        }
 
-    // create a frosted glass panel style
-    private JPanel createGlassPanel(LayoutManager lm) {
-        JPanel p = new JPanel(lm) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                // translucent rounded rectangle
-                Graphics2D g2 = (Graphics2D) g.create();
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                int arc = 18;
-                g2.setColor(PANEL);
-                g2.fillRoundRect(0, 0, getWidth(), getHeight(), arc, arc);
-                // inner border glow
-                g2.setColor(new Color(0,0,0,60));
-                g2.setStroke(new BasicStroke(1.5f));
-                g2.drawRoundRect(1,1,getWidth()-3,getHeight()-3,arc,arc);
-                g2.dispose();
-                super.paintComponent(g);
+        enum Filter {
+            ALL("All"), ENABLED("Enabled"), DISABLED("Disabled"), FIRED("Fired today");
+
+            private final String label;
+            Filter(String label) { this.label = label; }
+            @Override public String toString() { return label; }
+
+            boolean test(ClockEngine.AlarmItem ai) {
+                switch (this) {
+                    case ENABLED: return ai.enabled;
+                    case DISABLED: return !ai.enabled;
+                    case FIRED: return ai.triggeredToday;
+                    default: return true;
+                }
             }
-        };
-        p.setOpaque(false);
-        p.setBorder(new EmptyBorder(12,12,12,12));
-        return p;
-    }
+        }
 
-    // create neon styled JButton
-    private JButton neonButton(String text, Color accent) {
-        JButton b = new JButton(text);
-        b.setFont(new Font("SansSerif", Font.BOLD, 14));
-        b.setForeground(Color.WHITE);
-        b.setBackground(new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), 220));
-        b.setFocusPainted(false);
-        b.setBorder(BorderFactory.createEmptyBorder(8,14,8,14));
-        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        b.addMouseListener(new java.awt.event.MouseAdapter() {
-            @Override
-            public void mouseEntered(MouseEvent e) { b.setBackground(accent.darker()); }
-            @Override
-            public void mouseExited(MouseEvent e) { b.setBackground(new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), 220)); }
-        });
-        return b;
-    }
+        // a batch this small is inserted row by row (precise events, the selection follows);
+        // anything larger is merged in one pass and announced as a reset
+        private static final int INCREMENTAL_BATCH = 64;
 
-    // blend two colors (simple)
-    private static Color blend(Color a, Color b, float ratio) {
-        ratio = Math.max(0f, Math.min(1f, ratio));
-        int r = (int) (a.getRed() * (1 - ratio) + b.getRed() * ratio);
-        int g = (int) (a.getGreen() * (1 - ratio) + b.getGreen() * ratio);
-        int bl = (int) (a.getBlue() * (1 - ratio) + b.getBlue() * ratio);
-        return new Color(Math.max(0, Math.min(255,r)), Math.max(0, Math.min(255,g)), Math.max(0, Math.min(255,bl)));
-    }
+        private final List<ClockEngine.AlarmItem> items = new ArrayList<>();
+        private final Map<ClockEngine.AlarmItem, Integer> itemIndex = new HashMap<>();
+        private int[] view = new int[16];
+        private int viewSize = 0;
+        private Order order = Order.ADDED;
+        private Filter filter = Filter.ALL;
+
+        @Override
+        public int getSize() { return viewSize; }
+
+        @Override
+        public ClockEngine.AlarmItem getElementAt(int row) { return items.get(view[row]); }
+
+        Order order() { return order; }
+        Filter filter() { return filter; }
+
+        void setOrder(Order o) {
+            if (o == order) return;
+            order = o;
+            rebuild();
+        }
+
+        void setFilter(Filter f) {
+            if (f == filter) return;
+            filter = f;
+            rebuild();
+        }
+
+        // row currently showing ai, or -1 when it is filtered out or gone
+        int rowOf(ClockEngine.AlarmItem ai) {
+            Integer idx = itemIndex.get(ai);
+            if (idx == null) return -1;
+            int row = search(idx);
+            return row < viewSize && view[row] == idx ? row : -1;
+        }
+
+        // alarms already in the model are skipped: the engine notifies outside its lock, so an alarm
+        // added while the panel was being built can be both in its snapshot and replayed after it
+        void added(List<ClockEngine.AlarmItem> batch) {
+            int first = items.size();
+            for (ClockEngine.AlarmItem ai : batch) {
+                if (itemIndex.containsKey(ai)) continue;
+                itemIndex.put(ai, items.size());
+                items.add(ai);
+            }
+            if (items.size() == first) return;
+            if (order == Order.ADDED) {
+                // new items sort after every existing one: one interval at the end
+                int from = viewSize;
+                for (int idx = first; idx < items.size(); idx++) if (filter.test(items.get(idx))) append(idx);
+                if (viewSize > from) fireIntervalAdded(this, from, viewSize - 1);
+            } else if (items.size() - first <= INCREMENTAL_BATCH) {
+                for (int idx = first; idx < items.size(); idx++) if (filter.test(items.get(idx))) insert(idx);
+            } else {
+                rebuild();
+            }
+        }
+
+        void removed(ClockEngine.AlarmItem ai, int index) {
+            if (index >= items.size() || items.get(index) != ai) index = items.indexOf(ai);
+            if (index < 0) return;
+            int row = search(index);
+            if (row < viewSize && view[row] == index) {
+                System.arraycopy(view, row + 1, view, row, viewSize - row - 1);
+                viewSize--;
+            } else {
+                row = -1;
+            }
+            // later items move up one place; the view's order is unaffected
+            for (int r = 0; r < viewSize; r++) if (view[r] > index) view[r]--;
+            items.remove(index);
+            itemIndex.remove(ai);
+            for (int idx = index; idx < items.size(); idx++) itemIndex.put(items.get(idx), idx);
+            if (row >= 0) fireIntervalRemoved(this, row, row);
+        }
+
+        // only the rows whose item changed are touched
+        void changed(List<ClockEngine.AlarmItem> changed) {
+            for (ClockEngine.AlarmItem ai : changed) {
+                Integer idx = itemIndex.get(ai);
+                if (idx == null) continue;
+                int row = search(idx);
+                boolean shown = row < viewSize && view[row] == idx, passes = filter.test(ai);
+                if (shown && passes) {
+                    fireContentsChanged(this, row, row);
+                } else if (shown) {
+                    System.arraycopy(view, row + 1, view, row, viewSize - row - 1);
+                    viewSize--;
+                    fireIntervalRemoved(this, row, row);
+                } else if (passes) {
+                    insert(idx);
+                }
+            }
+        }
+
+        // recomputes the whole view: O(n log n) on primitive keys, then one reset event
+        private void rebuild() {
+            int old = viewSize;
+            long[] keys = new long[items.size()];
+            int n = 0;
+            for (int idx = 0; idx < items.size(); idx++) {
+                ClockEngine.AlarmItem ai = items.get(idx);
+                if (filter.test(ai)) keys[n++] = (order == Order.TIME ? (long) ai.time.toSecondOfDay() << 32 : 0) | idx;
+            }
+            if (order == Order.TIME) Arrays.sort(keys, 0, n);
+            if (view.length < n) view = new int[n];
+            for (int r = 0; r < n; r++) view[r] = (int) keys[r];
+            viewSize = n;
+            if (old > n) fireIntervalRemoved(this, n, old - 1);
+            if (n > old) fireIntervalAdded(this, old, n - 1);
+            if (Math.min(old, n) > 0) fireContentsChanged(this, 0, Math.min(old, n) - 1);
+        }
+
+        private void insert(int idx) {
+            int row = search(idx);
+            if (viewSize == view.length) view = Arrays.copyOf(view, viewSize * 2);
+            System.arraycopy(view, row, view, row + 1, viewSize - row);
+            view[row] = idx;
+            viewSize++;
+            fireIntervalAdded(this, row, row);
+        }
+
+        private void append(int idx) {
+            if (viewSize == view.length) view = Arrays.copyOf(view, viewSize * 2);
+            view[viewSize++] = idx;
+        }
+
+        // first row whose item does not sort before item index idx
+        private int search(int idx) {
+            int lo = 0, hi = viewSize;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(view[mid], idx) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
 
-    // play a sine tone (frequencyHz) for durationMs at given sampleRate; non-blocking wrapper recommended
-    private static void playTone(int frequencyHz, int sampleRate, int durationMs) {
-        try {
-            byte[] buf = createSineWaveBuffer(frequencyHz, sampleRate, durationMs);
-            AudioFormat af = new AudioFormat(sampleRate, 8, 1, true, false);
-            try (SourceDataLine sdl = AudioSystem.getSourceDataLine(af)) {
-                sdl.open(af);
-                sdl.start();
-                sdl.write(buf, 0, buf.length);
-                sdl.drain();
+        private int compare(int a, int b) {
+            if (order == Order.TIME) {
+                int c = Integer.compare(items.get(a).time.toSecondOfDay(), items.get(b).time.toSecondOfDay());
+                if (c != 0) return c;
             }
-        } catch (LineUnavailableException e) {
-            Toolkit.getDefaultToolkit().beep();
-        } catch (Throwable t) {
-            Toolkit.getDefaultToolkit().beep();
+            return Integer.compare(a, b);
         }
     }
 
-    private static byte[] createSineWaveBuffer(int freq, int sampleRate, int ms) {
-        int samples = (ms * sampleRate) / 1000;
-        byte[] output = new byte[samples];
-        double period = (double)sampleRate / freq;
-        for (int i = 0; i < output.length; i++) {
-            double angle = 2.0 * Math.PI * i / period;
-            output[i] = (byte)(Math.sin(angle) * 127f);
+    // "HH:mm  [ENABLED ]  (triggered today)", formatted when the row is painted; disabled alarms dimmed
+    static final class AlarmCellRenderer extends DefaultListCellRenderer {
+        private static final String ENABLED = "  [ENABLED ]  ", DISABLED = "  [DISABLED]  ", TRIGGERED = "(triggered today)";
+        private static final Color DIM = new Color(120, 135, 150);
+        private final char[] row = new char[80];
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean selected, boolean focused) {
+            ClockEngine.AlarmItem ai = (ClockEngine.AlarmItem) value;
+            super.getListCellRendererComponent(list, ai == null ? "" : format(ai), index, selected, focused);
+            if (ai != null && !ai.enabled && !selected) setForeground(DIM);
+            return this;
+        }
+
+        String format(ClockEngine.AlarmItem ai) {
+            ClockEngine.TimeFormat.clock24(row, ai.time.toSecondOfDay());
+            int i = 5; // HH:mm
+            String state = ai.enabled ? ENABLED : DISABLED;
+            state.getChars(0, state.length(), row, i);
+            i += state.length();
+            String repeat = ai.repeat.toString();
+            repeat.getChars(0, repeat.length(), row, i);
+            i += repeat.length();
+            if (ai.triggeredToday) {
+                row[i++] = ' ';
+                row[i++] = ' ';
+                TRIGGERED.getChars(0, TRIGGERED.length(), row, i);
+                i += TRIGGERED.length();
+            }
+            return new String(row, 0, i);
         }
-        return output;
     }
 
-    // format stopwatch time - helper used in stopwatch inner class too
-    private static String formatTimeShort(long nano) {
-        long ms = nano / 1_000_000;
-        long centis = (ms / 10) % 100;
-        long seconds = (ms / 1000) % 60;
-        long minutes = (ms / (1000*60));
-        return String.format("%02d:%02d.%02d", minutes, seconds, centis);
+    // ------------------ Glyph Atlas ------------------
+    // Rasterises the display character set once per font, colour and device scale into one
+    // managed image (Java2D keeps it in video memory where it can), so drawing the time is a
+    // handful of image blits with no text layout or glyph rasterisation per frame. Only each
+    // glyph's ink bounds are blitted, not its whole (mostly transparent) cell.
+    static final class GlyphAtlas {
+        static final String CHARS = "0123456789:. APM";
+        private static final Map<String, GlyphAtlas> CACHE = new java.util.concurrent.ConcurrentHashMap<>();
+
+        final int height;                               // user-space cell height (ascent + descent)
+        private final int[] advance = new int[128];     // user-space advance per char
+        // ink rectangle of each glyph: pixels in the image, user-space offset/size inside the cell
+        private final int[] srcX = new int[128], srcY = new int[128], srcW = new int[128], srcH = new int[128];
+        private final int[] dstX = new int[128], dstY = new int[128], dstW = new int[128], dstH = new int[128];
+        private final double scale;
+        private final Image image;
+
+        static GlyphAtlas get(Font font, Color color, double scale) {
+            String key = font.getName() + '/' + font.getStyle() + '/' + font.getSize2D() + '/' + color.getRGB() + '/' + scale;
+            return CACHE.computeIfAbsent(key, k -> new GlyphAtlas(font, color, scale));
+        }
+
+        private GlyphAtlas(Font font, Color color, double scale) {
+            this.scale = scale;
+            FontMetrics fm = metrics(font);
+            height = fm.getAscent() + fm.getDescent();
+            Font px = font.deriveFont((float) (font.getSize2D() * scale));
+            FontMetrics pfm = metrics(px);
+            int cellH = (int) Math.ceil(height * scale);
+            int[] cellX = new int[128];
+            int x = 0;
+            for (int i = 0; i < CHARS.length(); i++) {
+                char c = CHARS.charAt(i);
+                advance[c] = fm.charWidth(c);
+                cellX[c] = x;
+                x += (int) Math.ceil(advance[c] * scale) + 2; // padding so filtering never bleeds into the neighbour
+            }
+            BufferedImage img = new BufferedImage(Math.max(1, x), Math.max(1, cellH), BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = img.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            g.setFont(px);
+            g.setColor(color);
+            for (int i = 0; i < CHARS.length(); i++) {
+                char c = CHARS.charAt(i);
+                if (c == ' ') continue;
+                int cellW = (int) Math.ceil(advance[c] * scale);
+                // centre the glyph in its cell in case the scaled advance rounds differently
+                g.drawString(String.valueOf(c), cellX[c] + (cellW - pfm.charWidth(c)) / 2, pfm.getAscent());
+                inkBounds(img, c, cellX[c], cellW, cellH);
+            }
+            g.dispose();
+            // copy into a display-compatible image so it can be cached on the GPU
+            BufferedImage managed = compatibleImage(img.getWidth(), img.getHeight());
+            Graphics2D mg = managed.createGraphics();
+            mg.setComposite(AlphaComposite.Src);
+            mg.drawImage(img, 0, 0, null);
+            mg.dispose();
+            image = managed;
+        }
+
+        private void inkBounds(BufferedImage img, char c, int cellX, int cellW, int cellH) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+            for (int y = 0; y < cellH; y++) {
+                for (int x = cellX; x < cellX + cellW; x++) {
+                    if ((img.getRGB(x, y) >>> 24) == 0) continue;
+                    if (x < minX) minX = x;
+                    if (x > maxX) maxX = x;
+                    if (y < minY) minY = y;
+                    if (y > maxY) maxY = y;
+                }
+            }
+            if (maxX < 0) return; // no ink
+            srcX[c] = minX;
+            srcY[c] = minY;
+            srcW[c] = maxX - minX + 1;
+            srcH[c] = maxY - minY + 1;
+            // user-space rectangle, rounded outwards so the whole ink stays covered
+            dstX[c] = (int) Math.floor((minX - cellX) / scale);
+            dstY[c] = (int) Math.floor(minY / scale);
+            dstW[c] = (int) Math.ceil((maxX + 1 - cellX) / scale) - dstX[c];
+            dstH[c] = (int) Math.ceil((maxY + 1) / scale) - dstY[c];
+            if (scale == 1.0) return;
+            // re-derive the source rectangle from the rounded destination to keep the mapping exact
+            srcX[c] = cellX + (int) Math.round(dstX[c] * scale);
+            srcY[c] = (int) Math.round(dstY[c] * scale);
+            srcW[c] = Math.min(cellX + cellW, (int) Math.round((dstX[c] + dstW[c]) * scale) + cellX) - srcX[c];
+            srcH[c] = Math.min(cellH, (int) Math.round((dstY[c] + dstH[c]) * scale)) - srcY[c];
+        }
+
+        int advance(char c) { return c < 128 ? advance[c] : 0; }
+
+        // blit c for a cell whose top-left corner is at (dx, dy) in user space
+        void draw(Graphics g, char c, int dx, int dy) {
+            if (c >= 128 || srcW[c] == 0) return;
+            int x = dx + dstX[c], y = dy + dstY[c];
+            g.drawImage(image, x, y, x + dstW[c], y + dstH[c],
+                    srcX[c], srcY[c], srcX[c] + srcW[c], srcY[c] + srcH[c], null);
+        }
+
+        private static FontMetrics metrics(Font f) {
+            Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            FontMetrics fm = g.getFontMetrics(f);
+            g.dispose();
+            return fm;
+        }
+
+        static BufferedImage compatibleImage(int w, int h) {
+            if (GraphicsEnvironment.isHeadless())
+                return new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+            return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration().createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+        }
+    }
+
+    // Text drawn from a GlyphAtlas. setText() repaints only the cells whose character or position
+    // changed. The glow is quantised into colour bands, each with its own pre-tinted atlas, so
+    // animating it is a plain blit from a different image: no layout and no per-pixel compositing.
+    static final class GlyphTextView extends JComponent {
+        private static final int TINT_LEVELS = 64;
+        private static final Telemetry.Probe PAINT = Telemetry.probe("GlyphTextView");
+
+        private final Font font;
+        private final Color base, tint;
+        private final Color[] bands = new Color[TINT_LEVELS];
+        private final String sizingText;
+        private char[] text = new char[0];
+        private int length = 0;
+        private int[] xs = new int[1];      // cell offsets relative to the text origin (length + 1 entries)
+        private int tintLevel = 0;
+
+        GlyphTextView(Font font, Color base, Color tint, String sizingText) {
+            this.font = font;
+            this.base = base;
+            this.tint = tint;
+            this.sizingText = sizingText;
+            setOpaque(false);
+        }
+
+        void setText(char[] src, int len) {
+            GlyphAtlas a = GlyphAtlas.get(font, base, 1.0);
+            if (text.length < len) {
+                text = Arrays.copyOf(text, len);
+                xs = Arrays.copyOf(xs, len + 1);
+            }
+            int oldLen = length, oldWidth = xs[oldLen];
+            int x = 0, firstDirty = -1, lastDirty = -1;
+            for (int i = 0; i < len; i++) {
+                if (i >= oldLen || xs[i] != x || text[i] != src[i]) {
+                    if (firstDirty < 0) firstDirty = i;
+                    lastDirty = i;
+                }
+                text[i] = src[i];
+                xs[i] = x;
+                x += a.advance(src[i]);
+            }
+            xs[len] = x;
+            length = len;
+            if (x != oldWidth || len != oldLen) {
+                repaint(); // width changed, so the centred origin moved
+            } else if (firstDirty >= 0) {
+                repaint(originX() + xs[firstDirty], originY(a), xs[lastDirty + 1] - xs[firstDirty], a.height);
+            }
+        }
+
+        // fraction of the tint colour mixed into the base colour
+        static int tintLevel(float amount) {
+            return Math.round(Math.max(0f, Math.min(1f, amount)) * (TINT_LEVELS - 1));
+        }
+
+        void setTint(float amount) {
+            int level = tintLevel(amount);
+            if (level == tintLevel) return;
+            tintLevel = level;
+            GlyphAtlas a = GlyphAtlas.get(font, base, 1.0);
+            repaint(originX(), originY(a), xs[length], a.height);
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            if (isPreferredSizeSet()) return super.getPreferredSize();
+            GlyphAtlas a = GlyphAtlas.get(font, base, 1.0);
+            int w = 0;
+            for (int i = 0; i < sizingText.length(); i++) w += a.advance(sizingText.charAt(i));
+            Insets in = getInsets();
+            return new Dimension(w + in.left + in.right, a.height + in.top + in.bottom);
+        }
+
+        private int originX() { return (getWidth() - xs[length]) / 2; }
+        private int originY(GlyphAtlas a) { return (getHeight() - a.height) / 2; }
+
+        private Color band(int level) {
+            Color c = bands[level];
+            if (c == null) c = bands[level] = blend(base, tint, level / (float) (TINT_LEVELS - 1));
+            return c;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            long t0 = System.nanoTime();
+            double scale = ((Graphics2D) g).getTransform().getScaleX();
+            GlyphAtlas a = GlyphAtlas.get(font, band(tintLevel), scale);
+            int ox = originX(), oy = originY(a);
+            Rectangle clip = g.getClipBounds();
+            for (int i = 0; i < length; i++) {
+                int x = ox + xs[i];
+                if (clip != null && (x + a.advance(text[i]) < clip.x || x > clip.x + clip.width)) continue;
+                a.draw(g, text[i], x, oy);
+            }
+            PAINT.painted(t0);
+        }
+    }
+
+    // ------------------ Backdrops ------------------
+    // The radial glow behind the clock, one image per phase bucket, shared by every ClockPanel and
+    // ScreenWall screen (any thread). Rendered at full size (a plain blit) up to 512px, which keeps
+    // a radius's buckets within 16MB; beyond that at 512px and scaled up, since it is a smooth
+    // gradient, so every large screen shares the one 512px set. The few most recent sizes are kept.
+    static final class Backdrops {
+        private static final int MAX_GLOW = 512, KEEP_SIZES = 3;
+        private static final Map<Integer, BufferedImage[]> GLOW = new LinkedHashMap<>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage[]> eldest) { return size() > KEEP_SIZES; }
+        };
+
+        private Backdrops() {}
+
+        static BufferedImage glow(int bucket, int r) {
+            int size = Math.max(1, Math.min(2*r, MAX_GLOW));
+            BufferedImage[] images;
+            synchronized (GLOW) {
+                images = GLOW.computeIfAbsent(size, s -> new BufferedImage[ClockPanel.GLOW_BUCKETS]);
+            }
+            synchronized (images) {
+                BufferedImage img = images[bucket];
+                return img != null ? img : (images[bucket] = renderGlow(bucket, size));
+            }
+        }
+
+        private static BufferedImage renderGlow(int bucket, int size) {
+            BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2 = img.createGraphics();
+            float phase = (bucket + 0.5f) / ClockPanel.GLOW_BUCKETS;
+            Color glow = blend(NEON, NEON_ALT, 0.3f + 0.7f*phase);
+            g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.06f + 0.02f*phase));
+            g2.setPaint(new RadialGradientPaint(new Point2D.Float(size/2f, size/2f), size/2f,
+                    new float[]{0f, 0.6f, 1f},
+                    new Color[]{glow, new Color(0,0,0,0), new Color(0,0,0,0)}));
+            g2.fillOval(0, 0, size, size);
+            g2.dispose();
+            return img;
+        }
+    }
+
+    // ------------------ Repaint Debug Overlay ------------------
+    // F12 toggles a glass-pane overlay that outlines every region Swing repainted in the last
+    // paint pass and shows what that pass cost; Ctrl+F12 toggles the Telemetry HUD on the same
+    // pane. A RepaintManager subclass times every paintDirtyRegions() for Telemetry, and while
+    // F12 is on also records the dirty regions; the overlay's own repaints are left out of both so
+    // it doesn't feed itself.
+    static final class RepaintDebugOverlay extends JComponent {
+        private static final Color REGION = new Color(255, 60, 60, 200);
+        private static final Color HUD_BG = new Color(0, 0, 0, 170);
+        private static final Rectangle HUD = new Rectangle(8, 8, 300, 22);
+
+        private final List<Rectangle> shown = new ArrayList<>();
+        private long lastNanos, totalNanos, frames;
+        private volatile boolean regions = false;
+        private boolean telemetry = false;
+        private final Tracker tracker = new Tracker();
+
+        static void install(JFrame frame, TickScheduler ticks) {
+            RepaintDebugOverlay overlay = new RepaintDebugOverlay();
+            frame.setGlassPane(overlay);
+            RepaintManager.setCurrentManager(overlay.tracker);
+            JRootPane root = frame.getRootPane();
+            root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0), "repaintDebug");
+            root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F12, InputEvent.CTRL_DOWN_MASK), "telemetryHud");
+            root.getActionMap().put("repaintDebug", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) { overlay.toggleRegions(); }
+            });
+            root.getActionMap().put("telemetryHud", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) { overlay.toggleTelemetry(); }
+            });
+            // only runs while the overlay is showing
+            ticks.register("telemetry-hud", overlay, 500, () -> {
+                if (overlay.telemetry) overlay.repaint(Telemetry.shared().hudBounds(overlay.getWidth()));
+            });
+        }
+
+        private RepaintDebugOverlay() {
+            setOpaque(false);
+            setVisible(false);
+        }
+
+        private void toggleRegions() {
+            regions = !regions;
+            shown.clear();
+            frames = totalNanos = lastNanos = 0;
+            setVisible(regions || telemetry);
+            repaint();
+        }
+
+        private void toggleTelemetry() {
+            telemetry = !telemetry;
+            Telemetry.shared().watch(telemetry);
+            setVisible(regions || telemetry);
+            repaint();
+        }
+
+        // called on the EDT after each paint pass with the regions it repainted
+        private void framePainted(List<Rectangle> regions, long nanos) {
+            if (regions.isEmpty()) return; // a pass that only repainted the overlay
+            frames++;
+            totalNanos += nanos;
+            lastNanos = nanos;
+            for (Rectangle r : shown) repaint(r.x - 1, r.y - 1, r.width + 2, r.height + 2);
+            shown.clear();
+            shown.addAll(regions);
+            for (Rectangle r : shown) repaint(r.x - 1, r.y - 1, r.width + 2, r.height + 2);
+            repaint(HUD);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (telemetry) Telemetry.shared().paintHud(g, getWidth());
+            if (!regions) return;
+            g.setColor(REGION);
+            for (Rectangle r : shown) g.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+            g.setColor(HUD_BG);
+            g.fillRect(HUD.x, HUD.y, HUD.width, HUD.height);
+            g.setColor(Color.WHITE);
+            g.setFont(new Font("Monospaced", Font.PLAIN, 12));
+            g.drawString(String.format("paint %.2f ms  avg %.2f ms  regions %d",
+                    lastNanos / 1e6, frames == 0 ? 0 : totalNanos / 1e6 / frames, shown.size()),
+                    HUD.x + 6, HUD.y + 15);
+        }
+
+        private final class Tracker extends RepaintManager {
+            // repaint() may be called from any thread; regions are converted on the EDT
+            private final List<Object[]> dirty = new ArrayList<>();
+            private volatile boolean contentDirty = false;
+
+            @Override
+            public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+                super.addDirtyRegion(c, x, y, w, h);
+                if (c == RepaintDebugOverlay.this || w <= 0 || h <= 0) return;
+                contentDirty = true;
+                if (regions) synchronized (dirty) { dirty.add(new Object[]{c, new Rectangle(x, y, w, h)}); }
+            }
+
+            @Override
+            public void paintDirtyRegions() {
+                boolean content = contentDirty;
+                contentDirty = false;
+                long t0 = System.nanoTime();
+                super.paintDirtyRegions();
+                long dt = System.nanoTime() - t0;
+                if (content) Telemetry.shared().framePainted(dt);
+                List<Object[]> batch;
+                synchronized (dirty) {
+                    batch = new ArrayList<>(dirty);
+                    dirty.clear();
+                }
+                if (!regions) return;
+                List<Rectangle> painted = new ArrayList<>(batch.size());
+                for (Object[] d : batch) {
+                    JComponent c = (JComponent) d[0];
+                    if (c.isShowing() && getRootPane() != null && SwingUtilities.isDescendingFrom(c, getRootPane()))
+                        painted.add(SwingUtilities.convertRectangle(c, (Rectangle) d[1], RepaintDebugOverlay.this));
+                }
+                framePainted(painted, dt);
+            }
+        }
+    }
+
+    // ------------------ Telemetry ------------------
+    // Always-on, cheap measurements of the UI: paintComponent time per component class, whole
+    // Swing paint passes (the frame rate), and from the TickScheduler each task's cost and how far
+    // from its deadline it fired, and while one is open, the signage screen's frames. Every series
+    // is a LatencyRecorder window; the signage frames are also kept as cumulative histograms. The
+    // sampling that costs something (an EDT queue probe every 100 ms, allocation and GC counters
+    // every second) runs only while something is watching: the HUD (Ctrl+F12), a metrics file
+    // (-Dneonclock.metrics=<file>), the HTTP /metrics endpoint, or a running JFR recording. The
+    // same numbers go out as JFR events (category "Neon Clock") and as plain text in the Prometheus
+    // exposition format.
+    static final class Telemetry {
+        static final int WINDOW = 1024;
+        private static final int PROBE_MS = 100, RATE_PROBES = 10, EXPORT_PROBES = 50;
+        private static final int HUD_WIDTH = 490, HUD_ROW = 14, HUD_PAD = 8, HUD_BAR = 8, HUD_BARS_X = 340;
+        private static final Font HUD_FONT = new Font("Monospaced", Font.PLAIN, 11);
+        private static final Color HUD_BG = new Color(0, 0, 0, 190);
+        private static final Color FAST = new Color(0, 220, 160), SLOW = new Color(255, 190, 60), JANK = new Color(255, 80, 80);
+        private static Telemetry shared;
+
+        // JFR events are only built while a recording runs; read on every paint and tick
+        static volatile boolean jfr = false;
+
+        final ClockEngine.LatencyRecorder frames = new ClockEngine.LatencyRecorder(WINDOW);
+        final ClockEngine.LatencyRecorder edt = new ClockEngine.LatencyRecorder(WINDOW);
+        private final List<Probe> probes = new java.util.concurrent.CopyOnWriteArrayList<>();
+        private final java.util.concurrent.atomic.AtomicLong frameCount = new java.util.concurrent.atomic.AtomicLong();
+        private volatile TickScheduler ticks;
+        private volatile Signage signage;
+        private volatile java.nio.file.Path exportFile;
+        private volatile double fps, allocationRate;
+        private volatile long gcCount, gcMillis;
+
+        // guarded by this
+        private int watchers = 0;
+        private boolean jfrWatching = false;
+        private java.util.concurrent.ScheduledThreadPoolExecutor sampler;
+        // sampler thread only
+        private long probesRun, lastRateNanos, lastFrames, lastAllocated;
+
+        static synchronized Telemetry shared() {
+            if (shared == null) shared = new Telemetry();
+            return shared;
+        }
+
+        // one probe per component class, shared by its instances
+        static Probe probe(String component) {
+            Probe p = new Probe(component);
+            shared().probes.add(p);
+            return p;
+        }
+
+        static final class Probe {
+            final String component;
+            final ClockEngine.LatencyRecorder recorder = new ClockEngine.LatencyRecorder(WINDOW);
+
+            private Probe(String component) { this.component = component; }
+
+            // t0: System.nanoTime() when the paint started
+            void painted(long t0) {
+                long dt = System.nanoTime() - t0;
+                recorder.record(dt);
+                if (jfr) {
+                    PaintEvent e = new PaintEvent();
+                    e.component = component;
+                    e.paintTime = dt;
+                    e.commit();
+                }
+            }
+        }
+
+        void attach(TickScheduler ticks) { this.ticks = ticks; }
+
+        // the open signage screen's frames, until signageClosed
+        void signage(Signage s) { signage = s; }
+
+        void signageClosed(Signage s) {
+            if (signage == s) signage = null;
+        }
+
+        // a Swing paint pass that painted something besides the overlay
+        void framePainted(long nanos) {
+            frames.record(nanos);
+            frameCount.incrementAndGet();
+        }
+
+        static void ticked(String task, long lateNanos, long costNanos) {
+            TickEvent e = new TickEvent();
+            e.task = task;
+            e.lateness = lateNanos;
+            e.callbackTime = costNanos;
+            e.commit();
+        }
+
+        // keeps the sampler running while on; calls must be paired
+        synchronized void watch(boolean on) {
+            watchers += on ? 1 : -1;
+            if (watchers > 0 && sampler == null) {
+                sampler = ClockEngine.newExecutor("telemetry");
+                sampler.scheduleAtFixedRate(new Runnable() {
+                    private boolean first = true;
+
+                    @Override
+                    public void run() {
+                        if (first) {
+                            first = false;
+                            probesRun = lastRateNanos = 0;
+                        }
+                        sample();
+                    }
+                }, PROBE_MS, PROBE_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+            } else if (watchers == 0 && sampler != null) {
+                sampler.shutdownNow();
+                sampler = null;
+                fps = allocationRate = 0;
+            }
+        }
+
+        // writes metricsText() to file every few seconds (replaced atomically, for a kiosk's watchdog)
+        void exportTo(java.nio.file.Path file) {
+            exportFile = file;
+            watch(true);
+        }
+
+        // JFR costs tens of milliseconds just to hook, so that happens off the startup path; the
+        // event classes themselves are only touched once a recording is running
+        void listenForJfr() {
+            Thread t = new Thread(() -> {
+                jdk.jfr.FlightRecorder.addListener(new jdk.jfr.FlightRecorderListener() {
+                    @Override
+                    public void recordingStateChanged(jdk.jfr.Recording r) { jfrChanged(); }
+                });
+                if (jdk.jfr.FlightRecorder.isInitialized()) jfrChanged(); // -XX:StartFlightRecording
+            }, "telemetry-jfr");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        private synchronized void jfrChanged() {
+            boolean running = false;
+            for (jdk.jfr.Recording r : jdk.jfr.FlightRecorder.getFlightRecorder().getRecordings())
+                running |= r.getState() == jdk.jfr.RecordingState.RUNNING;
+            jfr = running;
+            if (running != jfrWatching) {
+                jfrWatching = running;
+                watch(running);
+            }
+        }
+
+        private void sample() {
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                long dt = System.nanoTime() - posted;
+                edt.record(dt);
+                if (jfr) {
+                    EdtLatencyEvent e = new EdtLatencyEvent();
+                    e.latency = dt;
+                    e.commit();
+                }
+            });
+            probesRun++;
+            if (probesRun % RATE_PROBES == 0) rates(posted);
+            java.nio.file.Path file = exportFile;
+            if (file != null && probesRun % EXPORT_PROBES == 0) {
+                try {
+                    java.nio.file.Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                    java.nio.file.Files.write(tmp, metricsText().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    java.nio.file.Files.move(tmp, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING,
+                            java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+                } catch (java.io.IOException | RuntimeException ex) {
+                    System.err.println("telemetry: cannot write " + file + ": " + ex);
+                    exportFile = null;
+                    watch(false);
+                }
+            }
+        }
+
+        private void rates(long now) {
+            long f = frameCount.get(), allocated = 0, count = 0, millis = 0;
+            java.lang.management.ThreadMXBean threads = java.lang.management.ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+                for (long b : t.getThreadAllocatedBytes(t.getAllThreadIds())) allocated += Math.max(0, b);
+            }
+            for (java.lang.management.GarbageCollectorMXBean gc : java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            boolean first = lastRateNanos == 0;
+            if (!first) {
+                double s = (now - lastRateNanos) / 1e9;
+                fps = (f - lastFrames) / s;
+                // threads that exited take their counts with them: never report a negative rate
+                allocationRate = Math.max(0, allocated - lastAllocated) / s;
+            }
+            gcCount = count;
+            gcMillis = millis;
+            lastRateNanos = now;
+            lastFrames = f;
+            lastAllocated = allocated;
+            if (jfr && !first) {
+                StatsEvent e = new StatsEvent();
+                e.fps = fps;
+                e.allocationRate = (long) allocationRate;
+                e.gcCount = count;
+                e.heapUsed = heapUsed();
+                e.commit();
+            }
+        }
+
+        private static long heapUsed() {
+            Runtime rt = Runtime.getRuntime();
+            return rt.totalMemory() - rt.freeMemory();
+        }
+
+        // one window of a recorder, sorted once
+        static final class Stats {
+            static final int BUCKETS = 14; // log2 buckets: under 8 us, 8-16 us, ..., 32 ms and over
+            final long count, p50, p99, max;
+            final double mean;
+            final int[] histogram = new int[BUCKETS];
+
+            Stats(ClockEngine.LatencyRecorder r, long[] scratch) {
+                count = r.count();
+                mean = r.mean();
+                int n = r.samples(scratch);
+                Arrays.sort(scratch, 0, n);
+                p50 = n == 0 ? 0 : scratch[Math.max(0, (int) Math.ceil(0.5 * n) - 1)];
+                p99 = n == 0 ? 0 : scratch[Math.max(0, (int) Math.ceil(0.99 * n) - 1)];
+                max = n == 0 ? 0 : scratch[n - 1];
+                for (int i = 0; i < n; i++) histogram[bucket(scratch[i])]++;
+            }
+
+            static int bucket(long nanos) {
+                return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos) >> 13));
+            }
+
+            // upper bound of bucket i, which holds everything below it and at or over the one before
+            static long bucketLimit(int i) { return 8192L << i; }
+        }
+
+        // Counts in Stats' buckets since the start, for series whose whole history matters and not
+        // just the last window (signage frames). One writer, any readers.
+        static final class Histogram {
+            private final java.util.concurrent.atomic.AtomicLongArray counts = new java.util.concurrent.atomic.AtomicLongArray(Stats.BUCKETS);
+            private final java.util.concurrent.atomic.AtomicLong sum = new java.util.concurrent.atomic.AtomicLong();
+
+            void record(long nanos) {
+                counts.incrementAndGet(Stats.bucket(nanos));
+                sum.addAndGet(nanos);
+            }
+        }
+
+        // ---- plain-text metrics (Prometheus exposition format) ----
+
+        String metricsText() {
+            StringBuilder b = new StringBuilder(8192);
+            long[] scratch = new long[WINDOW];
+            metric(b, "neonclock_fps", "gauge", "Swing paint passes per second").append("neonclock_fps ").append(fps).append('\n');
+            metric(b, "neonclock_allocation_bytes_per_second", "gauge", "Bytes allocated per second by all threads")
+                    .append("neonclock_allocation_bytes_per_second ").append((long) allocationRate).append('\n');
+            metric(b, "neonclock_gc_collections_total", "counter", "Garbage collections").append("neonclock_gc_collections_total ").append(gcCount).append('\n');
+            metric(b, "neonclock_gc_seconds_total", "counter", "Time spent in garbage collection").append("neonclock_gc_seconds_total ").append(gcMillis / 1e3).append('\n');
+            metric(b, "neonclock_heap_used_bytes", "gauge", "Java heap in use").append("neonclock_heap_used_bytes ").append(heapUsed()).append('\n');
+            summary(metric(b, "neonclock_frame_seconds", "summary", "One Swing paint pass"), "neonclock_frame_seconds", "", new Stats(frames, scratch));
+            metric(b, "neonclock_paint_seconds", "summary", "paintComponent time per component class");
+            for (Probe p : probes) summary(b, "neonclock_paint_seconds", "component=\"" + p.component + "\"", new Stats(p.recorder, scratch));
+            summary(metric(b, "neonclock_edt_latency_seconds", "summary", "Time an event waits in the EDT queue"),
+                    "neonclock_edt_latency_seconds", "", new Stats(edt, scratch));
+            TickScheduler t = ticks;
+            if (t != null) {
+                summary(metric(b, "neonclock_tick_jitter_seconds", "summary", "Distance between a tick's deadline and when it ran"),
+                        "neonclock_tick_jitter_seconds", "", new Stats(t.jitter, scratch));
+                metric(b, "neonclock_tick_seconds", "summary", "Time spent in one tick callback");
+                for (TickScheduler.Registration r : t.registrations)
+                    summary(b, "neonclock_tick_seconds", "task=\"" + r.name + "\"", new Stats(r.cost, scratch));
+            }
+            Signage s = signage;
+            if (s != null) {
+                String board = "board=\"" + s.board.name().toLowerCase(Locale.ROOT) + "\"";
+                histogram(metric(b, "neonclock_signage_lateness_seconds", "histogram", "How late a signage frame started against its deadline"),
+                        "neonclock_signage_lateness_seconds", board, s.stats.latenessHistogram);
+                histogram(metric(b, "neonclock_signage_frame_seconds", "histogram", "Time to draw and show one signage frame"),
+                        "neonclock_signage_frame_seconds", board, s.stats.renderHistogram);
+                histogram(metric(b, "neonclock_signage_interval_seconds", "histogram", "Time between two shown signage frames"),
+                        "neonclock_signage_interval_seconds", board, s.stats.intervalHistogram);
+                metric(b, "neonclock_signage_dropped_frames_total", "counter", "Signage frames skipped after falling behind")
+                        .append("neonclock_signage_dropped_frames_total{").append(board).append("} ").append(s.stats.dropped()).append('\n');
+            }
+            return b.toString();
+        }
+
+        private static StringBuilder metric(StringBuilder b, String name, String type, String help) {
+            return b.append("# HELP ").append(name).append(' ').append(help).append("\n# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+
+        private static void summary(StringBuilder b, String name, String labels, Stats s) {
+            String sep = labels.isEmpty() ? "" : ",";
+            b.append(name).append('{').append(labels).append(sep).append("quantile=\"0.5\"} ").append(s.p50 / 1e9).append('\n');
+            b.append(name).append('{').append(labels).append(sep).append("quantile=\"0.99\"} ").append(s.p99 / 1e9).append('\n');
+            b.append(name).append('{').append(labels).append(sep).append("quantile=\"1\"} ").append(s.max / 1e9).append('\n');
+            String l = labels.isEmpty() ? "" : "{" + labels + "}";
+            b.append(name).append("_sum").append(l).append(' ').append(s.mean * s.count / 1e9).append('\n');
+            b.append(name).append("_count").append(l).append(' ').append(s.count).append('\n');
+        }
+
+        private static void histogram(StringBuilder b, String name, String labels, Histogram h) {
+            long cumulative = 0;
+            for (int i = 0; i < Stats.BUCKETS; i++) {
+                cumulative += h.counts.get(i);
+                b.append(name).append("_bucket{").append(labels).append(",le=\"")
+                        .append(i < Stats.BUCKETS - 1 ? String.valueOf(Stats.bucketLimit(i) / 1e9) : "+Inf").append("\"} ").append(cumulative).append('\n');
+            }
+            b.append(name).append("_sum{").append(labels).append("} ").append(h.sum.get() / 1e9).append('\n');
+            b.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+        }
+
+        // ---- HUD ----
+
+        // top-right corner of a component width wide; fixed per row count, so a repaint covers it
+        Rectangle hudBounds(int width) {
+            TickScheduler t = ticks;
+            int rows = 5 + probes.size() + (t == null ? 0 : t.registrations.size()) + (signage == null ? 0 : 3);
+            int h = 2 * HUD_PAD + rows * HUD_ROW;
+            return new Rectangle(width - HUD_WIDTH - 8, 8, HUD_WIDTH, h);
+        }
+
+        // one row per series: p50 / p99 / max of its window in ms, and its log2 histogram with bars
+        // coloured by how much of a 16 ms frame they eat
+        void paintHud(Graphics g, int width) {
+            Rectangle r = hudBounds(width);
+            g.setColor(HUD_BG);
+            g.fillRect(r.x, r.y, r.width, r.height);
+            g.setFont(HUD_FONT);
+            int x = r.x + HUD_PAD, y = r.y + HUD_PAD + 10;
+            g.setColor(Color.WHITE);
+            g.drawString(String.format("fps %5.1f   alloc %6.2f MB/s   gc %d (%d ms)   heap %d MB",
+                    fps, allocationRate / 1e6, gcCount, gcMillis, heapUsed() >> 20), x, y);
+            y += HUD_ROW;
+            g.setColor(Color.LIGHT_GRAY);
+            g.drawString(String.format("%-22s %7s %7s %7s", "", "p50 ms", "p99 ms", "max ms"), x, y);
+            g.drawString("8us", x + HUD_BARS_X, y);
+            g.drawString("32ms+", x + HUD_BARS_X + Stats.BUCKETS * (HUD_BAR + 1) - 30, y);
+            y += HUD_ROW;
+            long[] scratch = new long[WINDOW];
+            y = hudRow(g, x, y, "frame", new Stats(frames, scratch));
+            y = hudRow(g, x, y, "EDT latency", new Stats(edt, scratch));
+            for (Probe p : probes) y = hudRow(g, x, y, "paint " + p.component, new Stats(p.recorder, scratch));
+            Signage s = signage;
+            if (s != null) {
+                y = hudRow(g, x, y, "signage late (" + s.stats.dropped() + " drop)", new Stats(s.stats.lateness, scratch));
+                y = hudRow(g, x, y, "signage frame", new Stats(s.stats.render, scratch));
+                y = hudRow(g, x, y, "signage interval", new Stats(s.stats.interval, scratch));
+            }
+            TickScheduler t = ticks;
+            if (t == null) return;
+            y = hudRow(g, x, y, "tick jitter", new Stats(t.jitter, scratch));
+            for (TickScheduler.Registration reg : t.registrations) y = hudRow(g, x, y, "tick " + reg.name, new Stats(reg.cost, scratch));
+        }
+
+        private static int hudRow(Graphics g, int x, int y, String label, Stats s) {
+            g.setColor(Color.WHITE);
+            if (label.length() > 22) label = label.substring(0, 22);
+            if (s.count == 0) g.drawString(String.format("%-22s %7s", label, "-"), x, y);
+            else g.drawString(String.format("%-22s %7.2f %7.2f %7.2f", label, s.p50 / 1e6, s.p99 / 1e6, s.max / 1e6), x, y);
+            int peak = 0;
+            for (int c : s.histogram) peak = Math.max(peak, c);
+            int bx = x + HUD_BARS_X;
+            for (int i = 0; i < Stats.BUCKETS && peak > 0; i++) {
+                if (s.histogram[i] == 0) continue;
+                int h = Math.max(1, (HUD_ROW - 3) * s.histogram[i] / peak);
+                g.setColor(i <= 8 ? FAST : i <= 11 ? SLOW : JANK); // up to 2 ms, up to 16 ms, over a frame
+                g.fillRect(bx + i * (HUD_BAR + 1), y + 1 - h, HUD_BAR, h);
+            }
+            return y + HUD_ROW;
+        }
+
+        // ---- JFR events ----
+
+        @jdk.jfr.Name("neonclock.Paint")
+        @jdk.jfr.Label("Paint")
+        @jdk.jfr.Category("Neon Clock")
+        @jdk.jfr.Description("paintComponent of one component")
+        static final class PaintEvent extends jdk.jfr.Event {
+            @jdk.jfr.Label("Component") String component;
+            @jdk.jfr.Label("Paint Time") @jdk.jfr.Timespan long paintTime;
+        }
+
+        @jdk.jfr.Name("neonclock.Tick")
+        @jdk.jfr.Label("Tick")
+        @jdk.jfr.Category("Neon Clock")
+        @jdk.jfr.Description("One TickScheduler callback; lateness is negative when it ran early in its frame")
+        static final class TickEvent extends jdk.jfr.Event {
+            @jdk.jfr.Label("Task") String task;
+            @jdk.jfr.Label("Lateness") @jdk.jfr.Timespan long lateness;
+            @jdk.jfr.Label("Callback Time") @jdk.jfr.Timespan long callbackTime;
+        }
+
+        @jdk.jfr.Name("neonclock.SignageFrame")
+        @jdk.jfr.Label("Signage Frame")
+        @jdk.jfr.Category("Neon Clock")
+        @jdk.jfr.Description("One frame of the signage screen's render loop")
+        static final class SignageFrameEvent extends jdk.jfr.Event {
+            @jdk.jfr.Label("Board") String board;
+            @jdk.jfr.Label("Lateness") @jdk.jfr.Timespan long lateness;
+            @jdk.jfr.Label("Render Time") @jdk.jfr.Timespan long renderTime;
+            @jdk.jfr.Label("Interval") @jdk.jfr.Timespan long interval;
+        }
+
+        @jdk.jfr.Name("neonclock.EdtLatency")
+        @jdk.jfr.Label("EDT Latency")
+        @jdk.jfr.Category("Neon Clock")
+        @jdk.jfr.Description("Time an event posted to the EDT waited before it ran")
+        static final class EdtLatencyEvent extends jdk.jfr.Event {
+            @jdk.jfr.Label("Latency") @jdk.jfr.Timespan long latency;
+        }
+
+        @jdk.jfr.Name("neonclock.Stats")
+        @jdk.jfr.Label("UI Statistics")
+        @jdk.jfr.Category("Neon Clock")
+        @jdk.jfr.Description("Frame rate, allocation rate and heap, once a second")
+        static final class StatsEvent extends jdk.jfr.Event {
+            @jdk.jfr.Label("Frames per Second") double fps;
+            @jdk.jfr.Label("Allocation Rate") @jdk.jfr.DataAmount @jdk.jfr.Frequency long allocationRate;
+            @jdk.jfr.Label("GC Count") long gcCount;
+            @jdk.jfr.Label("Heap Used") @jdk.jfr.DataAmount long heapUsed;
+        }
+    }
+
+    // ------------------ Screen Wall ------------------
+    // Boards on other displays, driven by this window's engine, so timers and alarms exist once
+    // however many screens show them. -Dneonclock.screens=clock,timer,alarms opens one window per
+    // board, one per GraphicsDevice: the secondary displays first, borderless and filling the
+    // display, then the main window's display, where boards open as ordinary windows so the tabs
+    // stay reachable for configuration. Esc closes a board.
+    //
+    // One "screen-wall" thread renders every board, actively, into each window's BufferStrategy
+    // (page flipping where the device offers it): per frame it reads the time and engine state once
+    // into a Snapshot, and draws from it each board whose content changed. Like the Swing panels it
+    // wakes only for changes: the clock on the (half) second and when the glow shifts shade, the
+    // timer board while something counts, the alarm board on the minute and on alarm events. Glyphs
+    // come from the shared GlyphAtlas cache and the glow from Backdrops, so a board on a second
+    // display costs no setup beyond its window. Each board's frame time (draw plus show) is a
+    // Telemetry probe, "screen 1: clock", in the HUD, the metrics text and JFR.
+    static final class ScreenWall {
+        enum Board { CLOCK, TIMER, ALARMS }
+
+        static final String PROPERTY = "neonclock.screens";
+        static final int ALARM_ROWS = 8;
+        private static final DateTimeFormatter ALARM_DAY_FMT = DateTimeFormatter.ofPattern("EEE d MMM");
+
+        private final ClockEngine engine;
+        private final RenderPolicy policy;
+        private final List<Screen> screens = new java.util.concurrent.CopyOnWriteArrayList<>();
+        private final java.util.concurrent.atomic.AtomicInteger dirty = new java.util.concurrent.atomic.AtomicInteger();
+        private final Thread thread;
+        private volatile boolean woken = false, alarmsChanged = true;
+        // render thread only
+        private final Snapshot snapshot;
+
+        // the boards named by -Dneonclock.screens, in order
+        static List<Board> configuredBoards() {
+            String p = System.getProperty(PROPERTY);
+            List<Board> boards = new ArrayList<>();
+            if (p == null) return boards;
+            for (String name : p.split(",")) {
+                if (name.isBlank()) continue;
+                try {
+                    boards.add(Board.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException ex) {
+                    System.err.println(PROPERTY + ": unknown board \"" + name.trim() + "\" (clock, timer or alarms)");
+                }
+            }
+            return boards;
+        }
+
+        // EDT: opens a window per board and starts rendering them
+        static ScreenWall open(ClockEngine engine, RenderPolicy policy, List<Board> boards) {
+            ScreenWall wall = new ScreenWall(engine, policy);
+            GraphicsEnvironment env = GraphicsEnvironment.getLocalGraphicsEnvironment();
+            GraphicsDevice main = env.getDefaultScreenDevice();
+            List<GraphicsDevice> devices = new ArrayList<>();
+            for (GraphicsDevice d : env.getScreenDevices()) if (d != main && d.getType() == GraphicsDevice.TYPE_RASTER_SCREEN) devices.add(d);
+            devices.add(main);
+            for (int i = 0; i < boards.size(); i++) {
+                GraphicsDevice d = devices.get(Math.min(i, devices.size() - 1));
+                wall.screens.add(wall.new Screen(i + 1, boards.get(i), d, d != main));
+            }
+            wall.thread.start();
+            return wall;
+        }
+
+        private ScreenWall(ClockEngine engine, RenderPolicy policy) {
+            this.engine = engine;
+            this.policy = policy;
+            snapshot = new Snapshot(engine);
+            engine.addListener(new ClockEngine.Listener() {
+                @Override public void stopwatchChanged(ClockEngine.Stopwatch sw) { wake(Board.TIMER); }
+                @Override public void countdownChanged(ClockEngine.CountdownEngine.Countdown c) { wake(Board.TIMER); }
+                @Override public void countdownExpired(ClockEngine.CountdownEngine.Countdown c) { wake(Board.TIMER); }
+                @Override public void alarmsAdded(List<ClockEngine.AlarmItem> added) { rosterChanged(); }
+                @Override public void alarmRemoved(ClockEngine.AlarmItem ai, int index) { rosterChanged(); }
+                @Override public void alarmsChanged(List<ClockEngine.AlarmItem> changed) { rosterChanged(); }
+            });
+            // the glow may start or stop, the colon blink, the counters change pace
+            policy.addListener(() -> {
+                for (Board b : Board.values()) wake(b);
+            });
+            thread = new Thread(this::run, "screen-wall");
+            thread.setDaemon(true);
+        }
+
+        private void rosterChanged() {
+            alarmsChanged = true;
+            wake(Board.ALARMS);
+        }
+
+        // redraw every screen showing b as soon as possible; any thread
+        void wake(Board b) {
+            dirty.getAndUpdate(m -> m | 1 << b.ordinal());
+            woken = true;
+            java.util.concurrent.locks.LockSupport.unpark(thread);
+        }
+
+        int screenCount() { return screens.size(); }
+
+        private void run() {
+            while (!screens.isEmpty()) {
+                long deadline = frame();
+                while (!woken && System.nanoTime() - deadline < 0)
+                    java.util.concurrent.locks.LockSupport.parkNanos(this, deadline - System.nanoTime());
+                woken = false;
+            }
+        }
+
+        // draws every screen that is due or dirty; returns the earliest next deadline
+        private long frame() {
+            int forced = dirty.getAndSet(0);
+            long now = System.nanoTime();
+            RenderPolicy.Level level = policy.level();
+            snapshot.capture(level, alarmsChanged);
+            alarmsChanged = false;
+            long next = now + 60_000_000_000L;
+            for (Screen s : screens) {
+                if ((forced & 1 << s.board.ordinal()) != 0 || now - s.due >= 0) {
+                    try {
+                        s.render(snapshot);
+                    } catch (IllegalStateException ex) {
+                        // the window went away mid-frame (closed on the EDT); windowClosed removes it
+                    }
+                    s.due = nextChange(s.board, level, snapshot);
+                }
+                if (s.due - next < 0) next = s.due;
+            }
+            return next;
+        }
+
+        // nanoTime deadline of the board's next visible change after what snapshot shows
+        static long nextChange(Board b, RenderPolicy.Level level, Snapshot snapshot) {
+            long ms = snapshot.millisOfDay;
+            switch (b) {
+                case CLOCK:
+                    long tick = RenderPolicy.after(level.blink ? 500 - ms % 500 : 1000 - ms % 1000);
+                    if (level.glowMs <= 0) return tick;
+                    long glow = System.nanoTime() + ClockPanel.nextGlowChange(snapshot.glowPhase, level.glowMs) * 1_000_000L;
+                    return Math.min(tick, glow);
+                case TIMER:
+                    return snapshot.counting ? RenderPolicy.after(level.counterMs) : RenderPolicy.after(60_000);
+                default:
+                    return RenderPolicy.after(60_000 - ms % 60_000);
+            }
+        }
+
+        // What the boards show, read once per frame for all of them. Render thread only.
+        static final class Snapshot {
+            private final ClockEngine engine;
+            private final ClockEngine.LocalClock clock;   // the engine's belongs to the EDT
+            private final ClockEngine.AlarmItem[] upcoming = new ClockEngine.AlarmItem[ALARM_ROWS];
+            private final long[] upcomingAt = new long[ALARM_ROWS];
+            private long alarmsMinute = -1;
+            long millisOfDay;
+            float glowPhase;
+            final char[] time = new char[12], timer = new char[16], stopwatch = new char[16];
+            int timeLength, timerLength, stopwatchLength;
+            String day = "", timerState = "";
+            boolean counting;
+            final List<String> alarms = new ArrayList<>();
+
+            Snapshot(ClockEngine engine) {
+                this.engine = engine;
+                clock = new ClockEngine.LocalClock(engine.clock().zone());
+            }
+
+            void capture(RenderPolicy.Level level, boolean alarmsChanged) {
+                long now = System.currentTimeMillis();
+                millisOfDay = clock.millisOfDay(now);
+                glowPhase = level.glowMs > 0 ? (float) (Math.floorMod(System.nanoTime(), (long) (2 * Math.PI * 1e9)) / 1e9) : 0f;
+                timeLength = ClockEngine.TimeFormat.clock12(time, (int) (millisOfDay / 1000), !level.blink || millisOfDay % 1000 < 500);
+                day = clock.dayLine(now);
+                ClockEngine.CountdownEngine.Countdown c = engine.countdowns().get(TimerPanel.COUNTDOWN);
+                long remaining = c == null ? 0 : c.remainingNanos() / 1_000_000;
+                timerLength = ClockEngine.TimeFormat.countdown(timer, 0, remaining);
+                timerState = c == null || c.durationNanos() == 0 ? "not set" : c.isExpired() ? "finished"
+                        : c.isRunning() ? "running" : remaining == c.durationNanos() / 1_000_000 ? "ready" : "paused";
+                ClockEngine.Stopwatch sw = engine.findStopwatch(StopwatchPanel.STOPWATCH);
+                stopwatchLength = ClockEngine.TimeFormat.elapsed(stopwatch, 0, sw == null ? 0 : sw.elapsedNanos());
+                counting = c != null && c.isRunning() || sw != null && sw.isRunning();
+                // rows say "today" or the weekday, so they are rebuilt on the minute as well as on changes
+                long minute = now / 60_000;
+                if (alarmsChanged || minute != alarmsMinute) {
+                    alarmsMinute = minute;
+                    alarms.clear();
+                    int n = engine.alarms().upcoming(upcoming, upcomingAt);
+                    LocalDate today = LocalDate.now(clock.zone());
+                    for (int i = 0; i < n; i++) {
+                        LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(upcomingAt[i]), clock.zone());
+                        String when = at.toLocalDate().equals(today) ? "today" : at.toLocalDate().equals(today.plusDays(1))
+                                ? "tomorrow" : at.format(ALARM_DAY_FMT);
+                        alarms.add(String.format("%s  %-10s %s", at.toLocalTime().format(HOUR_MIN_FMT), when, upcoming[i].repeat));
+                    }
+                    Arrays.fill(upcoming, null);
+                }
+            }
+        }
+
+        // Draws one board at a size; holds the fonts fitted to that size. Any thread, one at a time.
+        static final class Painter {
+            private static final Font LABEL = new Font("SansSerif", Font.PLAIN, 10);
+            final Board board;
+            private int width = -1, height = -1;
+            private Font digits, smallDigits, label, rows;
+            // the glow's shades of the digits, as GlyphTextView's (the glow only reaches the first few)
+            private final Color[] bands = new Color[64];
+
+            Painter(Board board) { this.board = board; }
+
+            void paint(Graphics2D g, int w, int h, Snapshot s) {
+                if (w != width || h != height) fit(w, h);
+                double scale = g.getTransform().getScaleX();
+                g.setColor(BG);
+                g.fillRect(0, 0, w, h);
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                switch (board) {
+                    case CLOCK: {
+                        int r = Math.min(w, h) / 3;
+                        BufferedImage glow = Backdrops.glow(ClockPanel.glowBucket(s.glowPhase), r);
+                        // nearest-neighbour: at the glow's few percent of opacity the steps don't show,
+                        // and it scales at blit speed where bilinear costs several times the frame
+                        g.drawImage(glow, w/2 - r, h/2 - r, 2*r, 2*r, null);
+                        GlyphAtlas a = clockDigits(GlyphTextView.tintLevel(ClockPanel.glowTint(s.glowPhase)), scale);
+                        drawCentred(g, a, s.time, s.timeLength, w / 2, h / 2 - a.height / 2);
+                        text(g, label, new Color(190, 220, 240), s.day, w / 2, h / 2 + a.height);
+                        break;
+                    }
+                    case TIMER: {
+                        text(g, label, new Color(170, 200, 220), "TIMER · " + s.timerState, w / 2, h / 6);
+                        GlyphAtlas a = GlyphAtlas.get(digits, NEON_ALT, scale);
+                        drawCentred(g, a, s.timer, s.timerLength, w / 2, h / 4);
+                        text(g, label, new Color(170, 200, 220), "STOPWATCH", w / 2, h * 2 / 3);
+                        GlyphAtlas b = GlyphAtlas.get(smallDigits, NEON, scale);
+                        drawCentred(g, b, s.stopwatch, s.stopwatchLength, w / 2, h * 2 / 3 + h / 24);
+                        break;
+                    }
+                    default: {
+                        text(g, label, NEON, "NEXT ALARMS", w / 2, h / 8);
+                        g.setFont(rows);
+                        g.setColor(new Color(200, 220, 240));
+                        FontMetrics fm = g.getFontMetrics();
+                        int y = h / 8 + fm.getHeight() * 2;
+                        if (s.alarms.isEmpty()) text(g, rows, new Color(120, 135, 150), "none", w / 2, y);
+                        for (String row : s.alarms) {
+                            g.drawString(row, w / 10, y);
+                            y += fm.getHeight() * 5 / 4;
+                        }
+                    }
+                }
+            }
+
+            // fits the board to a size and renders its glow backdrops and tinted digits ahead (at
+            // scale 1), so the glow's first cycle costs no more per frame than later ones
+            void prepare(int w, int h) {
+                if (w != width || h != height) fit(w, h);
+                if (board != Board.CLOCK) return;
+                for (int b = 0; b < ClockPanel.GLOW_BUCKETS; b++) Backdrops.glow(b, Math.min(w, h) / 3);
+                for (float phase = 0; phase < 2 * Math.PI; phase += 0.01f) clockDigits(GlyphTextView.tintLevel(ClockPanel.glowTint(phase)), 1.0);
+            }
+
+            private GlyphAtlas clockDigits(int tint, double scale) {
+                if (bands[tint] == null) bands[tint] = blend(NEON, Color.WHITE, tint / (float) (bands.length - 1));
+                return GlyphAtlas.get(digits, bands[tint], scale);
+            }
+
+            // fonts for this size; the digit sizes are rounded so similar displays share atlases
+            private void fit(int w, int h) {
+                width = w;
+                height = h;
+                GlyphAtlas probe = GlyphAtlas.get(new Font(DIGITAL_FONT, Font.BOLD, 72), NEON, 1.0);
+                int sample = 0;
+                for (char ch : "88:88:88 AM".toCharArray()) sample += probe.advance(ch);
+                float size = Math.min(72f * w * 0.8f / Math.max(1, sample), h / (board == Board.CLOCK ? 3f : 4f));
+                size = Math.max(16, Math.round(size / 8) * 8);
+                digits = new Font(DIGITAL_FONT, Font.BOLD, (int) size);
+                smallDigits = digits.deriveFont(Math.max(16f, Math.round(size / 16) * 8));
+                label = LABEL.deriveFont(Math.max(12f, h / 28f));
+                rows = new Font("Monospaced", Font.PLAIN, Math.max(12, Math.min(h / (ALARM_ROWS * 2 + 4), w / 40)));
+            }
+
+            private static void drawCentred(Graphics g, GlyphAtlas a, char[] text, int length, int cx, int top) {
+                int width = 0;
+                for (int i = 0; i < length; i++) width += a.advance(text[i]);
+                int x = cx - width / 2;
+                for (int i = 0; i < length; i++) {
+                    a.draw(g, text[i], x, top);
+                    x += a.advance(text[i]);
+                }
+            }
+
+            private static void text(Graphics2D g, Font f, Color c, String s, int cx, int baseline) {
+                g.setFont(f);
+                g.setColor(c);
+                g.drawString(s, cx - g.getFontMetrics().stringWidth(s) / 2, baseline);
+            }
+        }
+
+        // one board's window; the strategy is (re)made by the render thread
+        private final class Screen {
+            final Board board;
+            final Painter painter;
+            final JFrame frame;
+            final Canvas canvas;
+            final Telemetry.Probe probe;
+            private java.awt.image.BufferStrategy strategy;
+            private volatile boolean resized = true;
+            long due = System.nanoTime();
+
+            Screen(int number, Board board, GraphicsDevice device, boolean fill) {
+                this.board = board;
+                painter = new Painter(board);
+                probe = Telemetry.probe("screen " + number + ": " + board.name().toLowerCase(Locale.ROOT));
+                GraphicsConfiguration gc = device.getDefaultConfiguration();
+                frame = new JFrame("Neon Clock — " + board.name().toLowerCase(Locale.ROOT), gc);
+                frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+                canvas = new Canvas(gc) {
+                    // exposed or restored by the window system: the render thread redraws it
+                    @Override public void paint(Graphics g) { wake(board); }
+                    @Override public void update(Graphics g) { wake(board); }
+                };
+                canvas.setBackground(BG);
+                canvas.addComponentListener(new ComponentAdapter() {
+                    @Override
+                    public void componentResized(ComponentEvent e) {
+                        resized = true;
+                        wake(board);
+                    }
+                });
+                canvas.addKeyListener(new KeyAdapter() {
+                    @Override
+                    public void keyPressed(KeyEvent e) {
+                        if (e.getKeyCode() == KeyEvent.VK_ESCAPE) frame.dispose();
+                    }
+                });
+                frame.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent e) {
+                        screens.remove(Screen.this);
+                        woken = true;
+                        java.util.concurrent.locks.LockSupport.unpark(thread);
+                    }
+                });
+                frame.getContentPane().add(canvas);
+                frame.setIgnoreRepaint(true);
+                Rectangle bounds = gc.getBounds();
+                if (fill) {
+                    frame.setUndecorated(true);
+                    frame.setBounds(bounds);
+                } else {
+                    frame.setSize(960, 540);
+                    frame.setLocation(bounds.x + (bounds.width - 960) / 2, bounds.y + (bounds.height - 540) / 2);
+                }
+                frame.setVisible(true);
+                canvas.requestFocus();
+            }
+
+            void render(Snapshot s) {
+                int w = canvas.getWidth(), h = canvas.getHeight();
+                if (!canvas.isDisplayable() || w <= 0 || h <= 0) return;
+                long t0 = System.nanoTime();
+                if (strategy == null || resized) {
+                    resized = false;
+                    strategy = createStrategy();
+                }
+                do {
+                    do {
+                        Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                        try {
+                            painter.paint(g, w, h, s);
+                        } finally {
+                            g.dispose();
+                        }
+                    } while (strategy.contentsRestored());
+                    strategy.show();
+                } while (strategy.contentsLost());
+                Toolkit.getDefaultToolkit().sync();
+                probe.painted(t0);
+            }
+
+            // two buffers, flipped where the device can, else copied
+            private java.awt.image.BufferStrategy createStrategy() {
+                try {
+                    canvas.createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true),
+                            BufferCapabilities.FlipContents.UNDEFINED));
+                } catch (AWTException ex) {
+                    canvas.createBufferStrategy(2);
+                }
+                return canvas.getBufferStrategy();
+            }
+        }
+    }
+
+    // ------------------ Signage ------------------
+    // One board full-screen on one display, for signage. F11 in the main window shows the selected
+    // tab's board (the clock, the timer for the stopwatch and timer tabs, the alarms) on that
+    // window's display; -Dneonclock.signage=timer@1 opens one at startup on a display (an index
+    // into the screen devices, the main display by default). Esc or F11 leaves it. The tabs stay
+    // where the timer and alarms are set.
+    //
+    // Where the device allows it, the window takes the display in exclusive full-screen mode;
+    // otherwise it is an undecorated window covering it. Unlike the Swing panels and the screen
+    // wall, which draw only when something changes, a signage screen is rendered actively: its own
+    // thread presents a frame at every deadline of a fixed-rate grid on System.nanoTime()
+    // (-Dneonclock.signage.fps, 60 by default), so the glow and the counters move at an even pace
+    // whatever the EDT is doing. The board is drawn into a VolatileImage only when its content
+    // changes; a frame copies that image into the BufferStrategy's back buffer and shows it. Both
+    // are accelerated surfaces the system may take back (a mode switch, a locked screen): lost
+    // contents are redrawn within the same frame. A sign has no user to be idle or unfocused, so
+    // boards are drawn at the FULL level whatever the render policy says; the frame rate is the
+    // knob for what the sign costs. Each frame's lateness, render time and interval from the
+    // previous one are recorded in FrameStats (HUD, metrics text, JFR).
+    static final class Signage {
+        static final String PROPERTY = "neonclock.signage", FPS_PROPERTY = "neonclock.signage.fps";
+        private static final RenderPolicy.Level LEVEL = RenderPolicy.Level.FULL;
+        // the pacer's anchor and RenderPolicy.after() deadlines round to different milliseconds
+        private static final long EARLY_NANOS = 2_000_000L;
+
+        final ScreenWall.Board board;
+        final FrameStats stats = new FrameStats();
+        private final ClockEngine engine;
+        private final GraphicsDevice device;
+        private final JFrame frame;
+        private final Canvas canvas;
+        private final ClockEngine.Listener listener;
+        private final Thread thread;
+        private volatile boolean running = true, changed = true, alarmsChanged = true, resized = true;
+        // render thread only
+        private final FramePacer pacer;
+        private final ScreenWall.Snapshot snapshot;
+        private final ScreenWall.Painter painter;
+        private java.awt.image.BufferStrategy strategy;
+        private java.awt.image.VolatileImage scene;
+        private long due;
+
+        // -Dneonclock.signage=board[@device], or null; EDT
+        static Signage openConfigured(ClockEngine engine) {
+            String p = System.getProperty(PROPERTY);
+            if (p == null || p.isBlank()) return null;
+            String[] parts = p.trim().split("@", 2);
+            try {
+                ScreenWall.Board board = ScreenWall.Board.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+                GraphicsEnvironment env = GraphicsEnvironment.getLocalGraphicsEnvironment();
+                GraphicsDevice device = parts.length == 1 ? env.getDefaultScreenDevice() : env.getScreenDevices()[Integer.parseInt(parts[1].trim())];
+                return open(engine, board, device);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+                System.err.println(PROPERTY + ": expected clock, timer or alarms, optionally @<display index>, not \"" + p + "\"");
+                return null;
+            }
+        }
+
+        // EDT
+        static Signage open(ClockEngine engine, ScreenWall.Board board, GraphicsDevice device) {
+            return new Signage(engine, board, device, configuredFps());
+        }
+
+        static int configuredFps() {
+            String p = System.getProperty(FPS_PROPERTY);
+            try {
+                return p == null ? 60 : Math.max(1, Math.min(240, Integer.parseInt(p.trim())));
+            } catch (NumberFormatException ex) {
+                System.err.println(FPS_PROPERTY + ": not a number: \"" + p + "\"");
+                return 60;
+            }
+        }
+
+        private Signage(ClockEngine engine, ScreenWall.Board board, GraphicsDevice device, int fps) {
+            this.engine = engine;
+            this.board = board;
+            this.device = device;
+            pacer = new FramePacer(fps);
+            snapshot = new ScreenWall.Snapshot(engine);
+            painter = new ScreenWall.Painter(board);
+            GraphicsConfiguration gc = device.getDefaultConfiguration();
+            frame = new JFrame("Neon Clock — " + board.name().toLowerCase(Locale.ROOT), gc);
+            frame.setUndecorated(true);
+            frame.setIgnoreRepaint(true);
+            frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+            frame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) { close(); }
+            });
+            canvas = new Canvas(gc);
+            canvas.setIgnoreRepaint(true);
+            canvas.setBackground(BG);
+            canvas.setCursor(Toolkit.getDefaultToolkit().createCustomCursor(
+                    new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), new Point(), "none"));
+            canvas.addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) { resized = true; }
+            });
+            canvas.addKeyListener(new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    if (e.getKeyCode() == KeyEvent.VK_ESCAPE || e.getKeyCode() == KeyEvent.VK_F11) close();
+                }
+            });
+            frame.getContentPane().add(canvas);
+            if (device.isFullScreenSupported()) {
+                device.setFullScreenWindow(frame);
+            } else {
+                frame.setBounds(gc.getBounds());
+                frame.setVisible(true);
+            }
+            canvas.requestFocus();
+            listener = new ClockEngine.Listener() {
+                @Override public void stopwatchChanged(ClockEngine.Stopwatch sw) { changed = true; }
+                @Override public void countdownChanged(ClockEngine.CountdownEngine.Countdown c) { changed = true; }
+                @Override public void countdownExpired(ClockEngine.CountdownEngine.Countdown c) { changed = true; }
+                @Override public void alarmsAdded(List<ClockEngine.AlarmItem> added) { rosterChanged(); }
+                @Override public void alarmRemoved(ClockEngine.AlarmItem ai, int index) { rosterChanged(); }
+                @Override public void alarmsChanged(List<ClockEngine.AlarmItem> changed) { rosterChanged(); }
+            };
+            engine.addListener(listener);
+            Telemetry.shared().signage(this);
+            thread = new Thread(this::run, "signage");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY - 1);
+            thread.start();
+        }
+
+        private void rosterChanged() {
+            alarmsChanged = true;
+            changed = true;
+        }
+
+        boolean isOpen() { return running; }
+
+        // leaves full-screen and closes the window once the current frame is done; any thread
+        void close() {
+            running = false;
+            java.util.concurrent.locks.LockSupport.unpark(thread);
+        }
+
+        private void run() {
+            try {
+                Rectangle bounds = device.getDefaultConfiguration().getBounds();
+                painter.prepare(bounds.width, bounds.height);
+                while (running) {
+                    long deadline = pacer.next(System.nanoTime());
+                    while (running && System.nanoTime() - deadline < 0)
+                        java.util.concurrent.locks.LockSupport.parkNanos(this, deadline - System.nanoTime());
+                    if (!running) break;
+                    long start = System.nanoTime();
+                    if (render(deadline)) stats.record(board, deadline, start, System.nanoTime(), pacer.dropped());
+                }
+            } catch (IllegalStateException ex) {
+                // the window went away mid-frame
+            } finally {
+                SwingUtilities.invokeLater(this::dispose);
+            }
+        }
+
+        // one frame: the scene redrawn if its content changed or its surface was lost, then copied
+        // to the back buffer and shown; false while the canvas has no size yet
+        private boolean render(long deadline) {
+            int w = canvas.getWidth(), h = canvas.getHeight();
+            if (!canvas.isDisplayable() || w <= 0 || h <= 0) return false;
+            if (strategy == null || resized) {
+                resized = false;
+                strategy = createStrategy();
+            }
+            // a change is drawn on the frame whose deadline is nearest to it
+            boolean redraw = changed || deadline + EARLY_NANOS - due >= 0;
+            if (redraw) {
+                changed = false;
+                boolean roster = alarmsChanged;
+                alarmsChanged = false;
+                snapshot.capture(LEVEL, roster);
+                // a running counter shows a new value every frame
+                due = board == ScreenWall.Board.TIMER && snapshot.counting ? deadline : ScreenWall.nextChange(board, LEVEL, snapshot);
+            }
+            GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+            do {
+                do {
+                    if (scene == null || scene.getWidth() != w || scene.getHeight() != h) {
+                        if (scene != null) scene.flush();
+                        scene = gc.createCompatibleVolatileImage(w, h, Transparency.OPAQUE);
+                        redraw = true;
+                    }
+                    int valid = scene.validate(gc);
+                    if (valid == java.awt.image.VolatileImage.IMAGE_INCOMPATIBLE) {
+                        scene.flush();
+                        scene = gc.createCompatibleVolatileImage(w, h, Transparency.OPAQUE);
+                    }
+                    if (redraw || valid != java.awt.image.VolatileImage.IMAGE_OK) {
+                        Graphics2D g = scene.createGraphics();
+                        try {
+                            painter.paint(g, w, h, snapshot);
+                        } finally {
+                            g.dispose();
+                        }
+                        redraw = false;
+                    }
+                    Graphics g = strategy.getDrawGraphics();
+                    try {
+                        g.drawImage(scene, 0, 0, null);
+                    } finally {
+                        g.dispose();
+                    }
+                } while (scene.contentsLost() || strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+            return true;
+        }
+
+        // two buffers, flipped where the device can (always in exclusive mode), else copied
+        private java.awt.image.BufferStrategy createStrategy() {
+            try {
+                canvas.createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true),
+                        BufferCapabilities.FlipContents.UNDEFINED));
+            } catch (AWTException ex) {
+                canvas.createBufferStrategy(2);
+            }
+            return canvas.getBufferStrategy();
+        }
+
+        // EDT, after the render thread has stopped
+        private void dispose() {
+            engine.removeListener(listener);
+            Telemetry.shared().signageClosed(this);
+            if (scene != null) scene.flush();
+            if (device.getFullScreenWindow() == frame) device.setFullScreenWindow(null);
+            frame.dispose();
+        }
+
+        // Frame n is due at anchor + n * 1s / fps: a whole number of frames per second without
+        // rounding drift. The anchor is the last wall-clock second (plus RenderPolicy's slack),
+        // taken again every minute, so every second's digits change on a frame. A loop that falls
+        // a whole frame or more behind skips to the latest deadline passed and counts the frames
+        // in between as dropped, rather than bursting through them. One thread.
+        static final class FramePacer {
+            private static final int ANCHOR_SECONDS = 60;
+            final int fps;
+            final long periodNanos;
+            private long anchor, frame = Long.MAX_VALUE, last = System.nanoTime(), dropped;
+
+            FramePacer(int fps) {
+                this.fps = fps;
+                periodNanos = 1_000_000_000L / fps;
+            }
+
+            // the deadline of the next frame to draw, now or after waiting for it
+            long next(long now) {
+                if (frame >= (long) fps * ANCHOR_SECONDS) anchor();
+                long d = deadline(frame);
+                if (now - d >= periodNanos) {
+                    long behind = Math.floorDiv((now - anchor) * fps, 1_000_000_000L);
+                    dropped += behind - frame;
+                    d = deadline(frame = behind);
+                }
+                frame++;
+                return last = d;
+            }
+
+            long dropped() { return dropped; }
+
+            private long deadline(long n) { return anchor + n * 1_000_000_000L / fps; }
+
+            // onto the current second's grid, at its first frame over half a period after the last
+            // one returned: the wall clock may have drifted from nanoTime since the last anchor
+            private void anchor() {
+                anchor = RenderPolicy.after(1000 - System.currentTimeMillis() % 1000) - 1_000_000_000L;
+                frame = Math.max(0, Math.floorDiv((last + periodNanos / 2 - anchor) * fps, 1_000_000_000L) + 1);
+            }
+        }
+
+        // Per presented frame: how late it started against its deadline, how long drawing and
+        // showing took, and the time since the frame before was shown. Each as a window (HUD,
+        // percentiles) and as a cumulative histogram (the metrics text). One writer, any readers.
+        static final class FrameStats {
+            final ClockEngine.LatencyRecorder lateness = new ClockEngine.LatencyRecorder(Telemetry.WINDOW);
+            final ClockEngine.LatencyRecorder render = new ClockEngine.LatencyRecorder(Telemetry.WINDOW);
+            final ClockEngine.LatencyRecorder interval = new ClockEngine.LatencyRecorder(Telemetry.WINDOW);
+            final Telemetry.Histogram latenessHistogram = new Telemetry.Histogram();
+            final Telemetry.Histogram renderHistogram = new Telemetry.Histogram();
+            final Telemetry.Histogram intervalHistogram = new Telemetry.Histogram();
+            private volatile long dropped;
+            private long lastShown;
+
+            // nanoTime of the frame's deadline, of its start, and when it was shown
+            void record(ScreenWall.Board board, long deadline, long start, long shown, long dropped) {
+                this.dropped = dropped;
+                lateness.record(start - deadline);
+                latenessHistogram.record(start - deadline);
+                render.record(shown - start);
+                renderHistogram.record(shown - start);
+                if (lastShown != 0) {
+                    interval.record(shown - lastShown);
+                    intervalHistogram.record(shown - lastShown);
+                }
+                if (Telemetry.jfr) {
+                    Telemetry.SignageFrameEvent e = new Telemetry.SignageFrameEvent();
+                    e.board = board.name().toLowerCase(Locale.ROOT);
+                    e.lateness = start - deadline;
+                    e.renderTime = shown - start;
+                    e.interval = lastShown == 0 ? 0 : shown - lastShown;
+                    e.commit();
+                }
+                lastShown = shown;
+            }
+
+            long dropped() { return dropped; }
+        }
+    }
+
+    // ------------------ Tick Scheduler ------------------
+    // One Swing timer drives every periodic task in the app. Tasks register a period and an
+    // optional owner component; everything due within the same frame runs in one pulse, and
+    // tasks whose owner is not showing (hidden tab, minimised window) are not woken at all.
+    // Tasks without an owner (alarm checks, running countdowns) keep ticking in the background.
+    static final class TickScheduler {
+        static final int FRAME_MS = 16;
+        private static final long FRAME_NANOS = FRAME_MS * 1_000_000L;
+
+        private final javax.swing.Timer pulse;
+        // copy-on-write: Telemetry reads it from other threads
+        private final List<Registration> registrations = new java.util.concurrent.CopyOnWriteArrayList<>();
+        // |actual - deadline| of every callback
+        final ClockEngine.LatencyRecorder jitter = new ClockEngine.LatencyRecorder(Telemetry.WINDOW);
+        private final long origin = System.nanoTime();
+        private boolean iconified = false;
+        private boolean inPulse = false;
+        private long wakeups = 0;
+        private long callbacks = 0;
+        // headless measurement: owned tasks run as if their owner were showing
+        private final boolean assumeShowing;
+        final RenderPolicy policy = new RenderPolicy(RenderPolicy.configuredPower());
+
+        TickScheduler() { this(false); }
+
+        TickScheduler(boolean assumeShowing) {
+            this.assumeShowing = assumeShowing;
+            pulse = new javax.swing.Timer(FRAME_MS, e -> onPulse());
+            pulse.setRepeats(false);
+        }
+
+        // owner == null means "always run"; otherwise the task only runs while owner is showing.
+        // periodMs == 0 registers a one-shot task that runs once now and then only at wakeAt() deadlines.
+        Registration register(String name, Component owner, int periodMs, Runnable task) {
+            Registration r = new Registration(name, owner, periodMs, task);
+            registrations.add(r);
+            if (owner != null) {
+                owner.addHierarchyListener(e -> {
+                    if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                        // catch up immediately when a tab comes back into view
+                        if (owner.isShowing()) r.due = System.nanoTime();
+                        reschedule();
+                    }
+                });
+            }
+            reschedule();
+            return r;
+        }
+
+        // suspend owned (UI) tasks while the window is minimised; the render policy follows its focus
+        void attach(Window w) {
+            policy.attach(w, this);
+            w.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowIconified(WindowEvent e) { iconified = true; reschedule(); }
+                @Override
+                public void windowDeiconified(WindowEvent e) {
+                    iconified = false;
+                    long now = System.nanoTime();
+                    for (Registration r : registrations) if (r.owner != null) r.due = now;
+                    reschedule();
+                }
+            });
+        }
+
+        long getWakeups() { return wakeups; }
+        long getCallbacks() { return callbacks; }
+
+        String describe() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("wakeups=%d callbacks=%d", wakeups, callbacks));
+            for (Registration r : registrations)
+                sb.append(String.format("%n  %-18s period=%4dms live=%-5b runs=%d", r.name, r.periodMs, r.isLive(), r.runs));
+            return sb.toString();
+        }
+
+        private void onPulse() {
+            long now = System.nanoTime();
+            long horizon = now + FRAME_NANOS / 2;
+            wakeups++;
+            inPulse = true;
+            try {
+                // index loop: tasks may register or cancel from inside their callback
+                for (int i = 0; i < registrations.size(); i++) {
+                    Registration r = registrations.get(i);
+                    if (!r.isLive() || r.due > horizon) continue;
+                    long start = System.nanoTime(), late = start - r.due;
+                    if (r.periodNanos == 0) {
+                        r.due = Long.MAX_VALUE; // one-shot: idle until the next wakeAt()
+                    } else {
+                        // keep the nominal cadence, but don't burst to catch up after a stall
+                        r.due += r.periodNanos;
+                        if (r.due < now) r.due = now + r.periodNanos;
+                    }
+                    r.runs++;
+                    callbacks++;
+                    r.task.run();
+                    long cost = System.nanoTime() - start;
+                    jitter.record(Math.abs(late));
+                    r.cost.record(cost);
+                    if (Telemetry.jfr) Telemetry.ticked(r.name, late, cost);
+                }
+            } finally {
+                inPulse = false;
+            }
+            registrations.removeIf(r -> r.cancelled);
+            reschedule();
+        }
+
+        private void reschedule() {
+            if (inPulse) return; // onPulse reschedules once all due tasks have run
+            long next = Long.MAX_VALUE;
+            for (Registration r : registrations) {
+                if (r.isLive() && r.due < next) next = r.due;
+            }
+            if (next == Long.MAX_VALUE) {
+                pulse.stop(); // nothing to do: no wakeups at all
+                return;
+            }
+            // snap to the nearest frame boundary so tasks with nearby deadlines share a pulse
+            long now = System.nanoTime();
+            long frames = Math.max(0, (next - origin + FRAME_NANOS / 2) / FRAME_NANOS);
+            long at = Math.max(now, origin + frames * FRAME_NANOS);
+            int delayMs = (int) ((at - now + 999_999) / 1_000_000);
+            pulse.setInitialDelay(delayMs);
+            pulse.restart();
+        }
+
+        final class Registration {
+            private final String name;
+            private final Component owner;
+            private final Runnable task;
+            // time spent in the callback
+            final ClockEngine.LatencyRecorder cost = new ClockEngine.LatencyRecorder(Telemetry.WINDOW);
+            private int periodMs;
+            private long periodNanos;
+            private long due;
+            private long runs = 0;
+            private boolean active = true;
+            private boolean cancelled = false;
+
+            private Registration(String name, Component owner, int periodMs, Runnable task) {
+                this.name = name;
+                this.owner = owner;
+                this.task = task;
+                this.periodMs = periodMs;
+                this.periodNanos = periodMs * 1_000_000L;
+                this.due = System.nanoTime();
+            }
+
+            void setActive(boolean on) {
+                if (on == active) return;
+                active = on;
+                if (on) due = System.nanoTime() + periodNanos;
+                reschedule();
+            }
+
+            void setPeriod(int ms) {
+                if (ms == periodMs) return;
+                due += (ms - periodMs) * 1_000_000L;
+                periodMs = ms;
+                periodNanos = ms * 1_000_000L;
+                reschedule();
+            }
+
+            // run once at the given System.nanoTime() deadline (replaces any earlier deadline)
+            void wakeAt(long nanoTime) {
+                due = nanoTime;
+                reschedule();
+            }
+
+            void cancel() {
+                cancelled = true;
+                if (!inPulse) registrations.remove(this);
+                reschedule();
+            }
+
+            private boolean isLive() {
+                if (!active || cancelled) return false;
+                return owner == null || assumeShowing || (!iconified && owner.isShowing());
+            }
+        }
+    }
+
+    // ------------------ Render Policy ------------------
+    // How often the UI redraws. Displays are not polled: each wakes when what it shows next
+    // changes (the clock on the second or half second, the header at midnight, the glow when it
+    // moves to another shade, the world grid on the second). What remains is chosen per level:
+    // the shortest gap between glow frames (0: no animation timer at all), the frame interval of
+    // a running stopwatch or countdown (1000: once per displayed second, on the second), and
+    // whether the clock's colon blinks. The level follows the power setting (-Dneonclock.power=
+    // performance, balanced, saver, static, or auto: balanced on mains, saver on battery), window
+    // focus, and input: after IDLE_MILLIS without any, rendering turns static. Minimised windows
+    // and hidden tabs are not woken at all (TickScheduler). EDT only.
+    static final class RenderPolicy {
+        enum Power { AUTO, PERFORMANCE, BALANCED, SAVER, STATIC }
+
+        enum Level {
+            FULL(16, 16, true), NORMAL(60, 40, true), BACKGROUND(250, 250, true), SAVER(1000, 1000, false), STATIC(0, 1000, false);
+
+            final int glowMs, counterMs;
+            final boolean blink;
+
+            Level(int glowMs, int counterMs, boolean blink) {
+                this.glowMs = glowMs;
+                this.counterMs = counterMs;
+                this.blink = blink;
+            }
+        }
+
+        static final long IDLE_MILLIS = 120_000;
+        private static final int BATTERY_POLL_MS = 60_000;
+        // the TickScheduler may run a task up to half a frame before its deadline
+        private static final long SLACK_NANOS = (TickScheduler.FRAME_MS / 2 + 1) * 1_000_000L;
+        private static final java.nio.file.Path POWER_SUPPLIES = java.nio.file.Paths.get("/sys/class/power_supply");
+
+        private final List<Runnable> listeners = new ArrayList<>();
+        private Power power;
+        private boolean focused = true, idle = false, onBattery = false;
+        private long lastInput = System.nanoTime();
+        private volatile Level level; // also read by the ScreenWall render thread
+        private TickScheduler.Registration idleCheck;
+
+        RenderPolicy(Power power) {
+            this.power = power;
+            level = compute();
+        }
+
+        static Power configuredPower() {
+            String p = System.getProperty("neonclock.power", "auto");
+            try {
+                return Power.valueOf(p.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                System.err.println("neonclock.power: unknown setting \"" + p + "\", using auto");
+                return Power.AUTO;
+            }
+        }
+
+        // a System.nanoTime() deadline just after a display's next change, millis from now
+        static long after(long millis) {
+            return System.nanoTime() + millis * 1_000_000L + SLACK_NANOS;
+        }
+
+        Level level() { return level; }
+        Power power() { return power; }
+
+        // runs on the EDT whenever the level changes
+        void addListener(Runnable r) { listeners.add(r); }
+
+        void setPower(Power p) {
+            power = p;
+            update();
+        }
+
+        void setFocused(boolean f) {
+            focused = f;
+            update();
+        }
+
+        // focus and input of w; with AUTO also the battery, where the platform tells (Linux sysfs)
+        void attach(Window w, TickScheduler ticks) {
+            w.addWindowFocusListener(new WindowAdapter() {
+                @Override
+                public void windowGainedFocus(WindowEvent e) { setFocused(true); }
+                @Override
+                public void windowLostFocus(WindowEvent e) { setFocused(false); }
+            });
+            // one wakeup per idle period: at lastInput + IDLE_MILLIS, either idle or re-armed
+            idleCheck = ticks.register("idle-check", null, 0, () -> {
+                long due = lastInput + IDLE_MILLIS * 1_000_000L;
+                if (System.nanoTime() - due >= 0) {
+                    idle = true;
+                    update();
+                } else {
+                    idleCheck.wakeAt(due);
+                }
+            });
+            Toolkit.getDefaultToolkit().addAWTEventListener(e -> {
+                lastInput = System.nanoTime();
+                if (!idle) return;
+                idle = false;
+                update();
+                idleCheck.wakeAt(lastInput + IDLE_MILLIS * 1_000_000L);
+            }, AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+            if (power == Power.AUTO && batteryState() != null) {
+                ticks.register("battery-check", null, BATTERY_POLL_MS, () -> {
+                    Boolean b = batteryState();
+                    onBattery = b != null && b;
+                    update();
+                });
+            }
+        }
+
+        // true on battery, false on mains, null where it can't be told (no sysfs, no battery)
+        static Boolean batteryState() {
+            if (!java.nio.file.Files.isDirectory(POWER_SUPPLIES)) return null;
+            boolean battery = false, mains = false;
+            try (java.nio.file.DirectoryStream<java.nio.file.Path> supplies = java.nio.file.Files.newDirectoryStream(POWER_SUPPLIES)) {
+                for (java.nio.file.Path s : supplies) {
+                    String type = read(s.resolve("type"));
+                    if ("Battery".equals(type)) battery = true;
+                    else if (("Mains".equals(type) || "USB".equals(type)) && "1".equals(read(s.resolve("online")))) mains = true;
+                }
+            } catch (java.io.IOException ex) {
+                return null;
+            }
+            return battery ? !mains : null;
+        }
+
+        private static String read(java.nio.file.Path p) {
+            try {
+                return new String(java.nio.file.Files.readAllBytes(p), java.nio.charset.StandardCharsets.US_ASCII).trim();
+            } catch (java.io.IOException ex) {
+                return null;
+            }
+        }
+
+        private void update() {
+            Level l = compute();
+            if (l == level) return;
+            level = l;
+            for (Runnable r : listeners) r.run();
+        }
+
+        private Level compute() {
+            Power p = power == Power.AUTO ? (onBattery ? Power.SAVER : Power.BALANCED) : power;
+            switch (p) {
+                case PERFORMANCE: return Level.FULL;
+                case STATIC: return Level.STATIC;
+                case SAVER: return idle ? Level.STATIC : Level.SAVER;
+                default: return idle ? Level.STATIC : focused ? Level.NORMAL : Level.BACKGROUND;
+            }
+        }
+    }
+
+    // ------------------ Tone Synthesis ------------------
+    // Alarm sounds as 16-bit PCM, rendered from a pattern: a sequence of steps, each a chord of
+    // partials (frequency, gain) shaped by an attack/decay/sustain/release envelope. Every partial
+    // is a table-lookup oscillator: a 32-bit phase accumulator whose top bits index a sine table
+    // (interpolated on the rest), so a sample costs two loads and a multiply-add instead of a
+    // Math.sin. The envelope and the float-to-PCM conversion are plain loops over arrays, in the
+    // shape the JIT vectorises. Rendered patterns are cached by their key in memory and, when a
+    // directory is given, on disk, so a pattern is synthesised once per install.
+    static final class ToneSynth {
+        private static final int TABLE_BITS = 12;
+        private static final int FRAC_BITS = 32 - TABLE_BITS;
+        private static final int FRAC_MASK = (1 << FRAC_BITS) - 1;
+        private static final float FRAC_SCALE = 1f / (1 << FRAC_BITS);
+        // one guard entry past the end, so interpolating the last slot needs no wrap-around
+        private static final float[] SINE = new float[(1 << TABLE_BITS) + 1];
+        static {
+            for (int i = 0; i < SINE.length; i++) SINE[i] = (float) Math.sin(2 * Math.PI * i / (1 << TABLE_BITS));
+        }
+        // peak level of a full chord, leaving headroom for voices the mixer sums on top
+        private static final float LEVEL = 0.7f;
+        private static final String CACHE_MAGIC = "neonclock-pcm-1";
+
+        static final class Envelope {
+            static final Envelope PLUCK = new Envelope(5, 60, 0.6f, 80);
+
+            final int attackMs, decayMs, releaseMs;
+            final float sustain;
+
+            Envelope(int attackMs, int decayMs, float sustain, int releaseMs) {
+                this.attackMs = attackMs;
+                this.decayMs = decayMs;
+                this.sustain = sustain;
+                this.releaseMs = releaseMs;
+            }
+        }
+
+        // durationMs of the chord, then gapMs of silence
+        static final class Step {
+            final double[] freqs;
+            final float[] gains;
+            final int durationMs, gapMs;
+
+            Step(double[] freqs, float[] gains, int durationMs, int gapMs) {
+                if (freqs.length != gains.length) throw new IllegalArgumentException("one gain per frequency");
+                this.freqs = freqs;
+                this.gains = gains;
+                this.durationMs = durationMs;
+                this.gapMs = gapMs;
+            }
+        }
+
+        static final class Pattern {
+            final Envelope envelope;
+            final List<Step> steps;
+            final String key;
+
+            Pattern(Envelope envelope, List<Step> steps) {
+                this.envelope = envelope;
+                this.steps = List.copyOf(steps);
+                StringBuilder sb = new StringBuilder();
+                sb.append(envelope.attackMs).append('/').append(envelope.decayMs).append('/')
+                        .append(envelope.sustain).append('/').append(envelope.releaseMs);
+                for (Step s : steps) {
+                    sb.append(';').append(s.durationMs).append('+').append(s.gapMs);
+                    for (int i = 0; i < s.freqs.length; i++) sb.append(',').append(s.freqs[i]).append('x').append(s.gains[i]);
+                }
+                key = sb.toString();
+            }
+
+            // a plain sine tone
+            static Pattern tone(double hz, int durationMs) {
+                return new Pattern(new Envelope(3, 0, 1f, 3),
+                        List.of(new Step(new double[]{hz}, new float[]{1f}, durationMs, 0)));
+            }
+
+            // the notification sound: each tone with its octave and twelfth over it, plucked
+            static Pattern chime(int[] tones, int toneMs, int gapMs) {
+                List<Step> steps = new ArrayList<>(tones.length);
+                for (int i = 0; i < tones.length; i++) {
+                    steps.add(new Step(new double[]{tones[i], tones[i] * 2.0, tones[i] * 3.0},
+                            new float[]{1f, 0.35f, 0.12f}, toneMs, i < tones.length - 1 ? gapMs : 0));
+                }
+                return new Pattern(Envelope.PLUCK, steps);
+            }
+        }
+
+        final int rate;
+        private final java.nio.file.Path dir;
+        private final Map<String, short[]> rendered = new java.util.concurrent.ConcurrentHashMap<>();
+
+        // dir == null: cached in memory only
+        ToneSynth(int rate, java.nio.file.Path dir) {
+            this.rate = rate;
+            this.dir = dir;
+        }
+
+        static java.nio.file.Path defaultDir() {
+            String p = System.getProperty("neonclock.tones");
+            return p != null ? java.nio.file.Paths.get(p) : java.nio.file.Paths.get(System.getProperty("user.home"), ".neonclock", "tones");
+        }
+
+        int cachedPatterns() { return rendered.size(); }
+
+        // the pattern as PCM at this rate: from memory, from the disk cache, or rendered (and stored)
+        short[] pcm(Pattern p) {
+            return rendered.computeIfAbsent(p.key, k -> {
+                String key = rate + "@" + k;
+                java.nio.file.Path file = dir == null ? null : dir.resolve(String.format("%016x.pcm", hash(key)));
+                short[] pcm = file == null ? null : load(file, key);
+                if (pcm == null) {
+                    pcm = render(p);
+                    if (file != null) store(file, key, pcm);
+                }
+                return pcm;
+            });
+        }
+
+        short[] render(Pattern p) {
+            int frames = 0;
+            for (Step s : p.steps) frames += frames(s.durationMs) + frames(s.gapMs);
+            float[] mix = new float[frames];
+            int at = 0;
+            for (Step s : p.steps) {
+                int n = frames(s.durationMs);
+                float total = 0;
+                for (float g : s.gains) total += g;
+                for (int k = 0; k < s.freqs.length; k++)
+                    oscillate(mix, at, n, phaseIncrement(s.freqs[k]), LEVEL * s.gains[k] / total);
+                envelope(mix, at, n, p.envelope);
+                at += n + frames(s.gapMs);
+            }
+            short[] pcm = new short[frames];
+            for (int i = 0; i < frames; i++) pcm[i] = (short) Math.max(-32768, Math.min(32767, (int) (mix[i] * 32767f)));
+            return pcm;
+        }
+
+        private int frames(int ms) { return (int) ((long) ms * rate / 1000); }
+
+        // cycles per sample as a fraction of 2^32; the accumulator wraps exactly once per cycle
+        int phaseIncrement(double hz) {
+            return (int) Math.round(hz / rate * 4294967296.0);
+        }
+
+        // adds gain * sin over out[from, from + n), starting at phase 0
+        static void oscillate(float[] out, int from, int n, int increment, float gain) {
+            int phase = 0;
+            for (int i = 0; i < n; i++) {
+                int index = phase >>> FRAC_BITS;
+                float a = SINE[index];
+                out[from + i] += gain * (a + (SINE[index + 1] - a) * ((phase & FRAC_MASK) * FRAC_SCALE));
+                phase += increment;
+            }
+        }
+
+        // attack to 1, decay to the sustain level, hold, then release to 0 over the step's end;
+        // segments shrink proportionally when the step is shorter than the envelope
+        private void envelope(float[] out, int from, int n, Envelope e) {
+            int a = frames(e.attackMs), d = frames(e.decayMs), r = frames(e.releaseMs);
+            if (a + d + r > n) {
+                double scale = (double) n / (a + d + r);
+                a = (int) (a * scale);
+                d = (int) (d * scale);
+                r = (int) (r * scale);
+            }
+            ramp(out, from, a, 0f, 1f);
+            ramp(out, from + a, d, 1f, e.sustain);
+            ramp(out, from + a + d, n - a - d - r, e.sustain, e.sustain);
+            ramp(out, from + n - r, r, e.sustain, 0f);
+        }
+
+        // scales out[from, from + n) by a straight line from start towards end
+        private static void ramp(float[] out, int from, int n, float start, float end) {
+            if (n <= 0) return;
+            float step = (end - start) / n;
+            for (int i = 0; i < n; i++) out[from + i] *= start + i * step;
+        }
+
+        // FNV-1a, for file names; the key itself is checked on load
+        private static long hash(String s) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) h = (h ^ s.charAt(i)) * 0x100000001b3L;
+            return h;
+        }
+
+        // null if missing, unreadable, or written for another key
+        private static short[] load(java.nio.file.Path file, String key) {
+            try (java.io.DataInputStream in = new java.io.DataInputStream(new java.io.BufferedInputStream(java.nio.file.Files.newInputStream(file)))) {
+                if (!in.readUTF().equals(CACHE_MAGIC) || !in.readUTF().equals(key)) return null;
+                short[] pcm = new short[in.readInt()];
+                byte[] bytes = new byte[pcm.length * 2];
+                in.readFully(bytes);
+                java.nio.ByteBuffer.wrap(bytes).order(java.nio.ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(pcm);
+                return pcm;
+            } catch (java.io.IOException | RuntimeException ex) {
+                return null;
+            }
+        }
+
+        // best effort: written whole to a temporary file, then moved into place
+        private static void store(java.nio.file.Path file, String key, short[] pcm) {
+            java.nio.file.Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                java.nio.file.Files.createDirectories(file.getParent());
+                try (java.io.DataOutputStream out = new java.io.DataOutputStream(new java.io.BufferedOutputStream(java.nio.file.Files.newOutputStream(tmp)))) {
+                    out.writeUTF(CACHE_MAGIC);
+                    out.writeUTF(key);
+                    out.writeInt(pcm.length);
+                    java.nio.ByteBuffer bytes = java.nio.ByteBuffer.allocate(pcm.length * 2).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+                    bytes.asShortBuffer().put(pcm);
+                    out.write(bytes.array());
+                }
+                java.nio.file.Files.move(tmp, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+            } catch (java.io.IOException | RuntimeException ex) {
+                try {
+                    java.nio.file.Files.deleteIfExists(tmp);
+                } catch (java.io.IOException ignored) {}
+            }
+        }
+    }
+
+    // ------------------ Audio Engine ------------------
+    // One long-lived output line fed by a mixer thread. Callers enqueue voices on a lock-free
+    // queue and return immediately; the mixer sums every active voice into the next chunk, so
+    // alarms that go off together are heard together rather than one after another. Sounds are
+    // 16-bit mono PCM from the engine's ToneSynth, rendered once and cached. With the null sink the
+    // engine runs without any audio device (tests, benchmarks, headless servers).
+    static final class AudioEngine {
+        static final int DEFAULT_RATE = 44100;
+
+        interface Sink {
+            void open(AudioFormat format) throws LineUnavailableException;
+            // blocks while the device buffer is full, which is what paces the mixer
+            void write(byte[] buf, int len);
+        }
+
+        private static AudioEngine shared;
+
+        private final AudioFormat format;
+        private final int chunkFrames;
+        private final Sink sink;
+        private final boolean available;
+        final ToneSynth synth;
+        private final java.util.concurrent.ConcurrentLinkedQueue<Voice> incoming = new java.util.concurrent.ConcurrentLinkedQueue<>();
+        private final Thread mixer;
+        private long framesWritten = 0;          // mixer thread only
+        private volatile long voicesPlayed = 0;
+
+        // lazily opened on first use, so startup never touches the sound system
+        static synchronized AudioEngine shared() {
+            if (shared == null) shared = new AudioEngine(DEFAULT_RATE, lineSink(), ToneSynth.defaultDir());
+            return shared;
+        }
+
+        AudioEngine(int sampleRate, Sink sink) { this(sampleRate, sink, null); }
+
+        // toneDir: where rendered patterns are cached on disk (null: memory only)
+        AudioEngine(int sampleRate, Sink sink, java.nio.file.Path toneDir) {
+            this.format = new AudioFormat(sampleRate, 16, 1, true, false);
+            this.synth = new ToneSynth(sampleRate, toneDir);
+            this.chunkFrames = Math.max(1, sampleRate / 50); // 20ms
+            this.sink = sink;
+            boolean ok;
+            try {
+                sink.open(format);
+                ok = true;
+            } catch (Exception e) {
+                ok = false;
+            }
+            available = ok;
+            mixer = new Thread(this::mixLoop, "audio-mixer");
+            mixer.setDaemon(true);
+            if (available) mixer.start();
+        }
+
+        static Sink lineSink() {
+            return new Sink() {
+                private SourceDataLine line;
+                @Override
+                public void open(AudioFormat f) throws LineUnavailableException {
+                    line = AudioSystem.getSourceDataLine(f);
+                    line.open(f, Math.max(64, (int) f.getSampleRate() / 10 * f.getFrameSize())); // ~100ms of buffering
+                    line.start();
+                }
+                @Override
+                public void write(byte[] buf, int len) { line.write(buf, 0, len); }
+            };
+        }
+
+        static Sink nullSink() {
+            return new Sink() {
+                @Override
+                public void open(AudioFormat f) {}
+                @Override
+                public void write(byte[] buf, int len) {}
+            };
+        }
+
+        long voicesPlayed() { return voicesPlayed; }
+
+        // start a tone delayMs from now; returns at once
+        Voice play(int frequencyHz, int durationMs, int delayMs) {
+            return play(ToneSynth.Pattern.tone(frequencyHz, durationMs), delayMs);
+        }
+
+        Voice play(ToneSynth.Pattern pattern, int delayMs) {
+            return play(synth.pcm(pattern), delayMs);
+        }
+
+        Voice play(short[] pcm, int delayMs) {
+            Voice v = new Voice(pcm, (long) delayMs * (long) format.getSampleRate() / 1000);
+            if (!available) {
+                Toolkit.getDefaultToolkit().beep();
+                v.done.countDown();
+                return v;
+            }
+            incoming.add(v);
+            java.util.concurrent.locks.LockSupport.unpark(mixer);
+            return v;
+        }
+
+        private void mixLoop() {
+            byte[] out = new byte[chunkFrames * 2];
+            int[] acc = new int[chunkFrames];
+            List<Voice> active = new ArrayList<>();
+            while (true) {
+                Voice v;
+                while ((v = incoming.poll()) != null) {
+                    v.startFrame = framesWritten + v.delayFrames;
+                    active.add(v);
+                }
+                if (active.isEmpty()) {
+                    // idle: no wakeups until play() unparks us (a permit from a racing play() is not lost)
+                    java.util.concurrent.locks.LockSupport.park(this);
+                    continue;
+                }
+                Arrays.fill(acc, 0);
+                long chunkStart = framesWritten;
+                for (int i = active.size() - 1; i >= 0; i--) {
+                    Voice a = active.get(i);
+                    if (a.cancelled) {
+                        active.remove(i);
+                        a.done.countDown();
+                        continue;
+                    }
+                    int from = (int) Math.max(0, a.startFrame - chunkStart);
+                    for (int f = from; f < chunkFrames && a.pos < a.pcm.length; f++) acc[f] += a.pcm[a.pos++];
+                    if (a.pos >= a.pcm.length) {
+                        active.remove(i);
+                        voicesPlayed++;
+                        a.done.countDown();
+                    }
+                }
+                for (int f = 0; f < chunkFrames; f++) {
+                    int sample = Math.max(-32768, Math.min(32767, acc[f]));
+                    out[2 * f] = (byte) sample;          // little-endian
+                    out[2 * f + 1] = (byte) (sample >> 8);
+                }
+                sink.write(out, out.length);
+                framesWritten += chunkFrames;
+            }
+        }
+
+        static final class Voice {
+            private final short[] pcm;
+            private final long delayFrames;
+            private final java.util.concurrent.CountDownLatch done = new java.util.concurrent.CountDownLatch(1);
+            private long startFrame;
+            private int pos = 0;
+            private volatile boolean cancelled = false;
+
+            private Voice(short[] pcm, long delayFrames) {
+                this.pcm = pcm;
+                this.delayFrames = delayFrames;
+            }
+
+            boolean isDone() { return done.getCount() == 0; }
+
+            // stop the voice at the next mixer chunk (or before it starts)
+            void cancel() { cancelled = true; }
+
+            // wait until the voice has been handed to the device
+            void await() {
+                try {
+                    done.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // ------------------ Notification Dispatch ------------------
+    // Alarm and timer notifications (tone pattern, then a message) run on a small bounded pool
+    // instead of one new thread each:
+    //  - a notification whose key is already queued or playing is coalesced into it;
+    //  - when the queue is full (an alarm storm) the tone is shed but the message still shows;
+    //  - messages that arrive together are shown in one dialog instead of a stack of modals;
+    //  - cancel(key) drops a queued notification and silences one that is playing.
+    // Queue depth and submit-to-start latency are tracked for diagnostics.
+    static final class NotificationDispatcher {
+        private static final int WORKERS = 2;
+        private static final int QUEUE_CAPACITY = 32;
+        private static NotificationDispatcher shared;
+
+        private final java.util.concurrent.ThreadPoolExecutor pool;
+        private final Map<String, Job> pending = new java.util.concurrent.ConcurrentHashMap<>();
+        private final java.util.concurrent.ConcurrentLinkedQueue<Object[]> messages = new java.util.concurrent.ConcurrentLinkedQueue<>();
+        private final java.util.concurrent.atomic.AtomicBoolean flushScheduled = new java.util.concurrent.atomic.AtomicBoolean();
+        private final AudioEngine audio;
+        private final ClockEngine.LatencyRecorder dispatchLatency = new ClockEngine.LatencyRecorder(1024);
+        private final java.util.concurrent.atomic.AtomicLong submitted = new java.util.concurrent.atomic.AtomicLong(),
+                coalesced = new java.util.concurrent.atomic.AtomicLong(),
+                shed = new java.util.concurrent.atomic.AtomicLong(),
+                cancelled = new java.util.concurrent.atomic.AtomicLong(),
+                completed = new java.util.concurrent.atomic.AtomicLong();
+
+        static synchronized NotificationDispatcher shared() {
+            if (shared == null) shared = new NotificationDispatcher(null);
+            return shared;
+        }
+
+        // audio == null means AudioEngine.shared(), resolved on first use
+        NotificationDispatcher(AudioEngine audio) {
+            this.audio = audio;
+            int[] n = {0};
+            pool = new java.util.concurrent.ThreadPoolExecutor(WORKERS, WORKERS, 30, java.util.concurrent.TimeUnit.SECONDS,
+                    new java.util.concurrent.ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                        Thread t = new Thread(r, "notify-" + (++n[0]));
+                        t.setDaemon(true);
+                        return t;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+        }
+
+        // play the tones (toneMs each, gapMs apart), then show message over parent; safe from any thread
+        void dispatch(String key, Component parent, String message, int[] tones, int toneMs, int gapMs) {
+            submitted.incrementAndGet();
+            Job job = new Job(key, parent, message, tones, toneMs, gapMs);
+            if (pending.putIfAbsent(key, job) != null) {
+                coalesced.incrementAndGet();
+                return;
+            }
+            try {
+                job.future = pool.submit(() -> run(job));
+            } catch (java.util.concurrent.RejectedExecutionException full) {
+                shed.incrementAndGet();
+                pending.remove(key, job);
+                post(parent, message);
+            }
+        }
+
+        void cancel(String key) {
+            Job job = pending.remove(key);
+            if (job == null) return;
+            cancelled.incrementAndGet();
+            job.cancelled = true;
+            if (job.future != null) job.future.cancel(false);
+            AudioEngine.Voice v = job.voice;
+            if (v != null) v.cancel();
+            pool.purge();
+        }
+
+        boolean isIdle() { return pending.isEmpty(); }
+        int queueDepth() { return pool.getQueue().size(); }
+        int activeCount() { return pool.getActiveCount(); }
+        ClockEngine.LatencyRecorder dispatchLatency() { return dispatchLatency; }
+
+        String describe() {
+            return String.format("notifications submitted=%d coalesced=%d shed=%d cancelled=%d completed=%d queue=%d active=%d latency %s",
+                    submitted.get(), coalesced.get(), shed.get(), cancelled.get(), completed.get(),
+                    queueDepth(), activeCount(), dispatchLatency.describe());
+        }
+
+        private void run(Job job) {
+            dispatchLatency.record(System.nanoTime() - job.submittedAt);
+            try {
+                if (job.cancelled) return;
+                AudioEngine engine = audio != null ? audio : AudioEngine.shared();
+                // the whole pattern is one voice, rendered (or read from the cache) in one go
+                AudioEngine.Voice v = engine.play(ToneSynth.Pattern.chime(job.tones, job.toneMs, job.gapMs), 0);
+                job.voice = v;
+                if (job.cancelled) v.cancel();
+                v.await();
+                if (!job.cancelled) post(job.parent, job.message);
+            } finally {
+                pending.remove(job.key, job);
+                completed.incrementAndGet();
+            }
+        }
+
+        private void post(Component parent, String message) {
+            messages.add(new Object[]{parent, message});
+            if (flushScheduled.compareAndSet(false, true)) SwingUtilities.invokeLater(this::flushMessages);
+        }
+
+        // one dialog for everything that arrived since the last flush
+        private void flushMessages() {
+            flushScheduled.set(false);
+            List<Object[]> batch = new ArrayList<>();
+            Object[] m;
+            while ((m = messages.poll()) != null) batch.add(m);
+            if (batch.isEmpty() || GraphicsEnvironment.isHeadless()) return;
+            Component parent = (Component) batch.get(0)[0];
+            if (batch.size() == 1) {
+                JOptionPane.showMessageDialog(parent, batch.get(0)[1]);
+                return;
+            }
+            StringBuilder sb = new StringBuilder(batch.size() + " notifications:");
+            int shown = Math.min(batch.size(), 15);
+            for (int i = 0; i < shown; i++) sb.append('\n').append(batch.get(i)[1]);
+            if (batch.size() > shown) sb.append("\n…and ").append(batch.size() - shown).append(" more");
+            JOptionPane.showMessageDialog(parent, sb.toString());
+        }
+
+        private static final class Job {
+            final String key;
+            final Component parent;
+            final String message;
+            final int[] tones;
+            final int toneMs, gapMs;
+            final long submittedAt = System.nanoTime();
+            volatile AudioEngine.Voice voice;
+            volatile java.util.concurrent.Future<?> future;
+            volatile boolean cancelled = false;
+
+            Job(String key, Component parent, String message, int[] tones, int toneMs, int gapMs) {
+                this.key = key;
+                this.parent = parent;
+                this.message = message;
+                this.tones = tones;
+                this.toneMs = toneMs;
+                this.gapMs = gapMs;
+            }
+        }
+    }
+
+    // -------------------- Utilities --------------------
+
+    // engine events arrive on the thread that caused them: run UI work now if that is the EDT
+    static void onEdt(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) r.run();
+        else SwingUtilities.invokeLater(r);
+    }
+
+    private static final Telemetry.Probe GLASS_PAINT = Telemetry.probe("glass panel");
+
+    // create a frosted glass panel style
+    static JPanel createGlassPanel(LayoutManager lm) {
+        JPanel p = new JPanel(lm) {
+            // background rendered once per size and device scale, then blitted (clipped to the dirty region)
+            private BufferedImage bg;
+            private double bgScale;
+
+            @Override
+            protected void paintComponent(Graphics g) {
+                long t0 = System.nanoTime();
+                int w = getWidth(), h = getHeight();
+                double scale = ((Graphics2D) g).getTransform().getScaleX();
+                if (bg == null || bgScale != scale
+                        || bg.getWidth() != (int) Math.ceil(w*scale) || bg.getHeight() != (int) Math.ceil(h*scale)) {
+                    bg = renderGlass(w, h, scale);
+                    bgScale = scale;
+                }
+                g.drawImage(bg, 0, 0, w, h, null);
+                super.paintComponent(g);
+                GLASS_PAINT.painted(t0);
+            }
+        };
+        p.setOpaque(false);
+        p.setBorder(new EmptyBorder(12,12,12,12));
+        return p;
+    }
+
+    private static BufferedImage renderGlass(int w, int h, double scale) {
+        BufferedImage img = GlyphAtlas.compatibleImage(Math.max(1, (int) Math.ceil(w*scale)), Math.max(1, (int) Math.ceil(h*scale)));
+        Graphics2D g2 = img.createGraphics();
+        g2.scale(scale, scale);
+        // translucent rounded rectangle
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int arc = 18;
+        g2.setColor(PANEL);
+        g2.fillRoundRect(0, 0, w, h, arc, arc);
+        // inner border glow
+        g2.setColor(new Color(0,0,0,60));
+        g2.setStroke(new BasicStroke(1.5f));
+        g2.drawRoundRect(1,1,w-3,h-3,arc,arc);
+        g2.dispose();
+        return img;
+    }
+
+    // create neon styled JButton
+    static JButton neonButton(String text, Color accent) {
+        JButton b = new JButton(text);
+        b.setFont(new Font("SansSerif", Font.BOLD, 14));
+        b.setForeground(Color.WHITE);
+        b.setBackground(new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), 220));
+        b.setFocusPainted(false);
+        b.setBorder(BorderFactory.createEmptyBorder(8,14,8,14));
+        b.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        b.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseEntered(MouseEvent e) { b.setBackground(accent.darker()); }
+            @Override
+            public void mouseExited(MouseEvent e) { b.setBackground(new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), 220)); }
+        });
+        return b;
+    }
+
+    // blend two colors (simple)
+    static Color blend(Color a, Color b, float ratio) {
+        ratio = Math.max(0f, Math.min(1f, ratio));
+        int r = (int) (a.getRed() * (1 - ratio) + b.getRed() * ratio);
+        int g = (int) (a.getGreen() * (1 - ratio) + b.getGreen() * ratio);
+        int bl = (int) (a.getBlue() * (1 - ratio) + b.getBlue() * ratio);
+        return new Color(Math.max(0, Math.min(255,r)), Math.max(0, Math.min(255,g)), Math.max(0, Math.min(255,bl)));
     }
 
     // ---------------- Main ----------------
     public static void main(String[] args) {
         // ensure UI created on EDT
+        warmUpFonts();
         SwingUtilities.invokeLater(() -> {
             try {
                 // optional: set a dark look and feel if supported
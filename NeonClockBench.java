@@ -0,0 +1,1309 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.*;
+import java.util.*;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.swing.*;
+
+// Micro-benchmark harness for the clock hot paths, modelled on JMH (warmup + measurement
+// iterations, throughput, sampled latency percentiles, allocation/GC profile) but with no
+// dependencies so it runs straight from the sources:
+//
+//   javac -encoding UTF-8 -d out *.java
+//   java -Djava.awt.headless=true -cp out NeonClockBench [-wi 3] [-i 5] [-r 1000] [regex]
+public class NeonClockBench {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // keeps results alive so the JIT can't drop the benchmarked work
+    static volatile Object sink;
+    static volatile long sinkLong;
+
+    private int warmupIterations = 3;
+    private int iterations = 5;
+    private long iterationMillis = 1000;
+    private Pattern filter = Pattern.compile(".*");
+    private final List<Result> results = new ArrayList<>();
+    private final List<Check> checks = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && args[0].equals("--startup-child")) {
+            startupChild();
+            return;
+        }
+        NeonClockBench b = new NeonClockBench();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi": b.warmupIterations = Integer.parseInt(args[++i]); break;
+                case "-i":  b.iterations = Integer.parseInt(args[++i]); break;
+                case "-r":  b.iterationMillis = Long.parseLong(args[++i]); break;
+                default:    b.filter = Pattern.compile(args[i]);
+            }
+        }
+        b.runAll();
+        b.printTable();
+        b.printChecks();
+        System.exit(b.checks.stream().anyMatch(c -> c.failures > 0) ? 1 : 0);
+    }
+
+    // ------------------ Benchmarks ------------------
+
+    private void runAll() throws Exception {
+        NeonClockApp.TickScheduler ticks = new NeonClockApp.TickScheduler();
+        ClockEngine engine = new ClockEngine(ZoneId.systemDefault(), null);
+
+        NeonClockApp.StopwatchPanel sw = new NeonClockApp.StopwatchPanel(ticks, engine);
+        long[] swNanos = {0};
+        bench("stopwatch.formatTime", () -> sink = sw.formatTime(swNanos[0] += 10_000_000L));
+
+        // headless engine: a lap appends to a long[] however many laps there are; laps spread over
+        // 10k running stopwatches (the UI panel's listener is subscribed and filters them out)
+        ClockEngine.Stopwatch[] watches = new ClockEngine.Stopwatch[10_000];
+        for (int i = 0; i < watches.length; i++) (watches[i] = engine.stopwatch("bench-" + i)).start();
+        int[] w = {0};
+        bench("engine.stopwatch.lap(10k stopwatches)", () -> {
+            ClockEngine.Stopwatch s = watches[w[0] = (w[0] + 1) % watches.length];
+            if (s.lap() == 999) s.reset(); // bounded memory: restart every 1000 laps
+        });
+        ClockEngine.Stopwatch lapWatch = engine.stopwatch("bench-laps");
+        ClockEngine.LapRecorder laps = lapWatch.laps();
+        NeonClockApp.LapListModel lapModel = new NeonClockApp.LapListModel(lapWatch);
+        Random rnd = new Random(42);
+        long t = 0;
+        for (int i = 0; i < 50_000; i++) laps.add(t += 1_000_000L + rnd.nextInt(2_000_000_000));
+        lapModel.sync();
+        bench("laps.percentile(p90, 50k laps)", () -> sink = laps.percentile(0.9));
+        int[] row = {0};
+        bench("lapModel.getElementAt(50k laps)", () -> sink = lapModel.getElementAt(row[0] = (row[0] + 1) % 40));
+
+        // scheduling cost of a countdown: one executor task per start, removed again on pause
+        ClockEngine.CountdownEngine countdowns = new ClockEngine.CountdownEngine(1024);
+        ClockEngine.CountdownEngine.Countdown[] cds = new ClockEngine.CountdownEngine.Countdown[1000];
+        for (int i = 0; i < cds.length; i++) cds[i] = countdowns.create("bench-" + i, null);
+        int[] cd = {0};
+        bench("countdown.start+pause(1k named)", () -> {
+            ClockEngine.CountdownEngine.Countdown c = cds[cd[0] = (cd[0] + 1) % cds.length];
+            c.set(60_000_000_000L);
+            c.start();
+            c.pause();
+        });
+        expiryLateness();
+        renderPower();
+        signagePacing();
+        startup();
+
+        // the timer wheel with a million far-off timers pending: schedule + cancel stay O(1)
+        if (filter.matcher("timerwheel").find()) {
+            try (ClockEngine.TimerWheel wheel = new ClockEngine.TimerWheel((h, tenant, p, late) -> {})) {
+                for (int i = 0; i < 1_000_000; i++) wheel.schedule(i / 10, 3_600_000_000_000L + i * 1_000_000L, i);
+                long[] tn = {0};
+                bench("timerwheel.schedule+cancel(1M pending)", () -> {
+                    long tenant = tn[0]++ % 100_000;
+                    wheel.cancel(wheel.schedule(tenant, 60_000_000_000L + (tenant << 20), 0));
+                });
+            }
+            timerWheelLoad();
+            timerWheelCheck();
+        }
+        eventLog();
+        eventLogCheck();
+
+        // the local API: one keep-alive request/response, then thousands of WebSocket subscribers
+        if (filter.matcher("server").find()) {
+            try (ClockServer server = ClockServer.open(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                 SocketChannel http = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port()))) {
+                ByteBuffer request = ByteBuffer.wrap("GET /time HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                ByteBuffer response = ByteBuffer.allocate(4096);
+                bench("server.http(GET /time, keep-alive)", () -> {
+                    try {
+                        http.write(request.rewind());
+                        response.clear();
+                        // a complete response ends with the JSON object's closing brace
+                        do http.read(response); while (response.get(response.position() - 1) != '}');
+                    } catch (java.io.IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+            }
+            serverPush(2_000);
+        }
+
+        NeonClockApp.TimerPanel tp = new NeonClockApp.TimerPanel(ticks, engine);
+        long[] tpMillis = {0};
+        bench("timer.formatTimer", () -> sink = tp.formatTimer(tpMillis[0] += 10));
+
+        float[] ratio = {0f};
+        bench("blend", () -> {
+            ratio[0] = ratio[0] > 1f ? 0f : ratio[0] + 0.01f;
+            sink = NeonClockApp.blend(Color.CYAN, Color.MAGENTA, ratio[0]);
+        });
+
+        // tone synthesis: the Math.sin loop the tones used to come from (8-bit at 1200 Hz, and the
+        // same loop at 16-bit/44.1kHz) against the table oscillator, for one tone and for the
+        // notification chime (three plucked chords of three partials), and a chime from the disk cache
+        bench("sine.mathSin(880Hz,1200,350ms,8-bit)", () -> sink = mathSin8(880, 1200, 350));
+        bench("sine.mathSin(880Hz,44100,350ms,16-bit)", () -> sink = mathSin16(880, 44100, 350));
+        NeonClockApp.ToneSynth synth = new NeonClockApp.ToneSynth(44100, null);
+        NeonClockApp.ToneSynth.Pattern tone = NeonClockApp.ToneSynth.Pattern.tone(880, 350);
+        NeonClockApp.ToneSynth.Pattern chime = NeonClockApp.ToneSynth.Pattern.chime(new int[]{880, 1000, 1120}, 350, 250);
+        bench("toneSynth.render(880Hz,44100,350ms)", () -> sink = synth.render(tone));
+        bench("toneSynth.render(chime 3x3 partials,1.55s)", () -> sink = synth.render(chime));
+        java.nio.file.Path toneDir = Files.createTempDirectory("neonclock-tones");
+        new NeonClockApp.ToneSynth(44100, toneDir).pcm(chime);
+        bench("toneSynth.pcm(chime, disk cache)", () -> sink = new NeonClockApp.ToneSynth(44100, toneDir).pcm(chime));
+
+        NeonClockApp.AudioEngine audio = new NeonClockApp.AudioEngine(44100, NeonClockApp.AudioEngine.nullSink());
+        bench("audio.synth.pcm(cached 880Hz,44100,350ms)", () -> sink = audio.synth.pcm(tone));
+        // 16 overlapping 350ms voices mixed through the null sink (pure mixing cost)
+        bench("audio.mix(16 voices x 350ms @44.1kHz)", () -> {
+            NeonClockApp.AudioEngine.Voice last = null;
+            for (int k = 0; k < 16; k++) last = audio.play(880 + k * 40, 350, k * 10);
+            last.await();
+        });
+
+        // 64 alarms firing at once, 8 distinct keys: exercises coalescing, the bounded queue and message batching
+        NeonClockApp.NotificationDispatcher notify = new NeonClockApp.NotificationDispatcher(audio);
+        int[] tones = {880, 1000, 1120};
+        bench("notify.dispatch(storm of 64, 8 keys)", () -> {
+            for (int k = 0; k < 64; k++) notify.dispatch("alarm:" + (k & 7), null, "Alarm!", tones, 350, 250);
+            while (!notify.isIdle()) Thread.onSpinWait();
+        });
+        if (notify.dispatchLatency().count() > 0) System.out.println(notify.describe() + "\n");
+
+        // headless alarm check (poll + re-arm of the engine wakeup); alarms are set 12h away so none
+        // of them fires during the run
+        for (int n : new int[]{10, 1_000, 10_000, 100_000}) {
+            try (ClockEngine alarmEngine = new ClockEngine(ZoneId.systemDefault(), null)) {
+                LocalTime base = LocalTime.now().plusHours(12);
+                List<LocalTime> times = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) times.add(base.plusMinutes(i % 120));
+                ClockEngine.AlarmService alarms = alarmEngine.alarms();
+                alarms.addAll(times, true);
+                bench("alarms.check(n=" + n + ")", alarms::check);
+            }
+        }
+
+        // next occurrence of a weekday alarm: the compiled rule against the same search done with
+        // ZonedDateTime, one local date at a time (what the scheduler did for daily alarms before)
+        ZoneId london = ZoneId.of("Europe/London");
+        ClockEngine.Recurrence.NextFire weekdays = ClockEngine.Recurrence.WEEKDAYS.compile(LocalTime.of(7, 30), new ClockEngine.ZoneDays(london));
+        long epoch = System.currentTimeMillis();
+        long[] fireAt = {epoch};
+        bench("recurrence.next(weekdays, compiled)", () -> {
+            fireAt[0] = weekdays.after(fireAt[0]);
+            if (fireAt[0] > epoch + 3650 * 86_400_000L) fireAt[0] = epoch;
+        });
+        bench("recurrence.next(weekdays, ZonedDateTime)", () -> {
+            LocalDate date = Instant.ofEpochMilli(fireAt[0]).atZone(london).toLocalDate();
+            for (; ; date = date.plusDays(1)) {
+                if (date.getDayOfWeek().getValue() > 5) continue;
+                long next = ZonedDateTime.of(date, LocalTime.of(7, 30), london).toInstant().toEpochMilli();
+                if (next > fireAt[0]) {
+                    fireAt[0] = next;
+                    break;
+                }
+            }
+            if (fireAt[0] > epoch + 3650 * 86_400_000L) fireAt[0] = epoch;
+        });
+        // 100k alarms with a mix of rules, queued (compiled) and resolved to their first occurrence
+        List<ClockEngine.AlarmItem> mixed = new ArrayList<>();
+        ClockEngine.Recurrence[] rules = {ClockEngine.Recurrence.DAILY, ClockEngine.Recurrence.WEEKDAYS, ClockEngine.Recurrence.WEEKENDS,
+                ClockEngine.Recurrence.every(45, LocalDate.now()), ClockEngine.Recurrence.once(LocalDate.now().plusDays(30))};
+        for (int i = 0; i < 100_000; i++)
+            mixed.add(new ClockEngine.AlarmItem(LocalTime.ofSecondOfDay(i % 1440 * 60), rules[i % rules.length], true, new UUID(0, i)));
+        bench("alarmScheduler.add(100k, mixed rules)", () -> {
+            ClockEngine.AlarmScheduler s = new ClockEngine.AlarmScheduler(london, epoch);
+            for (ClockEngine.AlarmItem ai : mixed) s.add(ai, epoch);
+            sink = s;
+        });
+        recurrenceCheck();
+
+        // journal append (one 32-byte record into the mapped file) and cold-path load of 100k alarms
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("neonclock-bench");
+        ClockEngine.AlarmJournal journal = ClockEngine.AlarmJournal.open(dir.resolve("append.journal"), ZoneId.systemDefault());
+        ClockEngine.AlarmItem item = new ClockEngine.AlarmItem(LocalTime.NOON, true, UUID.randomUUID());
+        bench("journal.append", () -> {
+            journal.put(item);
+            if (journal.records() >= 1_000_000) {
+                try { journal.compact(List.of(item)); } catch (java.io.IOException ex) { throw new RuntimeException(ex); }
+            }
+        });
+        journal.close();
+        java.nio.file.Path loadFile = dir.resolve("load.journal");
+        ClockEngine.AlarmJournal seed = ClockEngine.AlarmJournal.open(loadFile, ZoneId.systemDefault());
+        for (int i = 0; i < 100_000; i++)
+            seed.put(new ClockEngine.AlarmItem(LocalTime.ofSecondOfDay(i % 1440 * 60), i % 3 != 0, UUID.randomUUID()));
+        seed.close();
+        bench("journal.load(100k alarms)", () -> {
+            try (ClockEngine.AlarmJournal j = ClockEngine.AlarmJournal.open(loadFile, ZoneId.systemDefault())) {
+                sink = j.recovered();
+            } catch (java.io.IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        // compaction leaves the journal in a later generation ("append.journal.1", ...)
+        try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(dir)) {
+            for (java.nio.file.Path f : (Iterable<java.nio.file.Path>) files::iterator) java.nio.file.Files.deleteIfExists(f);
+        }
+        java.nio.file.Files.deleteIfExists(dir);
+
+        // roster import through the app's path (parse + validate, one addAll, the alarm panel formatting
+        // rows and taking them as one model event on the EDT), and export; 100k rows each
+        StringBuilder csv = new StringBuilder("time,enabled\n");
+        for (int i = 0; i < 100_000; i++) csv.append(String.format("%02d:%02d,%b%n", i / 60 % 24, i % 60, i % 3 != 0));
+        java.io.StringWriter ics = new java.io.StringWriter();
+        try (ClockEngine rosterEngine = new ClockEngine(ZoneId.systemDefault(), null)) {
+            ClockEngine.AlarmTransfer.Parsed parsed = ClockEngine.AlarmTransfer.read(new java.io.StringReader(csv.toString()),
+                    ClockEngine.AlarmTransfer.Format.CSV, ZoneId.systemDefault(), null);
+            rosterEngine.alarms().addAll(parsed.times, parsed.repeats, parsed.enabled);
+            List<ClockEngine.AlarmItem> roster = rosterEngine.alarms().snapshot();
+            ClockEngine.AlarmTransfer.write(ics, ClockEngine.AlarmTransfer.Format.ICALENDAR, roster, ZoneId.systemDefault());
+            bench("alarms.export(100k, csv)", () -> {
+                try {
+                    sinkLong = ClockEngine.AlarmTransfer.write(new java.io.BufferedWriter(java.io.Writer.nullWriter(), 64 * 1024),
+                            ClockEngine.AlarmTransfer.Format.CSV, roster, ZoneId.systemDefault());
+                } catch (java.io.IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+        }
+        for (ClockEngine.AlarmTransfer.Format format : ClockEngine.AlarmTransfer.Format.values()) {
+            String text = format == ClockEngine.AlarmTransfer.Format.CSV ? csv.toString() : ics.toString();
+            long[] longestEdtTask = {0};
+            bench("alarms.import(100k, " + format.name().toLowerCase() + ", into panel)", () -> {
+                try (ClockEngine importEngine = new ClockEngine(ZoneId.systemDefault(), null)) {
+                    NeonClockApp.AlarmPanel panel = new NeonClockApp.AlarmPanel(ticks, importEngine);
+                    ClockEngine.AlarmTransfer.Parsed p = ClockEngine.AlarmTransfer.read(new java.io.StringReader(text),
+                            format, ZoneId.systemDefault(), null);
+                    importEngine.alarms().addAll(p.times, p.repeats, p.enabled);
+                    // the model update queued by the panel's listener, timed as the EDT runs it
+                    long[] edt = new long[1];
+                    SwingUtilities.invokeAndWait(() -> edt[0] = System.nanoTime());
+                    SwingUtilities.invokeAndWait(() -> longestEdtTask[0] = Math.max(longestEdtTask[0], System.nanoTime() - edt[0]));
+                    sink = panel;
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+            if (longestEdtTask[0] > 0) System.out.printf("  longest EDT stretch: %.1fms%n%n", longestEdtTask[0] / 1e6);
+        }
+
+        // the alarm list is an index over the alarms: a state change is one binary search and one
+        // row event, a re-sort one primitive sort; rows are only formatted when painted
+        NeonClockApp.AlarmListModel alarmModel = new NeonClockApp.AlarmListModel();
+        List<ClockEngine.AlarmItem> roster = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++)
+            roster.add(new ClockEngine.AlarmItem(LocalTime.ofSecondOfDay(rnd.nextInt(86_400) / 60 * 60), rnd.nextBoolean(), new UUID(0, i)));
+        alarmModel.added(roster);
+        alarmModel.setOrder(NeonClockApp.AlarmListModel.Order.TIME);
+        List<ClockEngine.AlarmItem> one = new ArrayList<>(List.of(roster.get(0)));
+        int[] a = {0};
+        bench("alarmModel.changed(1 of 100k, by time)", () -> {
+            ClockEngine.AlarmItem ai = roster.get(a[0] = (a[0] + 7919) % roster.size());
+            ai.enabled = !ai.enabled;
+            one.set(0, ai);
+            alarmModel.changed(one);
+        });
+        alarmModel.setFilter(NeonClockApp.AlarmListModel.Filter.ENABLED);
+        bench("alarmModel.changed(1 of 100k, enabled only)", () -> {
+            ClockEngine.AlarmItem ai = roster.get(a[0] = (a[0] + 7919) % roster.size());
+            ai.enabled = !ai.enabled; // drops out of or joins the filtered view
+            one.set(0, ai);
+            alarmModel.changed(one);
+        });
+        alarmModel.setFilter(NeonClockApp.AlarmListModel.Filter.ALL);
+        boolean[] byTime = {false};
+        bench("alarmModel.setOrder(100k)", () -> alarmModel.setOrder((byTime[0] = !byTime[0])
+                ? NeonClockApp.AlarmListModel.Order.TIME : NeonClockApp.AlarmListModel.Order.ADDED));
+        NeonClockApp.AlarmCellRenderer alarmRenderer = new NeonClockApp.AlarmCellRenderer();
+        bench("alarmRenderer.format(visible row)", () -> sink = alarmRenderer.format(alarmModel.getElementAt(a[0] = (a[0] + 1) % 20)));
+
+        NeonClockApp.ClockPanel cp = new NeonClockApp.ClockPanel(ticks,
+                new ClockEngine.LocalClock(ZoneId.systemDefault()));
+        cp.setSize(980, 520);
+        layoutTree(cp);
+        cp.updateTime();
+        BufferedImage img = new BufferedImage(980, 520, BufferedImage.TYPE_INT_RGB);
+        bench("clockPanel.paint(980x520)", () -> {
+            Graphics2D g = img.createGraphics();
+            cp.paint(g);
+            g.dispose();
+        });
+        // a glow-bucket change: only the glow's bounding square is damaged
+        int r = Math.min(980, 520) / 3;
+        Rectangle glow = new Rectangle(980 / 2 - r, 520 / 3 - r, 2 * r, 2 * r);
+        bench("clockPanel.paint(glow region)", () -> {
+            Graphics2D g = img.createGraphics();
+            g.setClip(glow);
+            cp.paint(g);
+            g.dispose();
+        });
+        // one ScreenWall frame: the shared snapshot (read once for every board), then each board
+        // drawn at 1920x1080 into an offscreen image standing in for its BufferStrategy
+        try (ClockEngine wallEngine = new ClockEngine(ZoneId.systemDefault(), null)) {
+            for (int i = 0; i < 20; i++) wallEngine.alarms().add(LocalTime.of(7 + i % 12, i * 7 % 60), ClockEngine.Recurrence.WEEKDAYS, true);
+            wallEngine.countdown(NeonClockApp.TimerPanel.COUNTDOWN).set(25 * 60_000_000_000L);
+            NeonClockApp.ScreenWall.Snapshot snapshot = new NeonClockApp.ScreenWall.Snapshot(wallEngine);
+            boolean[] alarmsChanged = {true};
+            bench("screenWall.snapshot", () -> {
+                snapshot.capture(NeonClockApp.RenderPolicy.Level.FULL, alarmsChanged[0]);
+                alarmsChanged[0] = false;
+            });
+            BufferedImage screen = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+            for (NeonClockApp.ScreenWall.Board board : NeonClockApp.ScreenWall.Board.values()) {
+                NeonClockApp.ScreenWall.Painter painter = new NeonClockApp.ScreenWall.Painter(board);
+                bench("screenWall.paint(" + board.name().toLowerCase() + ", 1920x1080)", () -> {
+                    Graphics2D g = screen.createGraphics();
+                    painter.paint(g, 1920, 1080, snapshot);
+                    g.dispose();
+                });
+            }
+        }
+        // what the always-on instrumentation adds to a paint, and one scrape of every series
+        NeonClockApp.Telemetry.Probe probe = NeonClockApp.Telemetry.probe("bench");
+        bench("telemetry.probe.painted", () -> probe.painted(System.nanoTime()));
+        bench("telemetry.metricsText", () -> sink = NeonClockApp.Telemetry.shared().metricsText());
+
+        // world clock grid: one paint pass over the cells in a 980x520 viewport, for the default
+        // cities and for every zone the JDK knows (scrolled to the middle of the list)
+        List<ZoneId> allZones = new ArrayList<>();
+        for (String id : new TreeSet<>(ZoneId.getAvailableZoneIds())) allZones.add(ZoneId.of(id));
+        for (List<ZoneId> zones : List.of(ClockEngine.WorldClock.configuredZones(), allZones)) {
+            ClockEngine.WorldClock world = new ClockEngine.WorldClock(zones);
+            NeonClockApp.WorldClockPanel wp = new NeonClockApp.WorldClockPanel(ticks, world);
+            wp.setSize(980, 1);
+            wp.setSize(980, wp.getPreferredSize().height);
+            Rectangle viewport = new Rectangle(0, Math.max(0, wp.getHeight() / 2 - 260), 980, 520);
+            bench("worldClock.paint(" + zones.size() + " zones, 980x520 viewport)", () -> {
+                Graphics2D g = img.createGraphics();
+                g.translate(0, -viewport.y);
+                g.setClip(viewport);
+                wp.paint(g);
+                g.dispose();
+            });
+            // the per-tick fan-out alone: one instant, every zone's wall time
+            long[] at = {System.currentTimeMillis()};
+            bench("worldClock.secondOfDay(" + zones.size() + " zones)", () -> {
+                long now = at[0] += 1000;
+                long sum = 0;
+                for (int i = 0; i < world.size(); i++) sum += world.secondOfDay(i, now);
+                sinkLong = sum;
+            });
+        }
+
+        // the time text alone: atlas blits vs a JLabel recoloured every frame (the old path)
+        Font timeFont = new Font("Digital-7 Mono", Font.BOLD, 72);
+        NeonClockApp.GlyphTextView glyphs = new NeonClockApp.GlyphTextView(timeFont, Color.GREEN, Color.WHITE, "88:88:88 AM");
+        glyphs.setSize(glyphs.getPreferredSize());
+        char[] chars = "10:42:07 PM".toCharArray();
+        glyphs.setText(chars, chars.length);
+        // opaque, like the Swing back buffer
+        BufferedImage textImg = new BufferedImage(glyphs.getWidth(), glyphs.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int[] frame = {0};
+        bench("timeText.paint(GlyphTextView)", () -> {
+            glyphs.setTint((frame[0]++ % 20) / 100f);
+            Graphics2D g = textImg.createGraphics();
+            glyphs.paint(g);
+            g.dispose();
+        });
+        // a seconds tick: only the last digit's cell is damaged
+        int digitW = glyphs.getFontMetrics(timeFont).charWidth('0');
+        Rectangle lastDigit = new Rectangle(glyphs.getWidth() * 2 / 3, 0, digitW, glyphs.getHeight());
+        bench("timeText.paint(GlyphTextView,one digit)", () -> {
+            Graphics2D g = textImg.createGraphics();
+            g.setClip(lastDigit);
+            glyphs.paint(g);
+            g.dispose();
+        });
+        JLabel label = new JLabel("10:42:07 PM");
+        label.setFont(timeFont);
+        label.setSize(glyphs.getSize());
+        bench("timeText.paint(JLabel)", () -> {
+            label.setForeground(NeonClockApp.blend(Color.GREEN, Color.WHITE, (frame[0]++ % 20) / 100f));
+            Graphics2D g = textImg.createGraphics();
+            label.paint(g);
+            g.dispose();
+        });
+    }
+
+    // 10k countdowns of 1..500ms started together: how late does each expiry run?
+    private void expiryLateness() throws InterruptedException {
+        if (!filter.matcher("countdown.lateness").find()) return;
+        int n = 10_000;
+        ClockEngine.CountdownEngine engine = new ClockEngine.CountdownEngine(n);
+        java.util.concurrent.CountDownLatch expired = new java.util.concurrent.CountDownLatch(n);
+        Random rnd = new Random(7);
+        for (int i = 0; i < n; i++) {
+            ClockEngine.CountdownEngine.Countdown c = engine.create("t" + i, x -> expired.countDown());
+            c.set((1 + rnd.nextInt(500)) * 1_000_000L);
+            c.start();
+        }
+        expired.await();
+        ClockEngine.LatencyRecorder late = engine.lateness();
+        System.out.printf("# countdown.lateness(10k timers, 1..500ms): %s mean=%.3fms%n%n",
+                late.describe(), late.mean() / 1e6);
+    }
+
+    // redraw cost per power setting: scheduler wakeups and callbacks per second with the clock and
+    // world tabs showing and a stopwatch and a countdown running. The fixed-rate ticks this replaces
+    // made ~77 callbacks/s in this setup (clock 5, glow 16.7, world grid 4, stopwatch 50, header 1).
+    private void renderPower() throws Exception {
+        if (!filter.matcher("power").find()) return;
+        ClockEngine engine = new ClockEngine(ZoneId.systemDefault(), null);
+        NeonClockApp.TickScheduler ticks = new NeonClockApp.TickScheduler(true);
+        NeonClockApp.RenderPolicy policy = ticks.policy;
+        Object[][] settings = {
+                {NeonClockApp.RenderPolicy.Power.PERFORMANCE, true}, {NeonClockApp.RenderPolicy.Power.BALANCED, true},
+                {NeonClockApp.RenderPolicy.Power.BALANCED, false}, {NeonClockApp.RenderPolicy.Power.SAVER, true},
+                {NeonClockApp.RenderPolicy.Power.STATIC, true}};
+        SwingUtilities.invokeAndWait(() -> {
+            new NeonClockApp.ClockPanel(ticks, engine.clock());
+            new NeonClockApp.WorldClockPanel(ticks, new ClockEngine.WorldClock(ClockEngine.WorldClock.configuredZones()));
+            new NeonClockApp.StopwatchPanel(ticks, engine);
+            new NeonClockApp.TimerPanel(ticks, engine);
+            engine.stopwatch("stopwatch").start();
+            ClockEngine.CountdownEngine.Countdown timer = engine.countdowns().get("timer");
+            timer.set(3_600_000_000_000L);
+            timer.start();
+        });
+        System.out.println("# render.power(clock + world + running stopwatch and timer, 3s each)");
+        for (Object[] setting : settings) {
+            long[] before = new long[2], after = new long[2];
+            SwingUtilities.invokeAndWait(() -> {
+                policy.setPower((NeonClockApp.RenderPolicy.Power) setting[0]);
+                policy.setFocused((Boolean) setting[1]);
+            });
+            Thread.sleep(500); // settle on the new level's deadlines
+            SwingUtilities.invokeAndWait(() -> { before[0] = ticks.getWakeups(); before[1] = ticks.getCallbacks(); });
+            Thread.sleep(3000);
+            SwingUtilities.invokeAndWait(() -> { after[0] = ticks.getWakeups(); after[1] = ticks.getCallbacks(); });
+            System.out.printf("  %-12s %-9s level=%-10s wakeups %5.1f/s  callbacks %5.1f/s%n",
+                    setting[0], (Boolean) setting[1] ? "focused" : "unfocused", policy.level(),
+                    (after[0] - before[0]) / 3.0, (after[1] - before[1]) / 3.0);
+        }
+        System.out.println();
+    }
+
+    // the signage render loop's pacing at 60 fps, 3s per board at 1920x1080 after a second's
+    // warmup, with a stopwatch running so the timer board's scene is redrawn every frame. Headless,
+    // so frames go to an offscreen image in place of the display and there is no flip to wait for:
+    // this shows how closely parkNanos meets the deadlines and what a frame costs in software.
+    private void signagePacing() {
+        if (!filter.matcher("signage").find()) return;
+        ClockEngine engine = new ClockEngine(ZoneId.systemDefault(), null);
+        engine.stopwatch(NeonClockApp.StopwatchPanel.STOPWATCH).start();
+        System.out.println("# signage.pacing(60 fps, 1920x1080, 3s per board)");
+        for (NeonClockApp.ScreenWall.Board board : NeonClockApp.ScreenWall.Board.values()) {
+            NeonClockApp.ScreenWall.Painter painter = new NeonClockApp.ScreenWall.Painter(board);
+            painter.prepare(1920, 1080);
+            signageFrames(engine, painter, 1_000_000_000L);
+            NeonClockApp.Signage.FrameStats stats = new NeonClockApp.Signage.FrameStats();
+            int redraws = signageFrames(engine, painter, 3_000_000_000L, stats);
+            System.out.printf("  %-7s redraws %4d  dropped %3d%n    late     %s%n    frame    %s%n    interval %s%n",
+                    board.name().toLowerCase(), redraws, stats.dropped(), stats.lateness.describe(), stats.render.describe(), stats.interval.describe());
+        }
+        System.out.println();
+    }
+
+    private static int signageFrames(ClockEngine engine, NeonClockApp.ScreenWall.Painter painter, long nanos) {
+        return signageFrames(engine, painter, nanos, new NeonClockApp.Signage.FrameStats());
+    }
+
+    // Signage's loop with offscreen images: returns how many times the scene was redrawn
+    private static int signageFrames(ClockEngine engine, NeonClockApp.ScreenWall.Painter painter, long nanos, NeonClockApp.Signage.FrameStats stats) {
+        NeonClockApp.RenderPolicy.Level level = NeonClockApp.RenderPolicy.Level.FULL;
+        NeonClockApp.ScreenWall.Snapshot snapshot = new NeonClockApp.ScreenWall.Snapshot(engine);
+        NeonClockApp.Signage.FramePacer pacer = new NeonClockApp.Signage.FramePacer(60);
+        BufferedImage scene = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+        BufferedImage back = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+        long end = System.nanoTime() + nanos, due = 0;
+        int redraws = 0;
+        while (System.nanoTime() - end < 0) {
+            long deadline = pacer.next(System.nanoTime());
+            while (System.nanoTime() - deadline < 0)
+                java.util.concurrent.locks.LockSupport.parkNanos(deadline - System.nanoTime());
+            long start = System.nanoTime();
+            if (redraws == 0 || deadline - due >= 0) {
+                snapshot.capture(level, redraws == 0);
+                due = painter.board == NeonClockApp.ScreenWall.Board.TIMER ? deadline : NeonClockApp.ScreenWall.nextChange(painter.board, level, snapshot);
+                Graphics2D g = scene.createGraphics();
+                painter.paint(g, 1920, 1080, snapshot);
+                g.dispose();
+                redraws++;
+            }
+            Graphics g = back.createGraphics();
+            g.drawImage(scene, 0, 0, null);
+            g.dispose();
+            stats.record(painter.board, deadline, start, System.nanoTime(), pacer.dropped());
+        }
+        return redraws;
+    }
+
+    // load test: 1M timers over 100k tenants, 1..10s out, a tenth of them cancelled before expiry;
+    // reports schedule/cancel rates, memory per timer and expiry lateness percentiles
+    private void timerWheelLoad() throws InterruptedException {
+        int n = 1_000_000;
+        ClockEngine.LatencyRecorder late = new ClockEngine.LatencyRecorder(n);
+        java.util.concurrent.atomic.AtomicInteger expired = new java.util.concurrent.atomic.AtomicInteger();
+        try (ClockEngine.TimerWheel wheel = new ClockEngine.TimerWheel((h, tenant, p, l) -> {
+            late.record(l);
+            expired.incrementAndGet();
+        })) {
+            Random rnd = new Random(11);
+            long[] handles = new long[n];
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) handles[i] = wheel.schedule(i % 100_000, 1_000_000_000L + rnd.nextInt(9_000) * 1_000_000L, i);
+            long t1 = System.nanoTime();
+            int cancelled = 0;
+            for (int i = 0; i < n; i += 10) if (wheel.cancel(handles[i])) cancelled++;
+            long t2 = System.nanoTime();
+            System.out.printf("# timerwheel.load(1M timers, 100k tenants, %d shards): schedule %.0f ns/op, cancel %.0f ns/op, %d B/timer%n",
+                    wheel.shardCount(), (t1 - t0) / (double) n, (t2 - t1) / (n / 10.0), wheel.footprintBytes() / n);
+            while (wheel.size() > 0) Thread.sleep(50);
+            System.out.printf("  expired %,d (cancelled %,d)  lateness %s p99.9=%.2fms mean=%.3fms%n%n",
+                    expired.get(), cancelled, late.describe(), late.percentile(0.999) / 1e6, late.mean() / 1e6);
+        }
+    }
+
+    // the timing wheel against a model: random schedules (delays from zero to a few seconds) and
+    // cancels, on a wheel with the usual 1 ms ticks and on one with 20 µs ticks, where the same
+    // delays reach the third level and cascade twice. Every timer must fire exactly once, never
+    // before its deadline and never after cancel() reported it cancelled; a cancel may only be
+    // refused once the timer is due.
+    private void timerWheelCheck() throws InterruptedException {
+        Check check = check("timerwheel.model");
+        for (long tickNanos : new long[]{1_000_000L, 20_000L}) timerWheelCheck(check, tickNanos, 20_000);
+    }
+
+    private void timerWheelCheck(Check check, long tickNanos, int n) throws InterruptedException {
+        long margin = 250_000_000L; // how late a timer may be before it counts as missed
+        long[] handles = new long[n], from = new long[n], tenants = new long[n], keys = new long[n];
+        boolean[] cancelled = new boolean[n];
+        java.util.concurrent.atomic.AtomicIntegerArray fires = new java.util.concurrent.atomic.AtomicIntegerArray(n);
+        java.util.concurrent.atomic.AtomicLongArray firedAt = new java.util.concurrent.atomic.AtomicLongArray(n);
+        java.util.concurrent.atomic.AtomicLongArray lateness = new java.util.concurrent.atomic.AtomicLongArray(n);
+        java.util.concurrent.atomic.AtomicLongArray firedTenant = new java.util.concurrent.atomic.AtomicLongArray(n);
+        // pending timers by the latest their deadline can be (the time schedule() returned plus the
+        // delay), nudged a nanosecond on a tie
+        TreeMap<Long, Integer> pending = new TreeMap<>();
+        String config = "tick " + tickNanos / 1000 + " us";
+        Random rnd = new Random(13 + tickNanos);
+        int scheduled = 0;
+        try (ClockEngine.TimerWheel wheel = new ClockEngine.TimerWheel(3, tickNanos, (h, tenant, p, late) -> {
+            long now = System.nanoTime();
+            if (fires.getAndIncrement(p) == 0) {
+                firedAt.set(p, now);
+                lateness.set(p, late);
+                firedTenant.set(p, tenant);
+            }
+        })) {
+            for (int op = 0; op < 2 * n && scheduled < n; op++) {
+                if (scheduled == 0 || rnd.nextInt(10) < 7) {
+                    int i = scheduled++;
+                    int kind = rnd.nextInt(20);
+                    long delay = kind == 0 ? 0
+                            : kind < 5 ? (long) (rnd.nextDouble() * 3 * tickNanos)
+                            : kind < 15 ? (long) (rnd.nextDouble() * 300_000_000L)
+                            : (long) (rnd.nextDouble() * 2_500_000_000L);
+                    tenants[i] = rnd.nextInt(50);
+                    from[i] = System.nanoTime() + delay;
+                    handles[i] = wheel.schedule(tenants[i], delay, i);
+                    long key = System.nanoTime() + delay;
+                    while (pending.containsKey(key)) key++;
+                    pending.put(keys[i] = key, i);
+                } else {
+                    int i = rnd.nextInt(scheduled);
+                    long before = System.nanoTime();
+                    if (wheel.cancel(handles[i])) {
+                        if (cancelled[i]) check.fail(config + ": timer " + i + " cancelled twice");
+                        cancelled[i] = true;
+                        pending.remove(keys[i]);
+                    } else if (!cancelled[i] && before < from[i]) {
+                        check.fail(config + ": cancel refused timer " + i + " " + (from[i] - before) / 1000 + " us before its deadline");
+                    }
+                }
+                if (op % 500 == 499) {
+                    Thread.sleep(rnd.nextInt(20));
+                    missed(check, config, pending, fires, System.nanoTime() - margin);
+                }
+            }
+            long last = pending.isEmpty() ? 0 : pending.lastKey();
+            long giveUp = Math.max(last, System.nanoTime()) + 5_000_000_000L;
+            while (wheel.size() > 0 && System.nanoTime() < giveUp) Thread.sleep(20);
+            Thread.sleep(50); // the last expiries are dispatched after they leave the wheel
+            missed(check, config, pending, fires, Long.MAX_VALUE);
+            if (wheel.size() != 0) check.fail(config + ": " + wheel.size() + " timers still pending");
+        }
+        for (int i = 0; i < scheduled; i++) {
+            check.cases++;
+            int f = fires.get(i);
+            if (cancelled[i]) {
+                if (f > 0) check.fail(config + ": timer " + i + " fired after it was cancelled");
+                continue;
+            }
+            if (f > 1) check.fail(config + ": timer " + i + " fired " + f + " times");
+            if (f == 0) continue; // reported as missed
+            if (firedAt.get(i) < from[i]) check.fail(config + ": timer " + i + " fired " + (from[i] - firedAt.get(i)) / 1000 + " us early");
+            if (lateness.get(i) < 0) check.fail(config + ": timer " + i + " reported lateness " + lateness.get(i) + " ns");
+            if (firedTenant.get(i) != tenants[i]) check.fail(config + ": timer " + i + " fired for tenant " + firedTenant.get(i) + ", not " + tenants[i]);
+        }
+    }
+
+    // timers whose deadline (at the latest) is before `due` must have fired; they leave the model
+    private static void missed(Check check, String config, TreeMap<Long, Integer> pending,
+                               java.util.concurrent.atomic.AtomicIntegerArray fires, long due) {
+        for (Iterator<Map.Entry<Long, Integer>> it = pending.headMap(due).entrySet().iterator(); it.hasNext(); ) {
+            int i = it.next().getValue();
+            if (fires.get(i) == 0) check.fail(config + ": timer " + i + " missed");
+            it.remove();
+        }
+    }
+
+    // the audit log with 2M events spread over 30 days: what recording costs the caller, bytes per
+    // event on disk, reopening (rebuilding the time index), and range queries through the index
+    private void eventLog() throws Exception {
+        if (!filter.matcher("eventlog").find()) return;
+        java.nio.file.Path file = Files.createTempFile("neonclock-events", ".log");
+        try {
+            int n = 2_000_000;
+            long span = 30 * 86_400_000_000_000L, start;
+            ClockEngine.EventLog.Type[] types = ClockEngine.EventLog.Type.values();
+            String[] subjects = new String[16];
+            for (int i = 0; i < subjects.length; i++) subjects[i] = "stopwatch-" + i;
+            try (ClockEngine.EventLog log = ClockEngine.EventLog.open(file, 64 * 1024)) {
+                start = log.now() - span;
+                // in bursts that fit the ring, so the caller's cost is the ring alone; the writer's
+                // is the flush after each burst
+                long caller = 0, writer = 0;
+                for (int burst = 0; burst < n; burst += 50_000) {
+                    long t0 = System.nanoTime();
+                    for (int i = burst; i < burst + 50_000; i++)
+                        log.recordAll(start + i * (span / n), types[i % types.length], subjects[i & 15], i * 1_000_003L);
+                    long t1 = System.nanoTime();
+                    log.flush();
+                    caller += t1 - t0;
+                    writer += System.nanoTime() - t1;
+                }
+                System.out.printf("# eventlog(2M events over 30 days): record %.0f ns/event (caller), write %.0f ns/event (writer thread), %.2f B/event, %d blocks%n",
+                        caller / (double) n, writer / (double) n, log.bytes() / (double) log.size(), log.blockCount());
+            }
+            long t0 = System.nanoTime();
+            try (ClockEngine.EventLog log = ClockEngine.EventLog.open(file, 1024)) {
+                long t1 = System.nanoTime();
+                long[] seen = {0};
+                long all = log.query(Long.MIN_VALUE, Long.MAX_VALUE, (t, type, subject, value) -> seen[0] += value);
+                long t2 = System.nanoTime();
+                System.out.printf("  reopen %.1f ms (%,d events indexed), full scan %.0f ms (%,d events)%n%n",
+                        (t1 - t0) / 1e6, log.size(), (t2 - t1) / 1e6, all);
+                Random rnd = new Random(5);
+                for (long window : new long[]{3_600_000_000_000L, 86_400_000_000_000L}) {
+                    bench("eventlog.query(" + (window == 3_600_000_000_000L ? "1h" : "1 day") + " of 30 days, 2M events)", () -> {
+                        long from = start + (long) (rnd.nextDouble() * (span - window));
+                        try {
+                            sinkLong = log.query(from, from + window, (t, type, subject, value) -> {});
+                        } catch (java.io.IOException ex) {
+                            throw new java.io.UncheckedIOException(ex);
+                        }
+                    });
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // the event log's contents survive a write and reopen: random events (subjects with non-ASCII
+    // text, values at both extremes, times a little out of order) over several blocks, read back
+    // whole and by random time ranges. Then a torn tail: the log cut short anywhere in its last
+    // block, or with a byte of that block flipped, must reopen to exactly the blocks before it and
+    // take new events after them. A batch recorded into a closed, full log must return, not wait.
+    private void eventLogCheck() throws Exception {
+        if (!filter.matcher("eventlog").find()) return;
+        Check roundTrip = check("eventlog.roundTrip");
+        Check torn = check("eventlog.tornTail");
+        Check closed = check("eventlog.recordAll(closed)");
+        java.nio.file.Path dir = Files.createTempDirectory("neonclock-eventlog");
+        java.nio.file.Path file = dir.resolve("events.log"), copy = dir.resolve("torn.log");
+        try {
+            Random rnd = new Random(3);
+            ClockEngine.EventLog.Type[] types = ClockEngine.EventLog.Type.values();
+            String[] subjects = {"stopwatch", "timer", "Küche ⏰", "", "x".repeat(300), UUID.randomUUID().toString()};
+            long[] extremes = {0, -1, 1, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE + 1L};
+            List<String> written = new ArrayList<>(), firstBlocks;
+            List<long[]> times = new ArrayList<>();
+            long base = 1_700_000_000_000_000_000L;
+            try (ClockEngine.EventLog log = ClockEngine.EventLog.open(file, 1024)) {
+                for (int i = 0; i < 3 * ClockEngine.EventLog.BLOCK_EVENTS + 123; i++) {
+                    long t = base + i * 1_000_000L + rnd.nextInt(5_000_000);
+                    ClockEngine.EventLog.Type type = types[rnd.nextInt(types.length)];
+                    String subject = subjects[rnd.nextInt(subjects.length)];
+                    long value = rnd.nextInt(4) == 0 ? extremes[rnd.nextInt(extremes.length)] : rnd.nextLong();
+                    log.recordAll(t, type, subject, value);
+                    written.add(eventKey(t, type, subject, value));
+                    times.add(new long[]{t});
+                }
+            }
+            long goodLength = Files.size(file);
+            try (ClockEngine.EventLog log = ClockEngine.EventLog.open(file, 1024)) {
+                roundTrip.cases++;
+                List<String> read = readEvents(log, Long.MIN_VALUE, Long.MAX_VALUE);
+                if (!sorted(read).equals(sorted(written)))
+                    roundTrip.fail("full read: " + read.size() + " events, " + written.size() + " written, or contents differ");
+                for (int q = 0; q < 200; q++) {
+                    long from = base + rnd.nextInt(written.size()) * 1_000_000L, to = from + rnd.nextInt(2_000) * 1_000_000L;
+                    List<String> expected = new ArrayList<>();
+                    for (int i = 0; i < written.size(); i++) if (times.get(i)[0] >= from && times.get(i)[0] <= to) expected.add(written.get(i));
+                    roundTrip.cases++;
+                    List<String> got = readEvents(log, from, to);
+                    if (!sorted(got).equals(sorted(expected)))
+                        roundTrip.fail("range " + (from - base) + ".." + (to - base) + ": " + got.size() + " events, expected " + expected.size());
+                }
+                firstBlocks = readEvents(log, Long.MIN_VALUE, Long.MAX_VALUE);
+                // one more, partly filled block at the end, to tear
+                for (int i = 0; i < 500; i++) log.recordAll(base + (long) 1e15 + i, types[i % types.length], subjects[i % subjects.length], i);
+            }
+            long fullLength = Files.size(file);
+            for (int k = 0; k < 60; k++) {
+                Files.copy(file, copy, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                long cut = goodLength + 1 + rnd.nextInt((int) (fullLength - goodLength - 1));
+                String damage;
+                if (k % 2 == 0) {
+                    try (java.nio.channels.FileChannel ch = java.nio.channels.FileChannel.open(copy, java.nio.file.StandardOpenOption.WRITE)) {
+                        ch.truncate(cut);
+                    }
+                    damage = "cut at " + cut;
+                } else {
+                    byte[] bytes = Files.readAllBytes(copy);
+                    bytes[(int) cut - 1] ^= 1 << rnd.nextInt(8);
+                    Files.write(copy, bytes);
+                    damage = "bit flipped at " + (cut - 1);
+                }
+                torn.cases++;
+                try (ClockEngine.EventLog log = ClockEngine.EventLog.open(copy, 1024)) {
+                    List<String> got = readEvents(log, Long.MIN_VALUE, Long.MAX_VALUE);
+                    if (!got.equals(firstBlocks) || Files.size(copy) != goodLength) {
+                        torn.fail(damage + ": reopened with " + got.size() + " events, " + Files.size(copy) + " bytes; expected "
+                                + firstBlocks.size() + ", " + goodLength);
+                        continue;
+                    }
+                    log.recordAll(base + (long) 2e15, types[0], "after", k);
+                } catch (java.io.IOException | RuntimeException ex) {
+                    torn.fail(damage + ": " + ex);
+                    continue;
+                }
+                try (ClockEngine.EventLog log = ClockEngine.EventLog.open(copy, 1024)) {
+                    List<String> expected = new ArrayList<>(firstBlocks);
+                    expected.add(eventKey(base + (long) 2e15, types[0], "after", k));
+                    if (!readEvents(log, Long.MIN_VALUE, Long.MAX_VALUE).equals(expected)) torn.fail(damage + ": the event appended after reopening is missing");
+                }
+            }
+            // ring of 16, never drained once closed: the 17th waits for room that will never come
+            ClockEngine.EventLog log = ClockEngine.EventLog.open(copy, 16);
+            log.close();
+            long t0 = System.nanoTime();
+            int refused = 0;
+            for (int i = 0; i < 32; i++) if (!log.recordAll(types[0], "closed", i)) refused++;
+            closed.cases++;
+            if (refused != 16 || log.dropped() != 16 || System.nanoTime() - t0 > 1_000_000_000L)
+                closed.fail(refused + " refused, " + log.dropped() + " dropped, in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        } finally {
+            for (java.nio.file.Path p : new java.nio.file.Path[]{file, copy, dir}) Files.deleteIfExists(p);
+        }
+    }
+
+    private static List<String> readEvents(ClockEngine.EventLog log, long from, long to) throws java.io.IOException {
+        List<String> events = new ArrayList<>();
+        log.query(from, to, (t, type, subject, value) -> events.add(eventKey(t, type, subject, value)));
+        return events;
+    }
+
+    private static String eventKey(long t, ClockEngine.EventLog.Type type, String subject, long value) {
+        return t + " " + type + " " + value + " " + subject;
+    }
+
+    private static List<String> sorted(List<String> events) {
+        List<String> s = new ArrayList<>(events);
+        Collections.sort(s);
+        return s;
+    }
+
+    // n WebSocket subscribers: how long after a change every one of them has its frame, and what a
+    // burst of 10k changes costs each subscriber once batched
+    private void serverPush(int n) throws Exception {
+        if (!filter.matcher("server.push").find()) return;
+        int rounds = 20;
+        try (ClockEngine engine = new ClockEngine(ZoneId.systemDefault(), null);
+             ClockServer server = ClockServer.open(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             Selector selector = Selector.open()) {
+            ClockEngine.Stopwatch sw = engine.stopwatch("bench");
+            sw.start();
+            Subscriber[] subs = new Subscriber[n];
+            for (int i = 0; i < n; i++) subs[i] = new Subscriber(server.port(), selector);
+            drain(selector, subs, 1, 30_000); // snapshots
+
+            ClockEngine.LatencyRecorder fanOut = new ClockEngine.LatencyRecorder(n * rounds);
+            for (int r = 0; r < rounds; r++) {
+                Thread.sleep(ClockServer.BATCH_MS + 10);
+                long t0 = System.nanoTime();
+                for (Subscriber s : subs) s.await(t0, fanOut);
+                sw.lap();
+                drain(selector, subs, 0, 10_000);
+            }
+            long frames0 = 0, bytes0 = 0;
+            for (Subscriber s : subs) { frames0 += s.frames; bytes0 += s.bytes; }
+            long t0 = System.nanoTime();
+            for (int k = 0; k < 10_000; k++) sw.lap();
+            long burst = System.nanoTime() - t0;
+            Thread.sleep(ClockServer.BATCH_MS * 2);
+            long until = System.currentTimeMillis() + 1000;
+            while (System.currentTimeMillis() < until) {
+                selector.select(50);
+                readReady(selector);
+            }
+            long frames = -frames0, bytes = -bytes0;
+            for (Subscriber s : subs) { frames += s.frames; bytes += s.bytes; }
+            System.out.printf("# server.push(%d subscribers): change -> frame at every subscriber %s p99.9=%.2fms%n",
+                    n, fanOut.describe(), fanOut.percentile(0.999) / 1e6);
+            System.out.printf("  burst of 10k laps in %.1fms -> %.1f frames, %,d bytes per subscriber  (%s)%n%n",
+                    burst / 1e6, frames / (double) n, bytes / n, server.describe());
+            for (Subscriber s : subs) s.channel.close();
+        }
+    }
+
+    // reads until every subscriber has at least 'frames' frames and none is waiting on a change
+    private static void drain(Selector selector, Subscriber[] subs, int frames, long timeoutMillis) throws java.io.IOException {
+        long until = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < until) {
+            boolean done = true;
+            for (Subscriber s : subs) if (s.frames < frames || s.since != 0) { done = false; break; }
+            if (done) return;
+            selector.select(50);
+            readReady(selector);
+        }
+        throw new IllegalStateException("subscribers timed out");
+    }
+
+    private static void readReady(Selector selector) throws java.io.IOException {
+        for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+            SelectionKey key = it.next();
+            it.remove();
+            ((Subscriber) key.attachment()).read();
+        }
+    }
+
+    // a minimal WebSocket client: blocking handshake, then non-blocking frame reads
+    static final class Subscriber {
+        final SocketChannel channel;
+        private ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        long frames, bytes, since;
+        private ClockEngine.LatencyRecorder recorder;
+
+        Subscriber(int port, Selector selector) throws java.io.IOException {
+            channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            channel.write(ByteBuffer.wrap(("GET /ws HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1)));
+            int end;
+            while ((end = headerEnd()) < 0) if (channel.read(in) < 0) throw new java.io.EOFException("handshake");
+            String head = new String(in.array(), 0, end, StandardCharsets.ISO_8859_1);
+            if (!head.startsWith("HTTP/1.1 101")) throw new java.io.IOException("handshake refused: " + head);
+            in.flip().position(end);
+            in.compact();
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, this);
+            parse();
+        }
+
+        // time the next frame from t0
+        void await(long t0, ClockEngine.LatencyRecorder recorder) {
+            since = t0;
+            this.recorder = recorder;
+        }
+
+        void read() throws java.io.IOException {
+            if (!in.hasRemaining()) in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+            if (channel.read(in) > 0) parse();
+        }
+
+        private void parse() {
+            byte[] a = in.array();
+            int len = in.position(), at = 0;
+            while (len - at >= 2) {
+                int n = a[at + 1] & 0x7F, head = 2;
+                if (n == 126) {
+                    if (len - at < 4) break;
+                    n = (a[at + 2] & 0xFF) << 8 | (a[at + 3] & 0xFF);
+                    head = 4;
+                } else if (n == 127) {
+                    if (len - at < 10) break;
+                    n = (int) ByteBuffer.wrap(a, at + 2, 8).getLong();
+                    head = 10;
+                }
+                if (len - at < head + n) {
+                    if (head + n > in.capacity()) in = ByteBuffer.allocate(head + n).put(in.flip());
+                    break;
+                }
+                frames++;
+                bytes += head + n;
+                if (since != 0) {
+                    recorder.record(System.nanoTime() - since);
+                    since = 0;
+                }
+                at += head + n;
+            }
+            if (at > 0) {
+                in.flip().position(at);
+                in.compact();
+            }
+        }
+
+        private int headerEnd() {
+            byte[] a = in.array();
+            for (int i = 3; i < in.position(); i++)
+                if (a[i] == '\n' && a[i - 1] == '\r' && a[i - 2] == '\n' && a[i - 3] == '\r') return i + 1;
+            return -1;
+        }
+    }
+
+    // the synthesis loop the tones came from before ToneSynth: one Math.sin per sample
+    private static byte[] mathSin8(int freq, int sampleRate, int ms) {
+        byte[] output = new byte[(ms * sampleRate) / 1000];
+        double period = (double) sampleRate / freq;
+        for (int i = 0; i < output.length; i++) output[i] = (byte) (Math.sin(2.0 * Math.PI * i / period) * 127f);
+        return output;
+    }
+
+    private static short[] mathSin16(int freq, int sampleRate, int ms) {
+        short[] output = new short[(ms * sampleRate) / 1000];
+        double period = (double) sampleRate / freq;
+        for (int i = 0; i < output.length; i++) output[i] = (short) (Math.sin(2.0 * Math.PI * i / period) * 32767f);
+        return output;
+    }
+
+    // time to first paint, from a fresh JVM each run, with the JDK's default class-data archive and
+    // with an AppCDS archive of the app's startup classes (dumped by one training run). AppCDS only
+    // archives classes from jars, so the classes are packed into one first.
+    private void startup() throws Exception {
+        if (!filter.matcher("startup").find()) return;
+        String launcher = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        java.nio.file.Path jar = Files.createTempFile("neonclock-startup", ".jar");
+        java.nio.file.Path jsa = Files.createTempFile("neonclock-startup", ".jsa");
+        Files.delete(jsa);
+        try {
+            Files.delete(jar);
+            java.util.spi.ToolProvider.findFirst("jar").orElseThrow().run(System.out, System.err,
+                    "--create", "--file", jar.toString(), "-C", System.getProperty("java.class.path"), ".");
+            String cp = jar.toString();
+            startupRun(launcher, "-XX:ArchiveClassesAtExit=" + jsa, cp);
+            System.out.println("# startup(first paint after JVM start, headless offscreen, median of 5 fresh JVMs)");
+            for (String share : new String[]{"-Xshare:auto", "-XX:SharedArchiveFile=" + jsa}) {
+                double[] first = new double[5], rest = new double[5];
+                for (int i = 0; i < first.length; i++) {
+                    double[] r = startupRun(launcher, share, cp);
+                    first[i] = r[0];
+                    rest[i] = r[1];
+                }
+                Arrays.sort(first);
+                Arrays.sort(rest);
+                System.out.printf("  %-8s first paint %4.0f ms   building the other 4 tabs (now on first selection) %4.0f ms%n",
+                        share.startsWith("-Xshare") ? "JDK CDS" : "AppCDS", first[2], rest[2]);
+            }
+            System.out.println();
+        } finally {
+            Files.deleteIfExists(jsa);
+            Files.deleteIfExists(jar);
+        }
+    }
+
+    private static double[] startupRun(String launcher, String share, String cp) throws Exception {
+        Process p = new ProcessBuilder(launcher, share, "-Xlog:cds=off", "-Djava.awt.headless=true", "-cp", cp,
+                "NeonClockBench", "--startup-child").redirectErrorStream(true).start();
+        String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (p.waitFor() != 0) throw new IllegalStateException("startup child failed: " + out);
+        String[] last = out.substring(out.lastIndexOf('\n') + 1).split(" ");
+        return new double[]{Double.parseDouble(last[0]), Double.parseDouble(last[1])};
+    }
+
+    // what the app does before its first frame, short of a window: the look-and-feel, the font
+    // warm-up, the engine and the clock tab, painted into an image; then the tabs it now defers
+    private static void startupChild() throws Exception {
+        NeonClockApp.warmUpFonts();
+        double[] r = new double[2];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (Exception ignored) {}
+            ClockEngine engine = new ClockEngine(ZoneId.systemDefault(), null);
+            NeonClockApp.TickScheduler ticks = new NeonClockApp.TickScheduler();
+            NeonClockApp.ClockPanel cp = new NeonClockApp.ClockPanel(ticks, engine.clock());
+            cp.setSize(980, 520);
+            layoutTree(cp);
+            BufferedImage img = new BufferedImage(980, 520, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = img.createGraphics();
+            cp.paint(g);
+            g.dispose();
+            r[0] = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            long t0 = System.nanoTime();
+            NeonClockApp.WorldClockPanel.scrollPane(new NeonClockApp.WorldClockPanel(ticks,
+                    new ClockEngine.WorldClock(ClockEngine.WorldClock.configuredZones())));
+            new NeonClockApp.StopwatchPanel(ticks, engine);
+            new NeonClockApp.TimerPanel(ticks, engine);
+            new NeonClockApp.AlarmPanel(ticks, engine);
+            r[1] = (System.nanoTime() - t0) / 1e6;
+        });
+        System.out.println(r[0] + " " + r[1]);
+        System.exit(0);
+    }
+
+    private static void layoutTree(Component c) {
+        c.doLayout();
+        if (c instanceof Container)
+            for (Component child : ((Container) c).getComponents()) layoutTree(child);
+    }
+
+    // ------------------ Harness ------------------
+
+    void bench(String name, Runnable op) {
+        if (!filter.matcher(name).find()) return;
+        System.out.printf("# %s%n", name);
+        int batch = calibrate(op);
+        for (int i = 0; i < warmupIterations; i++) {
+            Iteration it = iterate(op, batch, null);
+            System.out.printf("  warmup %d: %,.1f ops/s%n", i + 1, it.opsPerSecond());
+        }
+        // again once warm: a batch sized while the op was still interpreted is far too small for the
+        // compiled op, and would record millions of samples
+        batch = calibrate(op);
+        Result r = new Result(name);
+        for (int i = 0; i < iterations; i++) {
+            Iteration it = iterate(op, batch, r.samples);
+            r.add(it);
+            System.out.printf("  iter   %d: %,.1f ops/s  %,.0f B/op%n", i + 1, it.opsPerSecond(), it.bytesPerOp());
+        }
+        results.add(r);
+    }
+
+    // size batches to roughly 20µs so the nanoTime() overhead stays out of the latency samples
+    private static int calibrate(Runnable op) {
+        int batch = 1;
+        while (true) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < batch; i++) op.run();
+            long dt = System.nanoTime() - t0;
+            if (dt >= 20_000 || batch >= 1 << 20) return batch;
+            batch *= 2;
+        }
+    }
+
+    private Iteration iterate(Runnable op, int batch, LongList samples) {
+        Iteration it = new Iteration();
+        long gcCount0 = gcCount(), gcTime0 = gcTime();
+        long alloc0 = allocatedBytes();
+        long start = System.nanoTime();
+        long end = start + iterationMillis * 1_000_000L;
+        long now = start;
+        while (now < end) {
+            long t0 = now;
+            for (int i = 0; i < batch; i++) op.run();
+            now = System.nanoTime();
+            it.ops += batch;
+            if (samples != null) samples.add((now - t0) / batch);
+        }
+        it.nanos = now - start;
+        it.allocated = allocatedBytes() - alloc0;
+        it.gcCount = gcCount() - gcCount0;
+        it.gcMillis = gcTime() - gcTime0;
+        return it;
+    }
+
+    // summed over all live threads, so work handed to the EDT is counted too
+    private static long allocatedBytes() {
+        long n = 0;
+        for (long b : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) n += Math.max(0, b);
+        return n;
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += Math.max(0, gc.getCollectionCount());
+        return n;
+    }
+
+    private static long gcTime() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += Math.max(0, gc.getCollectionTime());
+        return n;
+    }
+
+    // ------------------ Checks ------------------
+
+    // Verification runs next to the benchmarks: cases counted, the first few failures kept for the
+    // report. Any failure makes the harness exit with status 1.
+    static final class Check {
+        final String name;
+        long cases, failures;
+        final List<String> first = new ArrayList<>();
+
+        Check(String name) { this.name = name; }
+
+        void fail(String what) {
+            if (failures++ < 10) first.add(what);
+        }
+    }
+
+    private Check check(String name) {
+        Check c = new Check(name);
+        checks.add(c);
+        return c;
+    }
+
+    private void printChecks() {
+        if (checks.isEmpty()) return;
+        System.out.println();
+        for (Check c : checks) {
+            System.out.printf("%-42s %,14d cases  %s%n", c.name, c.cases, c.failures == 0 ? "ok" : c.failures + " FAILED");
+            for (String f : c.first) System.out.println("    " + f);
+        }
+    }
+
+    // recurrence rules against java.time, in zones with odd transitions: a 30-minute DST shift
+    // (Lord_Howe), a 2-hour one (Troll), a skipped day (Apia, 2011), midnight gaps (Havana,
+    // Santiago, Sao Paulo), negative DST (Dublin), and a fixed offset. A third of the instants are
+    // within three hours of a transition. Weekly rules are compared with a day-by-day search done
+    // with ZonedDateTime; local days, resolution of a date and time (gaps move forward, overlaps
+    // take the earlier offset) and one-shot rules directly with ZonedDateTime.
+    private void recurrenceCheck() {
+        if (!filter.matcher("recurrence").find()) return;
+        String[] zones = {"UTC", "America/New_York", "Europe/London", "Australia/Lord_Howe", "Pacific/Apia",
+                "America/Sao_Paulo", "Asia/Tehran", "America/Havana", "Europe/Dublin", "Antarctica/Troll", "Asia/Kolkata", "America/Santiago"};
+        Check weekly = check("recurrence.weekly vs ZonedDateTime");
+        Check localDay = check("zoneDays.epochDay vs ZonedDateTime");
+        Check resolve = check("zoneDays.resolve vs ZonedDateTime.of");
+        Check once = check("recurrence.once vs ZonedDateTime.of");
+        Random rnd = new Random(7);
+        for (String z : zones) {
+            ZoneId zone = ZoneId.of(z);
+            ClockEngine.ZoneDays days = new ClockEngine.ZoneDays(zone);
+            for (int k = 0; k < 40_000; k++) {
+                // 1990..2050
+                long after = 631_152_000_000L + (long) (rnd.nextDouble() * 60 * 365.25 * 86_400_000L);
+                if (k % 3 == 0) {
+                    java.time.zone.ZoneOffsetTransition tr = zone.getRules().nextTransition(Instant.ofEpochMilli(after));
+                    if (tr != null) after = tr.toEpochSecond() * 1000 + (rnd.nextInt(6 * 3600) - 3 * 3600) * 1000L;
+                }
+                LocalTime t = LocalTime.ofSecondOfDay(rnd.nextBoolean() ? rnd.nextInt(96) * 900 : rnd.nextInt(86_400));
+                int mask = rnd.nextBoolean() ? 0x7F : 1 + rnd.nextInt(0x7F);
+                long got = ClockEngine.Recurrence.weekly(mask).compile(t, days).after(after);
+                long expected = nextWeekly(zone, t, mask, after);
+                weekly.cases++;
+                if (got != expected)
+                    weekly.fail(z + " " + t + " days=" + Integer.toBinaryString(mask) + " after " + Instant.ofEpochMilli(after)
+                            + ": " + Instant.ofEpochMilli(got) + ", expected " + Instant.ofEpochMilli(expected));
+                LocalDate date = Instant.ofEpochMilli(after).atZone(zone).toLocalDate();
+                localDay.cases++;
+                if (days.epochDay(after) != date.toEpochDay()) localDay.fail(z + " " + Instant.ofEpochMilli(after) + ": " + LocalDate.ofEpochDay(days.epochDay(after)));
+                expected = ZonedDateTime.of(date, t, zone).toInstant().toEpochMilli();
+                got = days.resolve(date.toEpochDay(), t.toSecondOfDay());
+                resolve.cases++;
+                if (got != expected) resolve.fail(z + " " + date + " " + t + ": " + Instant.ofEpochMilli(got) + ", expected " + Instant.ofEpochMilli(expected));
+                ClockEngine.Recurrence.NextFire one = ClockEngine.Recurrence.once(date).compile(t, days);
+                once.cases++;
+                if (one.after(expected - 1) != expected || one.after(expected) != ClockEngine.Recurrence.NEVER)
+                    once.fail(z + " " + date + " " + t + ": " + one.after(expected - 1) + " then " + one.after(expected));
+            }
+        }
+    }
+
+    // the first time t on a selected weekday after 'after', one local date at a time
+    private static long nextWeekly(ZoneId zone, LocalTime t, int mask, long after) {
+        for (LocalDate date = Instant.ofEpochMilli(after).atZone(zone).toLocalDate().minusDays(1); ; date = date.plusDays(1)) {
+            if ((mask & 1 << (date.getDayOfWeek().getValue() - 1)) == 0) continue;
+            long at = ZonedDateTime.of(date, t, zone).toInstant().toEpochMilli();
+            if (at > after) return at;
+        }
+    }
+
+    private void printTable() {
+        System.out.println();
+        System.out.printf("%-42s %14s %10s %10s %10s %10s %10s %12s %10s %6s%n",
+                "Benchmark", "ops/s", "+/- err", "p50 ns", "p90 ns", "p99 ns", "p99.9 ns", "alloc B/op", "alloc MB/s", "gc");
+        for (Result r : results) {
+            r.samples.sort();
+            System.out.printf("%-42s %,14.1f %,10.1f %,10d %,10d %,10d %,10d %,12.1f %,10.1f %6d%n",
+                    r.name, r.meanOps(), r.errorOps(),
+                    r.samples.percentile(0.50), r.samples.percentile(0.90),
+                    r.samples.percentile(0.99), r.samples.percentile(0.999),
+                    r.bytesPerOp(), r.allocMbPerSecond(), r.gcCount);
+        }
+    }
+
+    static final class Iteration {
+        long ops, nanos, allocated, gcCount, gcMillis;
+        double opsPerSecond() { return ops * 1e9 / nanos; }
+        double bytesPerOp() { return ops == 0 ? 0 : (double) allocated / ops; }
+    }
+
+    static final class Result {
+        final String name;
+        final List<Iteration> iterations = new ArrayList<>();
+        final LongList samples = new LongList();
+        long gcCount;
+
+        Result(String name) { this.name = name; }
+
+        void add(Iteration it) { iterations.add(it); gcCount += it.gcCount; }
+
+        double meanOps() {
+            double sum = 0;
+            for (Iteration it : iterations) sum += it.opsPerSecond();
+            return sum / iterations.size();
+        }
+
+        // 99.9% confidence half-width, as JMH prints it (normal approximation)
+        double errorOps() {
+            int n = iterations.size();
+            if (n < 2) return Double.NaN;
+            double mean = meanOps(), var = 0;
+            for (Iteration it : iterations) var += Math.pow(it.opsPerSecond() - mean, 2);
+            return 3.29 * Math.sqrt(var / (n - 1)) / Math.sqrt(n);
+        }
+
+        double bytesPerOp() {
+            long ops = 0, bytes = 0;
+            for (Iteration it : iterations) { ops += it.ops; bytes += it.allocated; }
+            return ops == 0 ? 0 : (double) bytes / ops;
+        }
+
+        double allocMbPerSecond() {
+            long nanos = 0, bytes = 0;
+            for (Iteration it : iterations) { nanos += it.nanos; bytes += it.allocated; }
+            return bytes / 1048576.0 / (nanos / 1e9);
+        }
+    }
+
+    // growable primitive list for latency samples (no boxing while measuring)
+    static final class LongList {
+        private long[] a = new long[1024];
+        private int size;
+
+        void add(long v) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = v;
+        }
+
+        void sort() { Arrays.sort(a, 0, size); }
+
+        long percentile(double p) {
+            if (size == 0) return 0;
+            return a[Math.min(size - 1, (int) Math.ceil(p * size) - 1)];
+        }
+    }
+}